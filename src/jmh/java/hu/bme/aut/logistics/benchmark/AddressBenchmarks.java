@@ -0,0 +1,79 @@
+package hu.bme.aut.logistics.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.service.AddressSearchResult;
+import hu.bme.aut.logistics.service.AddressSearchService;
+import hu.bme.aut.logistics.service.AddressService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AddressBenchmarks {
+
+    @Param({ "10000" })
+    int addressCount;
+
+    @Param({ "20" })
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    BenchmarkDataGenerator generator;
+    AddressService addressService;
+    AddressSearchService addressSearchService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("addresses");
+        generator = new BenchmarkDataGenerator(context, 42);
+        addressService = context.getBean(AddressService.class);
+        addressSearchService = context.getBean(AddressSearchService.class);
+        generator.insertAddresses(addressCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Address insert() {
+        return addressService.create(generator.createAddress());
+    }
+
+    @Benchmark
+    public List<Address> searchByCityPrefixSorted() {
+        Address example = new Address();
+        example.setCity(generator.pick(BenchmarkDataGenerator.CITIES).substring(0, 3));
+        AddressSearchResult result = addressSearchService.search(example,
+                PageRequest.of(0, pageSize, Sort.by("street", "number")));
+        return result.getContent();
+    }
+
+    @Benchmark
+    public List<Address> searchByCountryAndStreetPrefixLaterPage() {
+        Address example = new Address();
+        example.setCountry(generator.pick(BenchmarkDataGenerator.COUNTRIES));
+        example.setStreet(generator.pick(BenchmarkDataGenerator.STREETS).substring(0, 2));
+        AddressSearchResult result = addressSearchService.search(example,
+                PageRequest.of(5, pageSize, Sort.by(Sort.Direction.DESC, "zipCode")));
+        return result.getContent();
+    }
+
+}
@@ -0,0 +1,120 @@
+package hu.bme.aut.logistics.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.repository.SectionRepository;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+
+/**
+ * Generates addresses and transport plans shaped like the ones of
+ * {@code TestDataHelper}, in any quantity and reproducibly for a given seed.
+ */
+class BenchmarkDataGenerator {
+
+    static final String[] COUNTRIES = { "HU", "AT", "SK", "RO", "DE" };
+    static final String[] CITIES = { "Budapest", "Budaörs", "Debrecen", "Szeged", "Pécs", "Győr", "Wien", "Graz",
+            "Bratislava", "Košice", "Cluj", "München" };
+    static final String[] STREETS = { "Magyar tudósok körútja", "Fő utca", "Kossuth Lajos utca", "Petőfi Sándor utca",
+            "Rákóczi út", "Ringstraße", "Hauptstraße", "Bahnhofstraße" };
+    static final LocalDateTime BASE_TIME = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final Random random;
+    private final AddressRepository addressRepository;
+    private final MilestoneRepository milestoneRepository;
+    private final SectionRepository sectionRepository;
+    private final TransportPlanRepository transportPlanRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    BenchmarkDataGenerator(ApplicationContext context, long seed) {
+        this.random = new Random(seed);
+        this.addressRepository = context.getBean(AddressRepository.class);
+        this.milestoneRepository = context.getBean(MilestoneRepository.class);
+        this.sectionRepository = context.getBean(SectionRepository.class);
+        this.transportPlanRepository = context.getBean(TransportPlanRepository.class);
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    Address createAddress() {
+        Address address = new Address();
+        address.setCountry(pick(COUNTRIES));
+        address.setCity(pick(CITIES));
+        address.setGeoLat(45.7 + random.nextDouble() * 3);
+        address.setGeoLng(16.1 + random.nextDouble() * 6.8);
+        address.setNumber(String.valueOf(1 + random.nextInt(200)));
+        address.setStreet(pick(STREETS));
+        address.setZipCode(String.valueOf(1000 + random.nextInt(9000)));
+        return address;
+    }
+
+    List<Address> insertAddresses(int count) {
+        List<Address> addresses = new ArrayList<>(count);
+        for (int from = 0; from < count; from += CHUNK_SIZE) {
+            int size = Math.min(CHUNK_SIZE, count - from);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < size; i++)
+                    addresses.add(addressRepository.save(createAddress()));
+            });
+        }
+        return addresses;
+    }
+
+    /**
+     * Inserts plans of {@code sectionsPerPlan} consecutive sections between
+     * random addresses, starting at random times within two years of
+     * {@link #BASE_TIME}.
+     */
+    List<Long> insertTransportPlans(int count, int sectionsPerPlan, List<Address> addresses) {
+        List<Long> planIds = new ArrayList<>(count);
+        for (int from = 0; from < count; from += CHUNK_SIZE) {
+            int size = Math.min(CHUNK_SIZE, count - from);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < size; i++)
+                    planIds.add(insertTransportPlan(sectionsPerPlan, addresses));
+            });
+        }
+        return planIds;
+    }
+
+    private Long insertTransportPlan(int sectionsPerPlan, List<Address> addresses) {
+        TransportPlan transportPlan = transportPlanRepository.save(new TransportPlan());
+        LocalDateTime time = BASE_TIME.plusMinutes(random.nextInt(2 * 365 * 24 * 60));
+        Milestone from = milestoneRepository.save(new Milestone(pick(addresses), time));
+        for (int number = 0; number < sectionsPerPlan; number++) {
+            time = time.plusMinutes(30 + random.nextInt(600));
+            Milestone to = milestoneRepository.save(new Milestone(pick(addresses), time));
+            Section section = new Section(from, to, number);
+            transportPlan.addSection(section);
+            sectionRepository.save(section);
+            from = to;
+        }
+        return transportPlan.getId();
+    }
+
+    LocalDateTime randomTime() {
+        return BASE_TIME.plusMinutes(random.nextInt(2 * 365 * 24 * 60));
+    }
+
+    String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+}
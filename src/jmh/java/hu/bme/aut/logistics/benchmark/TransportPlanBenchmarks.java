@@ -0,0 +1,75 @@
+package hu.bme.aut.logistics.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.service.TransportPlanService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransportPlanBenchmarks {
+
+    @Param({ "1000" })
+    int addressCount;
+
+    @Param({ "2000" })
+    int planCount;
+
+    @Param({ "5" })
+    int sectionsPerPlan;
+
+    @Param({ "20" })
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    BenchmarkDataGenerator generator;
+    TransportPlanService transportPlanService;
+    List<Long> planIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("transportplans");
+        generator = new BenchmarkDataGenerator(context, 42);
+        transportPlanService = context.getBean(TransportPlanService.class);
+        List<Address> addresses = generator.insertAddresses(addressCount);
+        planIds = generator.insertTransportPlans(planCount, sectionsPerPlan, addresses);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TransportPlan> findWithMilestoneAfter() {
+        return transportPlanService.findWithMilestoneAfter(generator.randomTime(),
+                PageRequest.of(0, pageSize, Sort.by("id")));
+    }
+
+    @Benchmark
+    public List<TransportPlan> loadGraphs() {
+        List<Long> ids = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++)
+            ids.add(generator.pick(planIds));
+        return transportPlanService.loadGraphs(ids);
+    }
+
+}
@@ -4,10 +4,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import hu.bme.aut.logistics.repository.AddressRepository;
 
 @SpringBootApplication
+@EnableScheduling
 public class LogisticsApplication implements CommandLineRunner {
 
     @Autowired
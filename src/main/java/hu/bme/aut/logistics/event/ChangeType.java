@@ -0,0 +1,5 @@
+package hu.bme.aut.logistics.event;
+
+public enum ChangeType {
+    CREATED, UPDATED, DELETED
+}
@@ -0,0 +1,32 @@
+package hu.bme.aut.logistics.event;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Published once per committed transaction with every entity change recorded
+ * in it, in the order the changes were flushed.
+ */
+public class EntitiesChangedEvent {
+
+    private final List<EntityChange> changes;
+
+    public EntitiesChangedEvent(List<EntityChange> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    public List<EntityChange> getChanges() {
+        return changes;
+    }
+
+    public List<EntityChange> getChanges(Class<?> entityClass) {
+        return changes.stream()
+                .filter(change -> change.isFor(entityClass))
+                .collect(Collectors.toList());
+    }
+
+    public boolean contains(Class<?> entityClass) {
+        return changes.stream().anyMatch(change -> change.isFor(entityClass));
+    }
+
+}
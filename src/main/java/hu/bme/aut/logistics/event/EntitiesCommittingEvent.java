@@ -0,0 +1,30 @@
+package hu.bme.aut.logistics.event;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Published inside a transaction after its final flush, right before commit,
+ * with every entity change recorded in it so far. Listeners run in the
+ * committing transaction, so their writes commit or roll back together with
+ * the changes; an exception thrown by a listener rolls the transaction back.
+ */
+public class EntitiesCommittingEvent {
+
+    private final List<EntityChange> changes;
+
+    public EntitiesCommittingEvent(List<EntityChange> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    public List<EntityChange> getChanges() {
+        return changes;
+    }
+
+    public List<EntityChange> getChanges(Class<?> entityClass) {
+        return changes.stream()
+                .filter(change -> change.isFor(entityClass))
+                .collect(Collectors.toList());
+    }
+
+}
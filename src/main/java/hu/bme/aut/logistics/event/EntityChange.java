@@ -0,0 +1,25 @@
+package hu.bme.aut.logistics.event;
+
+public class EntityChange {
+
+    private final ChangeType type;
+    private final Object entity;
+
+    public EntityChange(ChangeType type, Object entity) {
+        this.type = type;
+        this.entity = entity;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+
+    public boolean isFor(Class<?> entityClass) {
+        return entityClass.isInstance(entity);
+    }
+
+}
@@ -0,0 +1,35 @@
+package hu.bme.aut.logistics.event;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * JPA entity listener forwarding lifecycle callbacks to the
+ * {@link EntityChangePublisher}. Instantiated by Hibernate through the Spring
+ * bean container.
+ */
+public class EntityChangeListener {
+
+    @Autowired
+    ObjectProvider<EntityChangePublisher> changePublisher;
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        changePublisher.getObject().record(ChangeType.CREATED, entity);
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        changePublisher.getObject().record(ChangeType.UPDATED, entity);
+    }
+
+    @PostRemove
+    public void onDeleted(Object entity) {
+        changePublisher.getObject().record(ChangeType.DELETED, entity);
+    }
+
+}
@@ -0,0 +1,92 @@
+package hu.bme.aut.logistics.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Collects entity changes of the current transaction and publishes them as one
+ * {@link EntitiesChangedEvent} after commit, so that in-memory structures never
+ * see changes that are rolled back. Outside a transaction changes are published
+ * immediately.
+ * <p>
+ * Within a transaction the changes are also published as an
+ * {@link EntitiesCommittingEvent} once the session has been flushed for
+ * commit, for derived columns and tables that must be written in the same
+ * transaction. This runs as a Hibernate before-completion process because
+ * Spring's {@code beforeCommit} callbacks run before that final flush.
+ */
+@Component
+public class EntityChangePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityChangePublisher.class);
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    EntityManager em;
+
+    public void record(ChangeType type, Object entity) {
+        record(new EntityChange(type, entity));
+    }
+
+    public void record(EntityChange change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(change));
+            return;
+        }
+        pendingChanges().changes.add(change);
+    }
+
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges)
+                return (PendingChanges) synchronization;
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.unwrap(SessionImplementor.class).getActionQueue()
+                    .registerProcess(session -> pending.publishCommitting());
+        }
+        return pending;
+    }
+
+    private void publish(List<EntityChange> changes) {
+        try {
+            eventPublisher.publishEvent(new EntitiesChangedEvent(changes));
+        } catch (RuntimeException e) {
+            log.error("Failed to process {} entity change(s)", changes.size(), e);
+        }
+    }
+
+    private class PendingChanges extends TransactionSynchronizationAdapter {
+
+        private final List<EntityChange> changes = new ArrayList<>();
+
+        void publishCommitting() {
+            if (!changes.isEmpty())
+                eventPublisher.publishEvent(new EntitiesCommittingEvent(changes));
+        }
+
+        @Override
+        public void afterCommit() {
+            if (!changes.isEmpty())
+                publish(changes);
+        }
+    }
+
+}
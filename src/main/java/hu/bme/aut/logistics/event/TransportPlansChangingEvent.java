@@ -0,0 +1,23 @@
+package hu.bme.aut.logistics.event;
+
+import java.util.Set;
+
+/**
+ * Published inside the committing transaction with the ids of the transport
+ * plans whose own row, sections or section milestones changed in it, including
+ * plans a section was moved away from and deleted plans. Listeners write
+ * derived plan data in the same transaction.
+ */
+public class TransportPlansChangingEvent {
+
+    private final Set<Long> planIds;
+
+    public TransportPlansChangingEvent(Set<Long> planIds) {
+        this.planIds = Set.copyOf(planIds);
+    }
+
+    public Set<Long> getPlanIds() {
+        return planIds;
+    }
+
+}
@@ -0,0 +1,107 @@
+package hu.bme.aut.logistics.execution;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * With {@code logistics.execution.mode=virtual} Tomcat runs every request, and
+ * so every blocking repository call it makes, on its own virtual thread. The
+ * number of requests in progress is then limited by a
+ * {@link ConcurrencyLimitFilter} sized to the connection pool, since the
+ * thread pool no longer bounds it. The property is bound to
+ * {@link ExecutionMode}, so an unknown value fails the startup.
+ * <p>
+ * A virtual thread blocking inside a {@code synchronized} block pins its
+ * carrier thread. Monitors in this application therefore only guard in-memory
+ * work (caches, indexes, the change feed and the milestone queue); locks held
+ * across JDBC calls, such as the upsert stripes of {@code AddressService} and
+ * the flush lock of {@code MilestoneUpdateQueue}, are {@code ReentrantLock}s.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Conditional(ExecutionConfiguration.OnVirtualExecutionMode.class)
+public class ExecutionConfiguration {
+
+    static final String MODE_PROPERTY = "logistics.execution.mode";
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionConfiguration.class);
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService requestExecutor() {
+        if (!VirtualThreads.isSupported())
+            throw new IllegalStateException(MODE_PROPERTY + "=virtual needs a Java 21 or later runtime, running on "
+                    + System.getProperty("java.version"));
+        return VirtualThreads.newExecutor("http-virtual-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService requestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Without an explicit limit as many requests are admitted as the pool has
+     * connections, times {@code requests-per-connection} to keep connections
+     * busy while requests do other work.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(DataSource dataSource,
+            @Value("${logistics.execution.max-concurrent-requests:-1}") int maxConcurrentRequests,
+            @Value("${logistics.execution.requests-per-connection:2}") int requestsPerConnection,
+            @Value("${logistics.execution.queue-timeout:1s}") Duration queueTimeout) {
+        int limit = maxConcurrentRequests > 0 ? maxConcurrentRequests : poolSize(dataSource) * requestsPerConnection;
+        log.info("Running requests on virtual threads, at most {} at a time", limit);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limit, queueTimeout.toMillis()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class))
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException e) {
+            log.debug("Cannot determine connection pool size", e);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    static class OnVirtualExecutionMode extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            ExecutionMode mode = Binder.get(context.getEnvironment())
+                    .bind(MODE_PROPERTY, ExecutionMode.class)
+                    .orElse(ExecutionMode.PLATFORM);
+            return mode == ExecutionMode.VIRTUAL
+                    ? ConditionOutcome.match(MODE_PROPERTY + " is " + mode)
+                    : ConditionOutcome.noMatch(MODE_PROPERTY + " is " + mode);
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+package hu.bme.aut.logistics.execution;
+
+/**
+ * Values of {@code logistics.execution.mode}, see
+ * {@link ExecutionConfiguration}.
+ */
+public enum ExecutionMode {
+    /** Tomcat's own bounded worker thread pool. */
+    PLATFORM,
+    /** A new virtual thread per request; needs a Java 21 or later runtime. */
+    VIRTUAL
+}
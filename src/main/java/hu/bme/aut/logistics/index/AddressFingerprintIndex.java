@@ -0,0 +1,68 @@
+package hu.bme.aut.logistics.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * In-memory index of addresses by their {@link AddressNormalizer#fingerprint},
+ * used to find an existing copy of an address before inserting it and to find
+ * duplicates to merge.
+ */
+@Component
+public class AddressFingerprintIndex {
+
+    private final Map<String, Set<Long>> idsByFingerprint = new ConcurrentHashMap<>();
+    private final Map<Long, String> fingerprintById = new ConcurrentHashMap<>();
+
+    public synchronized void put(Address address) {
+        Long id = address.getId();
+        remove(id);
+        String fingerprint = AddressNormalizer.fingerprint(address);
+        idsByFingerprint.computeIfAbsent(fingerprint, f -> new TreeSet<>()).add(id);
+        fingerprintById.put(id, fingerprint);
+    }
+
+    public synchronized void remove(Long id) {
+        String fingerprint = fingerprintById.remove(id);
+        if (fingerprint == null)
+            return;
+        idsByFingerprint.computeIfPresent(fingerprint, (f, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    public int size() {
+        return fingerprintById.size();
+    }
+
+    /**
+     * Ids of the addresses with the given fingerprint, in ascending order.
+     */
+    public synchronized List<Long> find(String fingerprint) {
+        Set<Long> ids = idsByFingerprint.get(fingerprint);
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    /**
+     * Every set of more than one address sharing a fingerprint, each in
+     * ascending id order.
+     */
+    public synchronized List<List<Long>> findDuplicateGroups() {
+        List<List<Long>> groups = new ArrayList<>();
+        for (Set<Long> ids : idsByFingerprint.values()) {
+            if (ids.size() > 1)
+                groups.add(new ArrayList<>(ids));
+        }
+        return groups;
+    }
+
+}
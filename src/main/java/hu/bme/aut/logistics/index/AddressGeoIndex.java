@@ -0,0 +1,240 @@
+package hu.bme.aut.logistics.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Uniform latitude/longitude grid over the addresses that have coordinates.
+ * Nearest-neighbour queries scan rings of cells around the query point until no
+ * unvisited cell can contain a closer address, or scan all addresses instead
+ * once the rings would cover more cells than there are addresses (sparse data
+ * on a fine grid); radius queries scan the cells of the bounding box.
+ */
+@Component
+public class AddressGeoIndex {
+
+    public static class Match {
+
+        private final long id;
+        private final double distanceKm;
+
+        Match(long id, double distanceKm) {
+            this.id = id;
+            this.distanceKm = distanceKm;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    private static final Comparator<Match> BY_DISTANCE = Comparator.comparingDouble(Match::getDistanceKm);
+
+    private final double cellSize;
+    private final int latCells;
+    private final int lngCells;
+    private final Map<Long, Set<Long>> idsByCell = new ConcurrentHashMap<>();
+    private final Map<Long, double[]> coordinatesById = new ConcurrentHashMap<>();
+
+    public AddressGeoIndex(@Value("${logistics.geo-index.cell-size-degrees:0.1}") double cellSize) {
+        this.cellSize = cellSize;
+        this.latCells = (int) Math.ceil(180 / cellSize);
+        this.lngCells = (int) Math.ceil(360 / cellSize);
+    }
+
+    public int size() {
+        return coordinatesById.size();
+    }
+
+    public synchronized void put(Address address) {
+        remove(address.getId());
+        Double lat = address.getGeoLat();
+        Double lng = address.getGeoLng();
+        if (lat == null || lng == null || Math.abs(lat) > 90 || Math.abs(lng) > 180)
+            return;
+        coordinatesById.put(address.getId(), new double[] { lat, lng });
+        idsByCell.computeIfAbsent(cellKey(latCell(lat), lngCell(lng)), k -> ConcurrentHashMap.newKeySet())
+                .add(address.getId());
+    }
+
+    public synchronized void remove(Long id) {
+        double[] coordinates = coordinatesById.remove(id);
+        if (coordinates == null)
+            return;
+        idsByCell.computeIfPresent(cellKey(latCell(coordinates[0]), lngCell(coordinates[1])), (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    public synchronized void clear() {
+        idsByCell.clear();
+        coordinatesById.clear();
+    }
+
+    /**
+     * The {@code k} addresses closest to the point, nearest first.
+     */
+    public List<Match> findNearest(double lat, double lng, int k) {
+        PriorityQueue<Match> best = new PriorityQueue<>(BY_DISTANCE.reversed());
+        int centerLat = latCell(lat);
+        int centerLng = lngCell(lng);
+        int maxRing = Math.max(latCells, lngCells / 2);
+        int total = coordinatesById.size();
+        int visited = 0;
+        int cellsScanned = 0;
+
+        for (int ring = 0; ring <= maxRing && visited < total; ring++) {
+            if (best.size() == k && minDistanceOfRing(lat, ring) > best.peek().getDistanceKm())
+                break;
+            List<Long> cells = ringCells(centerLat, centerLng, ring);
+            cellsScanned += cells.size();
+            if (cellsScanned > total)
+                return findNearestByScan(lat, lng, k);
+            for (long cell : cells) {
+                Set<Long> ids = idsByCell.get(cell);
+                if (ids == null)
+                    continue;
+                for (Long id : ids) {
+                    Match match = match(id, lat, lng);
+                    if (match == null)
+                        continue;
+                    visited++;
+                    offer(best, match, k);
+                }
+            }
+        }
+        return sorted(best);
+    }
+
+    private List<Match> findNearestByScan(double lat, double lng, int k) {
+        PriorityQueue<Match> best = new PriorityQueue<>(BY_DISTANCE.reversed());
+        coordinatesById.forEach((id, coordinates) ->
+                offer(best, new Match(id, GeoDistance.haversineKm(lat, lng, coordinates[0], coordinates[1])), k));
+        return sorted(best);
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, int k) {
+        if (best.size() < k) {
+            best.add(match);
+        } else if (match.getDistanceKm() < best.peek().getDistanceKm()) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    private static List<Match> sorted(PriorityQueue<Match> best) {
+        List<Match> result = new ArrayList<>(best);
+        result.sort(BY_DISTANCE);
+        return result;
+    }
+
+    /**
+     * Addresses within {@code radiusKm} of the point, nearest first.
+     */
+    public List<Match> findWithin(double lat, double lng, double radiusKm) {
+        double latDelta = radiusKm / GeoDistance.KM_PER_DEGREE;
+        double maxAbsLat = Math.min(90, Math.abs(lat) + latDelta);
+        double cos = Math.cos(Math.toRadians(maxAbsLat));
+        double lngDelta = cos <= 0 ? 180 : Math.min(180, radiusKm / (GeoDistance.KM_PER_DEGREE * cos));
+
+        int fromLat = latCell(Math.max(-90, lat - latDelta));
+        int toLat = latCell(Math.min(90, lat + latDelta));
+        int lngSpan = (int) Math.ceil(lngDelta / cellSize);
+        int centerLng = lngCell(lng);
+        List<Match> result = new ArrayList<>();
+        for (int latCell = fromLat; latCell <= toLat; latCell++) {
+            for (int dLng = -Math.min(lngSpan, lngCells / 2); dLng <= Math.min(lngSpan, (lngCells - 1) / 2); dLng++) {
+                Set<Long> ids = idsByCell.get(cellKey(latCell, wrapLng(centerLng + dLng)));
+                if (ids == null)
+                    continue;
+                for (Long id : ids) {
+                    Match match = match(id, lat, lng);
+                    if (match != null && match.getDistanceKm() <= radiusKm)
+                        result.add(match);
+                }
+            }
+        }
+        result.sort(BY_DISTANCE);
+        return result;
+    }
+
+    private Match match(Long id, double lat, double lng) {
+        double[] coordinates = coordinatesById.get(id);
+        if (coordinates == null)
+            return null;
+        return new Match(id, GeoDistance.haversineKm(lat, lng, coordinates[0], coordinates[1]));
+    }
+
+    /**
+     * Lower bound of the distance from a point in the center cell to any point
+     * in a cell of the given ring or beyond. Such a point is at least
+     * {@code ring - 1} whole cells apart in latitude, which is at least that arc
+     * along a meridian, or in longitude, where the shortest path has to cross
+     * one of the meridians that far east or west of the query point: at least
+     * the cross-track distance to them, or the distance to the nearer pole if
+     * they are a quarter turn or more away.
+     */
+    private double minDistanceOfRing(double lat, int ring) {
+        if (ring <= 1)
+            return 0;
+        double degrees = (ring - 1) * cellSize;
+        double byLat = Math.toRadians(degrees);
+        double byLng;
+        if (ring - 1 >= lngCells / 2)
+            byLng = Double.POSITIVE_INFINITY; // every longitude has been scanned
+        else if (degrees >= 90)
+            byLng = Math.toRadians(90 - Math.abs(lat));
+        else
+            byLng = Math.asin(Math.cos(Math.toRadians(lat)) * Math.sin(Math.toRadians(degrees)));
+        return Math.min(byLat, byLng) * GeoDistance.EARTH_RADIUS_KM;
+    }
+
+    private List<Long> ringCells(int centerLat, int centerLng, int ring) {
+        List<Long> cells = new ArrayList<>();
+        int fromLng = -Math.min(ring, lngCells / 2);
+        int toLng = Math.min(ring, (lngCells - 1) / 2);
+        for (int dLat = -ring; dLat <= ring; dLat++) {
+            int latCell = centerLat + dLat;
+            if (latCell < 0 || latCell >= latCells)
+                continue;
+            boolean edgeRow = Math.abs(dLat) == ring;
+            for (int dLng = fromLng; dLng <= toLng; dLng++) {
+                if (edgeRow || Math.abs(dLng) == ring)
+                    cells.add(cellKey(latCell, wrapLng(centerLng + dLng)));
+            }
+        }
+        return cells;
+    }
+
+    private int latCell(double lat) {
+        return Math.min(latCells - 1, (int) Math.floor((lat + 90) / cellSize));
+    }
+
+    private int lngCell(double lng) {
+        return wrapLng((int) Math.floor((lng + 180) / cellSize));
+    }
+
+    private int wrapLng(int lngCell) {
+        return Math.floorMod(lngCell, lngCells);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xffffffffL);
+    }
+
+}
@@ -0,0 +1,111 @@
+package hu.bme.aut.logistics.index;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.repository.AddressRepository;
+
+/**
+ * Loads the in-memory address indexes at startup and keeps them in sync with
+ * committed address changes. Addresses changed while the load is running are
+ * skipped by the load, so an older row read by it never overwrites a newer
+ * change.
+ */
+@Component
+public class AddressIndexMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(AddressIndexMaintainer.class);
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    AddressPrefixIndex prefixIndex;
+
+    @Autowired
+    AddressGeoIndex geoIndex;
+
+    @Autowired
+    AddressFingerprintIndex fingerprintIndex;
+
+    private final Object loadLock = new Object();
+    private final Set<Long> changedDuringLoad = new HashSet<>();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long lastId = Long.MIN_VALUE;
+        List<Address> batch;
+        do {
+            batch = addressRepository.findTop1000ByIdGreaterThanOrderById(lastId);
+            synchronized (loadLock) {
+                for (Address address : batch) {
+                    if (address.getDeletedAt() == null && !changedDuringLoad.contains(address.getId()))
+                        index(address);
+                }
+            }
+            if (!batch.isEmpty())
+                lastId = batch.get(batch.size() - 1).getId();
+        } while (!batch.isEmpty());
+        synchronized (loadLock) {
+            ready = true;
+            changedDuringLoad.clear();
+        }
+        log.info("Address indexes loaded with {} addresses, {} with coordinates", prefixIndex.size(), geoIndex.size());
+    }
+
+    @EventListener
+    public void onEntitiesChanged(EntitiesChangedEvent event) {
+        List<EntityChange> changes = event.getChanges(Address.class);
+        if (changes.isEmpty())
+            return;
+        if (ready) {
+            apply(changes);
+            return;
+        }
+        synchronized (loadLock) {
+            if (!ready)
+                changes.forEach(change -> changedDuringLoad.add(((Address) change.getEntity()).getId()));
+            apply(changes);
+        }
+    }
+
+    private void apply(List<EntityChange> changes) {
+        for (EntityChange change : changes) {
+            Address address = (Address) change.getEntity();
+            if (change.getType() == ChangeType.DELETED || address.getDeletedAt() != null)
+                unindex(address.getId());
+            else
+                index(address);
+        }
+    }
+
+    private void index(Address address) {
+        prefixIndex.put(address);
+        geoIndex.put(address);
+        fingerprintIndex.put(address);
+    }
+
+    private void unindex(Long id) {
+        prefixIndex.remove(id);
+        geoIndex.remove(id);
+        fingerprintIndex.remove(id);
+    }
+
+}
@@ -0,0 +1,163 @@
+package hu.bme.aut.logistics.index;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Canonical form of addresses and the fingerprint identifying the same
+ * physical address across spelling variants. Normalization fixes whitespace,
+ * casing and the zip code format of the country; the fingerprint additionally
+ * ignores case, accents, punctuation and common street type abbreviations, and
+ * rounds coordinates to about 10 meters.
+ */
+public final class AddressNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern ZIP_SEPARATORS = Pattern.compile("[\\s-]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double COORDINATE_SCALE = 10_000;
+
+    private static final Map<String, String> STREET_ABBREVIATIONS = Map.ofEntries(
+            Map.entry("u", "utca"),
+            Map.entry("krt", "korut"),
+            Map.entry("sgt", "sugarut"),
+            Map.entry("str", "strasse"),
+            Map.entry("st", "street"),
+            Map.entry("ave", "avenue"),
+            Map.entry("rd", "road"),
+            Map.entry("blvd", "boulevard"),
+            Map.entry("sq", "square"));
+
+    private AddressNormalizer() {
+    }
+
+    /**
+     * Returns a normalized copy of the address; the id, coordinates and
+     * deletion mark are copied unchanged.
+     */
+    public static Address normalize(Address address) {
+        Address normalized = new Address(address.getGeoLat(), address.getGeoLng(),
+                upperCase(address.getCountry()),
+                titleCase(address.getCity()),
+                normalizeZipCode(address.getCountry(), address.getZipCode()),
+                sentenceCase(address.getStreet()),
+                normalizeNumber(address.getNumber()));
+        normalized.setId(address.getId());
+        normalized.setDeletedAt(address.getDeletedAt());
+        return normalized;
+    }
+
+    public static String fingerprint(Address address) {
+        String country = upperCase(address.getCountry());
+        String zipCode = normalizeZipCode(country, address.getZipCode());
+        return String.join("|",
+                nullToEmpty(country),
+                zipCode == null ? "" : ZIP_SEPARATORS.matcher(zipCode).replaceAll(""),
+                streetKey(address.getStreet()),
+                nullToEmpty(normalizeNumber(address.getNumber())),
+                roundCoordinate(address.getGeoLat()),
+                roundCoordinate(address.getGeoLng()));
+    }
+
+    static String normalizeZipCode(String country, String zipCode) {
+        String value = collapseWhitespace(zipCode);
+        if (value == null)
+            return null;
+        String compact = ZIP_SEPARATORS.matcher(value).replaceAll("").toUpperCase(Locale.ROOT);
+        switch (country == null ? "" : country.trim().toUpperCase(Locale.ROOT)) {
+        case "PL":
+            return compact.matches("\\d{5}") ? compact.substring(0, 2) + "-" + compact.substring(2) : value;
+        case "CZ":
+        case "SK":
+        case "SE":
+            return compact.matches("\\d{5}") ? compact.substring(0, 3) + " " + compact.substring(3) : value;
+        case "NL":
+            return compact.matches("\\d{4}[A-Z]{2}") ? compact.substring(0, 4) + " " + compact.substring(4) : value;
+        case "GB":
+            return compact.matches("[A-Z0-9]{5,7}")
+                    ? compact.substring(0, compact.length() - 3) + " " + compact.substring(compact.length() - 3)
+                    : value;
+        case "US":
+            if (compact.matches("\\d{9}"))
+                return compact.substring(0, 5) + "-" + compact.substring(5);
+            return compact.matches("\\d{5}") ? compact : value;
+        default:
+            return compact.matches("\\d+") ? compact : value.toUpperCase(Locale.ROOT);
+        }
+    }
+
+    static String streetKey(String street) {
+        if (street == null)
+            return "";
+        String value = Normalizer.normalize(street.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        value = MARKS.matcher(value).replaceAll("").replace("ß", "ss");
+        StringBuilder key = new StringBuilder(value.length());
+        for (String token : NON_ALPHANUMERIC.split(value)) {
+            if (token.isEmpty())
+                continue;
+            String expanded = STREET_ABBREVIATIONS.get(token);
+            if (expanded == null && token.length() > 3 && token.endsWith("str"))
+                expanded = token + "asse";
+            if (key.length() > 0)
+                key.append(' ');
+            key.append(expanded != null ? expanded : token);
+        }
+        return key.toString();
+    }
+
+    private static String normalizeNumber(String number) {
+        return number == null ? null : WHITESPACE.matcher(number).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+
+    private static String upperCase(String value) {
+        String collapsed = collapseWhitespace(value);
+        return collapsed == null ? null : collapsed.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Capitalizes every word of values written in a single case; mixed case
+     * values are assumed to be intentional and kept.
+     */
+    private static String titleCase(String value) {
+        String collapsed = collapseWhitespace(value);
+        if (collapsed == null || !isSingleCase(collapsed))
+            return collapsed;
+        StringBuilder result = new StringBuilder(collapsed.length());
+        boolean wordStart = true;
+        for (char c : collapsed.toLowerCase(Locale.ROOT).toCharArray()) {
+            result.append(wordStart ? Character.toUpperCase(c) : c);
+            wordStart = c == ' ' || c == '-';
+        }
+        return result.toString();
+    }
+
+    private static String sentenceCase(String value) {
+        String collapsed = collapseWhitespace(value);
+        if (collapsed == null || collapsed.isEmpty() || !isSingleCase(collapsed))
+            return collapsed;
+        String lower = collapsed.toLowerCase(Locale.ROOT);
+        return Character.toUpperCase(lower.charAt(0)) + lower.substring(1);
+    }
+
+    private static boolean isSingleCase(String value) {
+        return value.equals(value.toLowerCase(Locale.ROOT)) || value.equals(value.toUpperCase(Locale.ROOT));
+    }
+
+    private static String collapseWhitespace(String value) {
+        return value == null ? null : WHITESPACE.matcher(value.trim()).replaceAll(" ");
+    }
+
+    private static String roundCoordinate(Double coordinate) {
+        return coordinate == null ? "" : Long.toString(Math.round(coordinate * COORDINATE_SCALE));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+}
@@ -0,0 +1,134 @@
+package hu.bme.aut.logistics.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Sorted in-memory index over the lowercase values of the searchable address
+ * properties. A prefix lookup is a range scan on a skip list, so candidate ids
+ * can be resolved without touching the address table.
+ */
+@Component
+public class AddressPrefixIndex {
+
+    public enum Field {
+        COUNTRY("country", Address::getCountry),
+        CITY("city", Address::getCity),
+        STREET("street", Address::getStreet);
+
+        private final String attribute;
+        private final Function<Address, String> getter;
+
+        Field(String attribute, Function<Address, String> getter) {
+            this.attribute = attribute;
+            this.getter = getter;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public String valueOf(Address address) {
+            return getter.apply(address);
+        }
+    }
+
+    private final Map<Field, ConcurrentSkipListMap<String, Set<Long>>> idsByValue = new EnumMap<>(Field.class);
+    private final Map<Long, String[]> valuesById = new ConcurrentHashMap<>();
+
+    public AddressPrefixIndex() {
+        for (Field field : Field.values())
+            idsByValue.put(field, new ConcurrentSkipListMap<>());
+    }
+
+    public static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    public synchronized void put(Address address) {
+        Long id = address.getId();
+        remove(id);
+        String[] values = new String[Field.values().length];
+        for (Field field : Field.values()) {
+            String value = normalize(field.valueOf(address));
+            values[field.ordinal()] = value;
+            if (value != null)
+                idsByValue.get(field).computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        valuesById.put(id, values);
+    }
+
+    public synchronized void remove(Long id) {
+        String[] values = valuesById.remove(id);
+        if (values == null)
+            return;
+        for (Field field : Field.values()) {
+            String value = values[field.ordinal()];
+            if (value != null) {
+                idsByValue.get(field).computeIfPresent(value, (v, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        idsByValue.values().forEach(Map::clear);
+        valuesById.clear();
+    }
+
+    public int size() {
+        return valuesById.size();
+    }
+
+    /**
+     * Returns the ids of addresses matching every given (already normalized)
+     * prefix, or {@code null} if no field was selective enough to resolve within
+     * {@code maxScan} ids. Fields exceeding {@code maxScan} are left out of the
+     * intersection, so the result may still contain ids that only match a
+     * subset of the prefixes.
+     */
+    public Set<Long> findCandidateIds(Map<Field, String> prefixes, int maxScan) {
+        List<Set<Long>> matches = new ArrayList<>();
+        for (Map.Entry<Field, String> prefix : prefixes.entrySet()) {
+            Set<Long> ids = idsWithPrefix(prefix.getKey(), prefix.getValue(), maxScan);
+            if (ids != null)
+                matches.add(ids);
+        }
+        if (matches.isEmpty())
+            return null;
+
+        matches.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = matches.get(0);
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++)
+            result.retainAll(matches.get(i));
+        return result;
+    }
+
+    private Set<Long> idsWithPrefix(Field field, String prefix, int maxScan) {
+        Set<Long> result = new HashSet<>();
+        for (Map.Entry<String, Set<Long>> entry : idsByValue.get(field).tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix))
+                break;
+            result.addAll(entry.getValue());
+            if (result.size() > maxScan)
+                return null;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,34 @@
+package hu.bme.aut.logistics.index;
+
+public final class GeoDistance {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_KM;
+
+    private GeoDistance() {
+    }
+
+    /**
+     * Great-circle distance in kilometres using the haversine formula.
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinLat = Math.sin((phi2 - phi1) / 2);
+        double sinLng = Math.sin(Math.toRadians(lng2 - lng1) / 2);
+        double a = sinLat * sinLat + Math.cos(phi1) * Math.cos(phi2) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Haversine distances of the first {@code count} coordinate pairs given as
+     * parallel arrays, written to {@code distancesKm}. A plain loop over
+     * primitive arrays, which the JIT can inline and keep free of allocation.
+     */
+    public static void haversineKm(double[] lat1, double[] lng1, double[] lat2, double[] lng2,
+            double[] distancesKm, int count) {
+        for (int i = 0; i < count; i++)
+            distancesKm[i] = haversineKm(lat1[i], lng1[i], lat2[i], lng2[i]);
+    }
+
+}
@@ -0,0 +1,180 @@
+package hu.bme.aut.logistics.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AVL tree of closed intervals ordered by start and id, with every node
+ * augmented by the maximum end in its subtree. Overlap and stabbing queries
+ * run in O(log n + k). Not thread-safe.
+ */
+public class IntervalTree<T> {
+
+    private static class Node<T> {
+        final long start;
+        final long end;
+        final long id;
+        final T value;
+        Node<T> left;
+        Node<T> right;
+        int height = 1;
+        long maxEnd;
+
+        Node(long start, long end, long id, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<T> root;
+    private final Map<Long, Long> startsById = new HashMap<>();
+
+    public int size() {
+        return startsById.size();
+    }
+
+    public void clear() {
+        root = null;
+        startsById.clear();
+    }
+
+    /**
+     * Adds the interval, replacing the one previously stored with the same id.
+     */
+    public void put(long id, long start, long end, T value) {
+        if (end < start)
+            throw new IllegalArgumentException("interval ends before it starts");
+        remove(id);
+        root = insert(root, new Node<>(start, end, id, value));
+        startsById.put(id, start);
+    }
+
+    public void remove(long id) {
+        Long start = startsById.remove(id);
+        if (start != null)
+            root = delete(root, start, id);
+    }
+
+    /**
+     * Values of the intervals overlapping {@code [from, to]}.
+     */
+    public List<T> findOverlapping(long from, long to) {
+        List<T> result = new ArrayList<>();
+        collectOverlapping(root, from, to, result);
+        return result;
+    }
+
+    public List<T> findContaining(long point) {
+        return findOverlapping(point, point);
+    }
+
+    private void collectOverlapping(Node<T> node, long from, long to, List<T> result) {
+        if (node == null || node.maxEnd < from)
+            return;
+        collectOverlapping(node.left, from, to, result);
+        if (node.start > to)
+            return;
+        if (node.end >= from)
+            result.add(node.value);
+        collectOverlapping(node.right, from, to, result);
+    }
+
+    private static int compare(long start, long id, Node<?> node) {
+        int result = Long.compare(start, node.start);
+        return result != 0 ? result : Long.compare(id, node.id);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> inserted) {
+        if (node == null)
+            return inserted;
+        if (compare(inserted.start, inserted.id, node) < 0)
+            node.left = insert(node.left, inserted);
+        else
+            node.right = insert(node.right, inserted);
+        return balance(node);
+    }
+
+    private Node<T> delete(Node<T> node, long start, long id) {
+        if (node == null)
+            return null;
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null)
+                return node.right;
+            if (node.right == null)
+                return node.left;
+            Node<T> successor = node.right;
+            while (successor.left != null)
+                successor = successor.left;
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node<T> deleteMin(Node<T> node) {
+        if (node.left == null)
+            return node.right;
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node<T> balance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right))
+                node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left))
+                node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null)
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        if (node.right != null)
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        node.maxEnd = maxEnd;
+    }
+
+}
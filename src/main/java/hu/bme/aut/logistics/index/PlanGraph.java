@@ -0,0 +1,250 @@
+package hu.bme.aut.logistics.index;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.event.TransportPlansChangingEvent;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.SectionRepository;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+
+/**
+ * Holds the current {@link PlanGraphSnapshot} for whole-network analytics.
+ * Loaded at startup; plans changed since are collected and, on a schedule, a
+ * new snapshot is built by copying the unchanged plans from the previous one
+ * and reloading only the changed ones. Readers use the snapshot they got
+ * without locking.
+ * <p>
+ * A plan stays marked as changed from its committing transaction until a
+ * snapshot holding the committed state has replaced the previous one. Readers
+ * needing current data, like {@code RouteMetricsService}, check
+ * {@link #isCurrent(long)} before taking the snapshot and load marked plans
+ * from the database instead.
+ */
+@Component
+public class PlanGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanGraph.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    TransportPlanRepository transportPlanRepository;
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    private final TransactionTemplate readTransaction;
+    // Marked plans by the number of their marks, so a refresh only unmarks plans not marked again meanwhile
+    private final Map<Long, Long> changedPlanIds = new HashMap<>();
+    private volatile PlanGraphSnapshot snapshot = PlanGraphSnapshot.EMPTY;
+    private volatile boolean ready;
+
+    public PlanGraph(PlatformTransactionManager transactionManager) {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public PlanGraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Whether every snapshot taken after this call holds the plan as last
+     * committed. False for plans changed since the last refresh and for plans
+     * the snapshot does not know.
+     */
+    public boolean isCurrent(long planId) {
+        if (!ready)
+            return false;
+        synchronized (changedPlanIds) {
+            if (changedPlanIds.containsKey(planId))
+                return false;
+        }
+        return snapshot.indexOfPlan(planId) >= 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        PlanGraphSnapshot.Builder builder = new PlanGraphSnapshot.Builder();
+        long lastId = 0;
+        List<Long> planIds;
+        do {
+            long after = lastId;
+            planIds = readTransaction.execute(status -> {
+                List<Long> ids = transportPlanRepository.findIdsAfter(after, PageRequest.of(0, LOAD_BATCH_SIZE));
+                addPlans(builder, ids, sectionRepository.findGraphRows(ids));
+                return ids;
+            });
+            if (!planIds.isEmpty())
+                lastId = planIds.get(planIds.size() - 1);
+        } while (planIds.size() == LOAD_BATCH_SIZE);
+        snapshot = builder.build();
+        ready = true;
+        log.info("Loaded {} transport plans with {} sections into the plan graph",
+                snapshot.getPlanCount(), snapshot.getSectionCount());
+    }
+
+    /**
+     * Marks the plans while their transaction commits, so readers stop using
+     * the snapshot for them, and again after the commit, as a refresh running
+     * in between read the state before the commit.
+     */
+    @EventListener
+    public void onTransportPlansChanging(TransportPlansChangingEvent event) {
+        Set<Long> planIds = event.getPlanIds();
+        markChanged(planIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    markChanged(planIds);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onEntitiesChanged(EntitiesChangedEvent event) {
+        PlanGraphSnapshot current = snapshot;
+        Set<Long> planIds = new HashSet<>();
+        for (EntityChange change : event.getChanges(Address.class)) {
+            if (change.getType() == ChangeType.UPDATED)
+                current.forEachMilestoneAt(((Address) change.getEntity()).getId(),
+                        (planId, milestoneId, plannedTime) -> planIds.add(planId));
+        }
+        markChanged(planIds);
+    }
+
+    @Scheduled(fixedDelayString = "${logistics.plan-graph.refresh-interval:1000}")
+    public synchronized void refresh() {
+        if (!ready)
+            return;
+        Map<Long, Long> marks;
+        synchronized (changedPlanIds) {
+            if (changedPlanIds.isEmpty())
+                return;
+            marks = new HashMap<>(changedPlanIds);
+        }
+        try {
+            snapshot = rebuild(snapshot, new ArrayList<>(marks.keySet()));
+        } catch (RuntimeException e) {
+            log.error("Failed to refresh {} plans of the plan graph", marks.size(), e);
+            return;
+        }
+        synchronized (changedPlanIds) {
+            marks.forEach(changedPlanIds::remove);
+        }
+    }
+
+    /**
+     * Plan ids overlapping {@code [from, to]} in the current snapshot.
+     */
+    public long[] findPlanIdsActiveBetween(LocalDateTime from, LocalDateTime to) {
+        return snapshot.findPlanIdsActiveBetween(PlanGraphSnapshot.toEpochSecond(from),
+                PlanGraphSnapshot.toEpochSecond(to));
+    }
+
+    private void markChanged(Collection<Long> planIds) {
+        synchronized (changedPlanIds) {
+            for (Long planId : planIds)
+                changedPlanIds.merge(planId, 1L, Long::sum);
+        }
+    }
+
+    private PlanGraphSnapshot rebuild(PlanGraphSnapshot previous, List<Long> changedIds) {
+        // Reloaded plans by id, each with its section rows; deleted plans are missing
+        TreeMap<Long, List<Object[]>> reloaded = new TreeMap<>();
+        for (List<Long> chunk : IdChunks.of(changedIds)) {
+            readTransaction.executeWithoutResult(status -> {
+                for (Long id : transportPlanRepository.findExistingIds(chunk))
+                    reloaded.put(id, new ArrayList<>());
+                for (Object[] row : sectionRepository.findGraphRows(chunk))
+                    reloaded.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(row);
+            });
+        }
+        Set<Long> changed = new HashSet<>(changedIds);
+
+        PlanGraphSnapshot.Builder builder = new PlanGraphSnapshot.Builder();
+        int plan = 0;
+        for (Map.Entry<Long, List<Object[]>> entry : reloaded.entrySet()) {
+            long planId = entry.getKey();
+            for (; plan < previous.getPlanCount() && previous.planId(plan) < planId; plan++) {
+                if (!changed.contains(previous.planId(plan)))
+                    builder.copyPlan(previous, plan);
+            }
+            if (plan < previous.getPlanCount() && previous.planId(plan) == planId)
+                plan++;
+            addPlan(builder, planId, entry.getValue());
+        }
+        for (; plan < previous.getPlanCount(); plan++) {
+            if (!changed.contains(previous.planId(plan)))
+                builder.copyPlan(previous, plan);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adds the plans with the given ascending ids, given the section rows of
+     * all of them ordered by plan.
+     */
+    private static void addPlans(PlanGraphSnapshot.Builder builder, List<Long> planIds, List<Object[]> rows) {
+        int row = 0;
+        for (Long planId : planIds) {
+            int first = row;
+            while (row < rows.size() && planId.equals(rows.get(row)[0]))
+                row++;
+            addPlan(builder, planId, rows.subList(first, row));
+        }
+    }
+
+    private static void addPlan(PlanGraphSnapshot.Builder builder, long planId, List<Object[]> rows) {
+        builder.addPlan(planId);
+        for (Object[] row : rows) {
+            builder.addSection((Long) row[1], (Integer) row[2])
+                    .from(id(row[3]), PlanGraphSnapshot.toEpochSecond((LocalDateTime) row[4]), id(row[5]),
+                            coordinate(row[6]), coordinate(row[7]))
+                    .to(id(row[8]), PlanGraphSnapshot.toEpochSecond((LocalDateTime) row[9]), id(row[10]),
+                            coordinate(row[11]), coordinate(row[12]));
+        }
+    }
+
+    private static long id(Object value) {
+        return value == null ? PlanGraphSnapshot.NO_ID : (Long) value;
+    }
+
+    private static double coordinate(Object value) {
+        return value == null ? Double.NaN : (Double) value;
+    }
+
+}
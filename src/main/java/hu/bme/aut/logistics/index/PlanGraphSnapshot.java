@@ -0,0 +1,370 @@
+package hu.bme.aut.logistics.index;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of all transport plans in primitive arrays. Plans are
+ * ordered by id, and the sections of plan {@code p} are the indexes from
+ * {@link #sectionStart(int) sectionStart(p)} to
+ * {@link #sectionEnd(int) sectionEnd(p)}, ordered by number. Each section has a
+ * from and a to end holding its milestone: id, planned time in epoch seconds
+ * (UTC), address id and coordinates. Missing values are {@link #NO_ID},
+ * {@link #NO_TIME} and {@code NaN}.
+ */
+public final class PlanGraphSnapshot {
+
+    public static final long NO_ID = -1;
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    public static final PlanGraphSnapshot EMPTY = new Builder().build();
+
+    private final long[] planIds;
+    private final int[] sectionStarts;
+    private final long[] planStarts;
+    private final long[] planEnds;
+
+    private final long[] sectionIds;
+    private final int[] sectionNumbers;
+    private final int[] sectionPlans;
+
+    // Indexed by 2 * section for the from end and 2 * section + 1 for the to end
+    private final long[] milestoneIds;
+    private final long[] plannedTimes;
+    private final long[] addressIds;
+    private final double[] lats;
+    private final double[] lngs;
+
+    // Milestone ends sorted by address id, a milestone shared by consecutive sections only once
+    private final long[] indexedAddressIds;
+    private final int[] indexedEnds;
+
+    private PlanGraphSnapshot(Builder builder) {
+        int planCount = builder.planCount;
+        int sectionCount = builder.sectionCount;
+        planIds = Arrays.copyOf(builder.planIds, planCount);
+        sectionStarts = Arrays.copyOf(builder.sectionStarts, planCount + 1);
+        sectionStarts[planCount] = sectionCount;
+        sectionIds = Arrays.copyOf(builder.sectionIds, sectionCount);
+        sectionNumbers = Arrays.copyOf(builder.sectionNumbers, sectionCount);
+        milestoneIds = Arrays.copyOf(builder.milestoneIds, 2 * sectionCount);
+        plannedTimes = Arrays.copyOf(builder.plannedTimes, 2 * sectionCount);
+        addressIds = Arrays.copyOf(builder.addressIds, 2 * sectionCount);
+        lats = Arrays.copyOf(builder.lats, 2 * sectionCount);
+        lngs = Arrays.copyOf(builder.lngs, 2 * sectionCount);
+
+        sectionPlans = new int[sectionCount];
+        planStarts = new long[planCount];
+        planEnds = new long[planCount];
+        for (int plan = 0; plan < planCount; plan++) {
+            long earliest = Long.MAX_VALUE;
+            long latest = Long.MIN_VALUE;
+            for (int section = sectionStarts[plan]; section < sectionStarts[plan + 1]; section++) {
+                sectionPlans[section] = plan;
+                for (int end = fromEnd(section); end <= toEnd(section); end++) {
+                    long time = plannedTimes[end];
+                    if (time != NO_TIME) {
+                        earliest = Math.min(earliest, time);
+                        latest = Math.max(latest, time);
+                    }
+                }
+            }
+            planStarts[plan] = earliest == Long.MAX_VALUE ? NO_TIME : earliest;
+            planEnds[plan] = latest == Long.MIN_VALUE ? NO_TIME : latest;
+        }
+
+        int indexed = 0;
+        int[] ends = new int[2 * sectionCount];
+        for (int end = 0; end < 2 * sectionCount; end++) {
+            if (addressIds[end] == NO_ID)
+                continue;
+            boolean sharedWithPrevious = end % 2 == 0 && end > 0 && sectionPlans[end / 2 - 1] == sectionPlans[end / 2]
+                    && milestoneIds[end] != NO_ID && milestoneIds[end] == milestoneIds[end - 1];
+            if (!sharedWithPrevious)
+                ends[indexed++] = end;
+        }
+        indexedEnds = Arrays.copyOf(ends, indexed);
+        indexedAddressIds = new long[indexed];
+        for (int i = 0; i < indexed; i++)
+            indexedAddressIds[i] = addressIds[indexedEnds[i]];
+        sort(indexedAddressIds, indexedEnds, 0, indexed - 1);
+    }
+
+    public static long toEpochSecond(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public int getPlanCount() {
+        return planIds.length;
+    }
+
+    public int getSectionCount() {
+        return sectionIds.length;
+    }
+
+    /**
+     * Index of the plan with the given id, or a negative number if there is
+     * none.
+     */
+    public int indexOfPlan(long planId) {
+        return Arrays.binarySearch(planIds, planId);
+    }
+
+    public long planId(int plan) {
+        return planIds[plan];
+    }
+
+    public int sectionStart(int plan) {
+        return sectionStarts[plan];
+    }
+
+    public int sectionEnd(int plan) {
+        return sectionStarts[plan + 1];
+    }
+
+    public long planStart(int plan) {
+        return planStarts[plan];
+    }
+
+    public long planEnd(int plan) {
+        return planEnds[plan];
+    }
+
+    public long sectionId(int section) {
+        return sectionIds[section];
+    }
+
+    public int sectionNumber(int section) {
+        return sectionNumbers[section];
+    }
+
+    public int planOfSection(int section) {
+        return sectionPlans[section];
+    }
+
+    public static int fromEnd(int section) {
+        return 2 * section;
+    }
+
+    public static int toEnd(int section) {
+        return 2 * section + 1;
+    }
+
+    public long milestoneId(int end) {
+        return milestoneIds[end];
+    }
+
+    public long plannedTime(int end) {
+        return plannedTimes[end];
+    }
+
+    public long addressId(int end) {
+        return addressIds[end];
+    }
+
+    public double lat(int end) {
+        return lats[end];
+    }
+
+    public double lng(int end) {
+        return lngs[end];
+    }
+
+    /**
+     * Ids of the plans whose planned time span overlaps {@code [from, to]},
+     * given in epoch seconds, in ascending order.
+     */
+    public long[] findPlanIdsActiveBetween(long from, long to) {
+        long[] found = new long[planIds.length];
+        int count = 0;
+        for (int plan = 0; plan < planIds.length; plan++) {
+            if (planStarts[plan] != NO_TIME && planStarts[plan] <= to && planEnds[plan] >= from)
+                found[count++] = planIds[plan];
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Passes every milestone at the given address to the visitor, ordered by
+     * plan id and section number.
+     */
+    public void forEachMilestoneAt(long addressId, MilestoneVisitor visitor) {
+        int i = lowerBound(indexedAddressIds, addressId);
+        for (; i < indexedAddressIds.length && indexedAddressIds[i] == addressId; i++) {
+            int end = indexedEnds[i];
+            visitor.visit(planIds[sectionPlans[end / 2]], milestoneIds[end], plannedTimes[end]);
+        }
+    }
+
+    /**
+     * Sum of the great-circle lengths of the plan's sections, {@code NaN} if a
+     * coordinate is missing.
+     */
+    public double planLengthKm(int plan) {
+        double length = 0;
+        for (int section = sectionStarts[plan]; section < sectionStarts[plan + 1]; section++) {
+            int from = fromEnd(section);
+            int to = toEnd(section);
+            length += GeoDistance.haversineKm(lats[from], lngs[from], lats[to], lngs[to]);
+        }
+        return length;
+    }
+
+    public interface MilestoneVisitor {
+        void visit(long planId, long milestoneId, long plannedTime);
+    }
+
+    private static int lowerBound(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Sorts the keys and the values along with them; equal keys keep their
+     * values in ascending order, since the values are unique.
+     */
+    private static void sort(long[] keys, int[] values, int low, int high) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long pivotKey = keys[mid];
+            int pivotValue = values[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivotKey || (keys[i] == pivotKey && values[i] < pivotValue))
+                    i++;
+                while (keys[j] > pivotKey || (keys[j] == pivotKey && values[j] > pivotValue))
+                    j--;
+                if (i <= j) {
+                    long key = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = key;
+                    int value = values[i];
+                    values[i] = values[j];
+                    values[j] = value;
+                    i++;
+                    j--;
+                }
+            }
+            if (j - low < high - i) {
+                sort(keys, values, low, j);
+                low = i;
+            } else {
+                sort(keys, values, i, high);
+                high = j;
+            }
+        }
+    }
+
+    /**
+     * Collects plans in ascending id order, each followed by its sections in
+     * number order.
+     */
+    public static class Builder {
+
+        private int planCount;
+        private int sectionCount;
+        private long[] planIds = new long[16];
+        private int[] sectionStarts = new int[17];
+        private long[] sectionIds = new long[16];
+        private int[] sectionNumbers = new int[16];
+        private long[] milestoneIds = new long[32];
+        private long[] plannedTimes = new long[32];
+        private long[] addressIds = new long[32];
+        private double[] lats = new double[32];
+        private double[] lngs = new double[32];
+
+        public Builder addPlan(long planId) {
+            if (planCount > 0 && planIds[planCount - 1] >= planId)
+                throw new IllegalArgumentException("plans must be added in ascending id order");
+            if (planCount == planIds.length) {
+                planIds = Arrays.copyOf(planIds, 2 * planCount);
+                sectionStarts = Arrays.copyOf(sectionStarts, 2 * planCount + 1);
+            }
+            planIds[planCount] = planId;
+            sectionStarts[planCount] = sectionCount;
+            planCount++;
+            return this;
+        }
+
+        /**
+         * Adds a section to the last added plan, with no milestones until set
+         * by {@link #from} and {@link #to}.
+         */
+        public Builder addSection(long sectionId, int number) {
+            if (planCount == 0)
+                throw new IllegalStateException("no plan added");
+            ensureSectionCapacity(sectionCount + 1);
+            sectionIds[sectionCount] = sectionId;
+            sectionNumbers[sectionCount] = number;
+            setEnd(fromEnd(sectionCount), NO_ID, NO_TIME, NO_ID, Double.NaN, Double.NaN);
+            setEnd(toEnd(sectionCount), NO_ID, NO_TIME, NO_ID, Double.NaN, Double.NaN);
+            sectionCount++;
+            return this;
+        }
+
+        public Builder from(long milestoneId, long plannedTime, long addressId, double lat, double lng) {
+            setEnd(fromEnd(sectionCount - 1), milestoneId, plannedTime, addressId, lat, lng);
+            return this;
+        }
+
+        public Builder to(long milestoneId, long plannedTime, long addressId, double lat, double lng) {
+            setEnd(toEnd(sectionCount - 1), milestoneId, plannedTime, addressId, lat, lng);
+            return this;
+        }
+
+        /**
+         * Adds a plan of another snapshot with all of its sections.
+         */
+        public Builder copyPlan(PlanGraphSnapshot source, int plan) {
+            addPlan(source.planIds[plan]);
+            int start = source.sectionStart(plan);
+            int count = source.sectionEnd(plan) - start;
+            ensureSectionCapacity(sectionCount + count);
+            System.arraycopy(source.sectionIds, start, sectionIds, sectionCount, count);
+            System.arraycopy(source.sectionNumbers, start, sectionNumbers, sectionCount, count);
+            System.arraycopy(source.milestoneIds, 2 * start, milestoneIds, 2 * sectionCount, 2 * count);
+            System.arraycopy(source.plannedTimes, 2 * start, plannedTimes, 2 * sectionCount, 2 * count);
+            System.arraycopy(source.addressIds, 2 * start, addressIds, 2 * sectionCount, 2 * count);
+            System.arraycopy(source.lats, 2 * start, lats, 2 * sectionCount, 2 * count);
+            System.arraycopy(source.lngs, 2 * start, lngs, 2 * sectionCount, 2 * count);
+            sectionCount += count;
+            return this;
+        }
+
+        public PlanGraphSnapshot build() {
+            return new PlanGraphSnapshot(this);
+        }
+
+        private void setEnd(int end, long milestoneId, long plannedTime, long addressId, double lat, double lng) {
+            milestoneIds[end] = milestoneId;
+            plannedTimes[end] = plannedTime;
+            addressIds[end] = addressId;
+            lats[end] = lat;
+            lngs[end] = lng;
+        }
+
+        private void ensureSectionCapacity(int capacity) {
+            if (capacity <= sectionIds.length)
+                return;
+            int length = Math.max(capacity, 2 * sectionIds.length);
+            sectionIds = Arrays.copyOf(sectionIds, length);
+            sectionNumbers = Arrays.copyOf(sectionNumbers, length);
+            milestoneIds = Arrays.copyOf(milestoneIds, 2 * length);
+            plannedTimes = Arrays.copyOf(plannedTimes, 2 * length);
+            addressIds = Arrays.copyOf(addressIds, 2 * length);
+            lats = Arrays.copyOf(lats, 2 * length);
+            lngs = Arrays.copyOf(lngs, 2 * length);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package hu.bme.aut.logistics.index;
+
+import java.time.LocalDateTime;
+
+public class PlanSpan {
+
+    private final Long transportPlanId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    public PlanSpan(Long transportPlanId, LocalDateTime start, LocalDateTime end) {
+        this.transportPlanId = transportPlanId;
+        this.start = start;
+        this.end = end;
+    }
+
+    public Long getTransportPlanId() {
+        return transportPlanId;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+}
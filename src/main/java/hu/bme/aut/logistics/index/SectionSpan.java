@@ -0,0 +1,54 @@
+package hu.bme.aut.logistics.index;
+
+import java.time.LocalDateTime;
+
+public class SectionSpan {
+
+    private final Long sectionId;
+    private final Long transportPlanId;
+    private final Long fromMilestoneId;
+    private final Long toMilestoneId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    public SectionSpan(Long sectionId, Long transportPlanId, Long fromMilestoneId, Long toMilestoneId,
+            LocalDateTime start, LocalDateTime end) {
+        this.sectionId = sectionId;
+        this.transportPlanId = transportPlanId;
+        this.fromMilestoneId = fromMilestoneId;
+        this.toMilestoneId = toMilestoneId;
+        this.start = start;
+        this.end = end;
+    }
+
+    public Long getSectionId() {
+        return sectionId;
+    }
+
+    public Long getTransportPlanId() {
+        return transportPlanId;
+    }
+
+    public Long getFromMilestoneId() {
+        return fromMilestoneId;
+    }
+
+    public Long getToMilestoneId() {
+        return toMilestoneId;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    SectionSpan withMilestoneTime(Long milestoneId, LocalDateTime plannedTime) {
+        return new SectionSpan(sectionId, transportPlanId, fromMilestoneId, toMilestoneId,
+                milestoneId.equals(fromMilestoneId) ? plannedTime : start,
+                milestoneId.equals(toMilestoneId) ? plannedTime : end);
+    }
+
+}
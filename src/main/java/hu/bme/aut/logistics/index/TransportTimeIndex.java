@@ -0,0 +1,235 @@
+package hu.bme.aut.logistics.index;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.repository.SectionRepository;
+
+/**
+ * In-memory interval index over the planned time span of every section (from
+ * its start milestone to its end milestone) and of every transport plan (over
+ * all of its sections). Loaded at startup and kept in sync with committed
+ * section and milestone changes. Sections and milestone times changed while
+ * the load is running take precedence over the rows the load reads, as those
+ * may be older.
+ */
+@Component
+public class TransportTimeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TransportTimeIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntervalTree<SectionSpan> sectionTree = new IntervalTree<>();
+    private final IntervalTree<PlanSpan> planTree = new IntervalTree<>();
+    private final Map<Long, SectionSpan> sectionsById = new HashMap<>();
+    private final Map<Long, Set<Long>> sectionIdsByMilestoneId = new HashMap<>();
+    private final Map<Long, Set<Long>> sectionIdsByPlanId = new HashMap<>();
+    // Changes applied before the load finished, guarded by the lock
+    private final Set<Long> sectionsChangedDuringLoad = new HashSet<>();
+    private final Map<Long, LocalDateTime> milestoneTimesChangedDuringLoad = new HashMap<>();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<SectionSpan> findSectionsActiveAt(LocalDateTime time) {
+        lock.readLock().lock();
+        try {
+            return sectionTree.findContaining(toKey(time));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PlanSpan> findPlansActiveBetween(LocalDateTime from, LocalDateTime to) {
+        lock.readLock().lock();
+        try {
+            return planTree.findOverlapping(toKey(from), toKey(to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long lastId = Long.MIN_VALUE;
+        List<Object[]> rows;
+        do {
+            rows = sectionRepository.findSpanRowsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : rows) {
+                    if (sectionsChangedDuringLoad.contains((Long) row[0]))
+                        continue;
+                    putSection(new SectionSpan((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[4],
+                            loadedTime((Long) row[2], (LocalDateTime) row[3]),
+                            loadedTime((Long) row[4], (LocalDateTime) row[5])));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!rows.isEmpty())
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+        } while (!rows.isEmpty());
+        lock.writeLock().lock();
+        try {
+            ready = true;
+            sectionsChangedDuringLoad.clear();
+            milestoneTimesChangedDuringLoad.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Transport time index loaded with {} sections", sectionsById.size());
+    }
+
+    @EventListener
+    public void onEntitiesChanged(EntitiesChangedEvent event) {
+        if (!event.contains(Section.class) && !event.contains(Milestone.class))
+            return;
+        lock.writeLock().lock();
+        try {
+            for (EntityChange change : event.getChanges()) {
+                if (change.isFor(Section.class)) {
+                    Section section = (Section) change.getEntity();
+                    if (!ready)
+                        sectionsChangedDuringLoad.add(section.getId());
+                    onSectionChanged(change.getType(), section);
+                } else if (change.isFor(Milestone.class) && change.getType() == ChangeType.UPDATED) {
+                    Milestone milestone = (Milestone) change.getEntity();
+                    if (!ready)
+                        milestoneTimesChangedDuringLoad.put(milestone.getId(), milestone.getPlannedTime());
+                    onMilestoneChanged(milestone);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private LocalDateTime loadedTime(Long milestoneId, LocalDateTime plannedTime) {
+        if (milestoneId != null && milestoneTimesChangedDuringLoad.containsKey(milestoneId))
+            return milestoneTimesChangedDuringLoad.get(milestoneId);
+        return plannedTime;
+    }
+
+    private void onSectionChanged(ChangeType type, Section section) {
+        if (type == ChangeType.DELETED) {
+            removeSection(section.getId());
+            return;
+        }
+        Milestone from = section.getFromMilestone();
+        Milestone to = section.getToMilestone();
+        putSection(new SectionSpan(section.getId(),
+                section.getTransportPlan() == null ? null : section.getTransportPlan().getId(),
+                from == null ? null : from.getId(),
+                to == null ? null : to.getId(),
+                from == null ? null : from.getPlannedTime(),
+                to == null ? null : to.getPlannedTime()));
+    }
+
+    private void onMilestoneChanged(Milestone milestone) {
+        Set<Long> sectionIds = sectionIdsByMilestoneId.get(milestone.getId());
+        if (sectionIds == null)
+            return;
+        for (Long sectionId : Set.copyOf(sectionIds))
+            putSection(sectionsById.get(sectionId).withMilestoneTime(milestone.getId(), milestone.getPlannedTime()));
+    }
+
+    private void putSection(SectionSpan span) {
+        SectionSpan old = sectionsById.put(span.getSectionId(), span);
+        if (old != null)
+            unlink(old);
+        link(span.getFromMilestoneId(), span.getSectionId(), sectionIdsByMilestoneId);
+        link(span.getToMilestoneId(), span.getSectionId(), sectionIdsByMilestoneId);
+        link(span.getTransportPlanId(), span.getSectionId(), sectionIdsByPlanId);
+
+        if (span.getStart() != null && span.getEnd() != null && !span.getEnd().isBefore(span.getStart()))
+            sectionTree.put(span.getSectionId(), toKey(span.getStart()), toKey(span.getEnd()), span);
+        else
+            sectionTree.remove(span.getSectionId());
+
+        if (old != null && old.getTransportPlanId() != null && !old.getTransportPlanId().equals(span.getTransportPlanId()))
+            updatePlan(old.getTransportPlanId());
+        updatePlan(span.getTransportPlanId());
+    }
+
+    private void removeSection(Long sectionId) {
+        SectionSpan old = sectionsById.remove(sectionId);
+        if (old == null)
+            return;
+        unlink(old);
+        sectionTree.remove(sectionId);
+        updatePlan(old.getTransportPlanId());
+    }
+
+    private void updatePlan(Long planId) {
+        if (planId == null)
+            return;
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        for (Long sectionId : sectionIdsByPlanId.getOrDefault(planId, Set.of())) {
+            SectionSpan span = sectionsById.get(sectionId);
+            if (span.getStart() != null && (start == null || span.getStart().isBefore(start)))
+                start = span.getStart();
+            if (span.getEnd() != null && (end == null || span.getEnd().isAfter(end)))
+                end = span.getEnd();
+        }
+        if (start != null && end != null && !end.isBefore(start))
+            planTree.put(planId, toKey(start), toKey(end), new PlanSpan(planId, start, end));
+        else
+            planTree.remove(planId);
+    }
+
+    private void unlink(SectionSpan span) {
+        unlink(span.getFromMilestoneId(), span.getSectionId(), sectionIdsByMilestoneId);
+        unlink(span.getToMilestoneId(), span.getSectionId(), sectionIdsByMilestoneId);
+        unlink(span.getTransportPlanId(), span.getSectionId(), sectionIdsByPlanId);
+    }
+
+    private static void link(Long key, Long sectionId, Map<Long, Set<Long>> map) {
+        if (key != null)
+            map.computeIfAbsent(key, k -> new HashSet<>()).add(sectionId);
+    }
+
+    private static void unlink(Long key, Long sectionId, Map<Long, Set<Long>> map) {
+        if (key == null)
+            return;
+        Set<Long> sectionIds = map.get(key);
+        if (sectionIds != null) {
+            sectionIds.remove(sectionId);
+            if (sectionIds.isEmpty())
+                map.remove(key);
+        }
+    }
+
+    private static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+}
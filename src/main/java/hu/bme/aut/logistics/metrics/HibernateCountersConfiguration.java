@@ -0,0 +1,50 @@
+package hu.bme.aut.logistics.metrics;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Counts the SQL statements prepared and the entities loaded by Hibernate in
+ * {@link RequestCounters}.
+ */
+@Configuration
+public class HibernateCountersConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer requestCountersCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountingInspector());
+            properties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCountingInterceptor());
+        };
+    }
+
+    static class QueryCountingInspector implements StatementInspector {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String inspect(String sql) {
+            RequestCounters.incrementQueries();
+            return sql;
+        }
+    }
+
+    static class EntityLoadCountingInterceptor extends EmptyInterceptor {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+            RequestCounters.incrementEntitiesLoaded();
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package hu.bme.aut.logistics.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in microseconds over fixed bucket bounds
+ * from 1 ms to 10 s, exported as a Prometheus histogram so quantiles can be
+ * aggregated across instances and computed over any time window. Recording
+ * does not allocate.
+ */
+public class LatencyHistogram {
+
+    static final long[] BOUNDS_MICROS = { 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000,
+            500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000 };
+
+    // The last bucket counts the values above every bound
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        sumMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long[] getBoundsMicros() {
+        return BOUNDS_MICROS.clone();
+    }
+
+    /**
+     * The number of values at or below each bound, followed by the number of
+     * all values, read in one pass so the counts never decrease along the
+     * array.
+     */
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[counts.length()];
+        long seen = 0;
+        for (int bucket = 0; bucket < cumulative.length; bucket++) {
+            seen += counts.get(bucket);
+            cumulative[bucket] = seen;
+        }
+        return cumulative;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++)
+            count += counts.get(bucket);
+        return count;
+    }
+
+    public long getSumMicros() {
+        return sumMicros.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    static int bucketOf(long micros) {
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket])
+            bucket++;
+        return bucket;
+    }
+
+}
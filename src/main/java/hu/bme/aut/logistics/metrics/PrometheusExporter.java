@@ -0,0 +1,116 @@
+package hu.bme.aut.logistics.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.service.AddressCache;
+import hu.bme.aut.logistics.service.AddressCountCache;
+import hu.bme.aut.logistics.service.MilestoneUpdateQueue;
+import hu.bme.aut.logistics.service.SectionDistanceCache;
+
+/**
+ * Writes the request metrics, cache statistics and write-behind queue state in
+ * the Prometheus text exposition format (version 0.0.4).
+ */
+@Component
+public class PrometheusExporter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    RequestMetrics requestMetrics;
+
+    @Autowired
+    AddressCache addressCache;
+
+    @Autowired
+    AddressCountCache addressCountCache;
+
+    @Autowired
+    SectionDistanceCache sectionDistanceCache;
+
+    @Autowired
+    MilestoneUpdateQueue milestoneUpdateQueue;
+
+    public String export() {
+        StringBuilder out = new StringBuilder(4096);
+        Map<String, RequestMetrics.EndpointMetrics> endpoints = new TreeMap<>(requestMetrics.getEndpoints());
+
+        header(out, "logistics_http_request_duration_seconds", "histogram", "Request latency per endpoint.");
+        endpoints.forEach((endpoint, metrics) -> {
+            LatencyHistogram latency = metrics.getLatency();
+            long[] bounds = latency.getBoundsMicros();
+            long[] cumulative = latency.getCumulativeCounts();
+            for (int bucket = 0; bucket < cumulative.length; bucket++) {
+                String le = bucket < bounds.length ? Double.toString(seconds(bounds[bucket])) : "+Inf";
+                out.append("logistics_http_request_duration_seconds_bucket{endpoint=\"").append(escape(endpoint))
+                        .append("\",le=\"").append(le).append("\"} ").append(cumulative[bucket]).append('\n');
+            }
+            sample(out, "logistics_http_request_duration_seconds_sum", "endpoint", endpoint,
+                    seconds(latency.getSumMicros()));
+            sample(out, "logistics_http_request_duration_seconds_count", "endpoint", endpoint,
+                    cumulative[cumulative.length - 1]);
+        });
+        header(out, "logistics_http_request_duration_seconds_max", "gauge", "Slowest request per endpoint.");
+        endpoints.forEach((endpoint, metrics) -> sample(out, "logistics_http_request_duration_seconds_max",
+                "endpoint", endpoint, seconds(metrics.getLatency().getMaxMicros())));
+
+        header(out, "logistics_http_request_queries_total", "counter", "SQL statements issued per endpoint.");
+        endpoints.forEach((endpoint, metrics) -> sample(out, "logistics_http_request_queries_total",
+                "endpoint", endpoint, metrics.getQueries()));
+        header(out, "logistics_http_request_queries_max", "gauge", "Most SQL statements of a single request.");
+        endpoints.forEach((endpoint, metrics) -> sample(out, "logistics_http_request_queries_max",
+                "endpoint", endpoint, metrics.getMaxQueries()));
+        header(out, "logistics_http_request_entities_loaded_total", "counter", "Entities loaded per endpoint.");
+        endpoints.forEach((endpoint, metrics) -> sample(out, "logistics_http_request_entities_loaded_total",
+                "endpoint", endpoint, metrics.getEntitiesLoaded()));
+        header(out, "logistics_http_request_entities_loaded_max", "gauge", "Most entities loaded by a single request.");
+        endpoints.forEach((endpoint, metrics) -> sample(out, "logistics_http_request_entities_loaded_max",
+                "endpoint", endpoint, metrics.getMaxEntitiesLoaded()));
+
+        AddressCache.Stats addressCacheStats = addressCache.getStats();
+        header(out, "logistics_cache_hits_total", "counter", "Cache hits.");
+        sample(out, "logistics_cache_hits_total", "cache", "address", addressCacheStats.getHits());
+        sample(out, "logistics_cache_hits_total", "cache", "address_count", addressCountCache.getHits());
+        sample(out, "logistics_cache_hits_total", "cache", "section_distance", sectionDistanceCache.getHits());
+        header(out, "logistics_cache_misses_total", "counter", "Cache misses.");
+        sample(out, "logistics_cache_misses_total", "cache", "address", addressCacheStats.getMisses());
+        sample(out, "logistics_cache_misses_total", "cache", "address_count", addressCountCache.getMisses());
+        sample(out, "logistics_cache_misses_total", "cache", "section_distance", sectionDistanceCache.getMisses());
+        header(out, "logistics_cache_size", "gauge", "Cache entries.");
+        sample(out, "logistics_cache_size", "cache", "address", addressCacheStats.getSize());
+        sample(out, "logistics_cache_size", "cache", "address_count", addressCountCache.size());
+        sample(out, "logistics_cache_size", "cache", "section_distance", sectionDistanceCache.size());
+
+        MilestoneUpdateQueue.Stats queue = milestoneUpdateQueue.getStats();
+        header(out, "logistics_milestone_update_queue_depth", "gauge", "Milestones with pending updates.");
+        out.append("logistics_milestone_update_queue_depth ").append(queue.getDepth()).append('\n');
+        header(out, "logistics_milestone_update_queue_rejected_total", "counter", "Updates rejected as the queue was full.");
+        out.append("logistics_milestone_update_queue_rejected_total ").append(queue.getRejected()).append('\n');
+        header(out, "logistics_milestone_update_flush_seconds_max", "gauge", "Slowest write-behind batch.");
+        out.append("logistics_milestone_update_flush_seconds_max ").append(queue.getMaxFlushMillis() / 1000.0).append('\n');
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String labelValue, Object value) {
+        out.append(name).append('{').append(label).append("=\"").append(escape(labelValue)).append("\"} ")
+                .append(value).append('\n');
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1_000_000.0;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
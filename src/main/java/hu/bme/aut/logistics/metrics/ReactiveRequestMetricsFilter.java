@@ -0,0 +1,42 @@
+package hu.bme.aut.logistics.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Records each request of the reactive controllers in {@link RequestMetrics}.
+ * The request's {@link RequestCounters} travel in the subscriber context, from
+ * where the blocking pool binds them to the thread running the JDBC calls.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveRequestMetricsFilter implements WebFilter {
+
+    @Autowired
+    RequestMetrics requestMetrics;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        RequestCounters counters = new RequestCounters();
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .subscriberContext(Context.of(RequestCounters.class, counters))
+                .doFinally(signal -> {
+                    Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    String endpoint = exchange.getRequest().getMethodValue() + " "
+                            + (pattern == null ? "unmatched" : pattern);
+                    requestMetrics.record(endpoint, System.nanoTime() - start, counters.getQueries(),
+                            counters.getEntitiesLoaded());
+                });
+    }
+
+}
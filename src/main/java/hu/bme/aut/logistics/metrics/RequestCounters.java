@@ -0,0 +1,67 @@
+package hu.bme.aut.logistics.metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of SQL statements and loaded entities of one request. The counters of
+ * the request being handled are bound to the handling thread; work the request
+ * hands to other threads (async MVC tasks, the blocking pool of the reactive
+ * controllers) binds the same counters there with {@link #callWith}, so the
+ * counts cover every thread. Statements on threads without bound counters are
+ * not counted.
+ */
+public final class RequestCounters {
+
+    private static final ThreadLocal<RequestCounters> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder entitiesLoaded = new LongAdder();
+
+    public static RequestCounters current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds the counters to the current thread and returns the ones bound
+     * before, which the caller restores when done.
+     */
+    public static RequestCounters bind(RequestCounters counters) {
+        RequestCounters previous = CURRENT.get();
+        if (counters == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(counters);
+        return previous;
+    }
+
+    public static <T> T callWith(RequestCounters counters, Callable<T> callable) throws Exception {
+        RequestCounters previous = bind(counters);
+        try {
+            return callable.call();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    public static void incrementQueries() {
+        RequestCounters counters = CURRENT.get();
+        if (counters != null)
+            counters.queries.increment();
+    }
+
+    public static void incrementEntitiesLoaded() {
+        RequestCounters counters = CURRENT.get();
+        if (counters != null)
+            counters.entitiesLoaded.increment();
+    }
+
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded.sum();
+    }
+
+}
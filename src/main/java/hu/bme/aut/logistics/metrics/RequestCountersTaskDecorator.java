@@ -0,0 +1,27 @@
+package hu.bme.aut.logistics.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the {@link RequestCounters} of the submitting request to the tasks
+ * of the application task executor, which runs the asynchronous MVC handlers
+ * such as streamed responses.
+ */
+@Component
+public class RequestCountersTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestCounters counters = RequestCounters.current();
+        return () -> {
+            RequestCounters previous = RequestCounters.bind(counters);
+            try {
+                runnable.run();
+            } finally {
+                RequestCounters.bind(previous);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,60 @@
+package hu.bme.aut.logistics.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency, SQL statement and loaded entity statistics per endpoint, where the
+ * endpoint is the HTTP method and the matched request mapping pattern.
+ */
+@Component
+public class RequestMetrics {
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long nanos, long queries, long entitiesLoaded) {
+        EndpointMetrics metrics = endpoints.computeIfAbsent(endpoint, key -> new EndpointMetrics());
+        metrics.latency.recordNanos(nanos);
+        metrics.queries.add(queries);
+        metrics.maxQueries.accumulateAndGet(queries, Math::max);
+        metrics.entitiesLoaded.add(entitiesLoaded);
+        metrics.maxEntitiesLoaded.accumulateAndGet(entitiesLoaded, Math::max);
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return endpoints;
+    }
+
+    public static class EndpointMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder queries = new LongAdder();
+        private final AtomicLong maxQueries = new AtomicLong();
+        private final LongAdder entitiesLoaded = new LongAdder();
+        private final AtomicLong maxEntitiesLoaded = new AtomicLong();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getQueries() {
+            return queries.sum();
+        }
+
+        public long getMaxQueries() {
+            return maxQueries.get();
+        }
+
+        public long getEntitiesLoaded() {
+            return entitiesLoaded.sum();
+        }
+
+        public long getMaxEntitiesLoaded() {
+            return maxEntitiesLoaded.get();
+        }
+    }
+
+}
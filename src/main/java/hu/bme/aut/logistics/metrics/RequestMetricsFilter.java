@@ -0,0 +1,85 @@
+package hu.bme.aut.logistics.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records each request in {@link RequestMetrics}, including serialization of
+ * the response. Asynchronously completed requests (streamed responses,
+ * server-sent events) are recorded when the async manager completes them, with
+ * the statements their async tasks issued (see {@link RequestCountersTaskDecorator}).
+ */
+@Component
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    @Autowired
+    RequestMetrics requestMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestCounters counters = new RequestCounters();
+        RequestCounters previous = RequestCounters.bind(counters);
+        long start = System.nanoTime();
+        // Registered before the handler runs so the completion of an async request
+        // is seen however early it happens
+        RecordOnCompletion onCompletion = new RecordOnCompletion(request, counters, start);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.registerCallableInterceptor(RecordOnCompletion.class, onCompletion);
+        asyncManager.registerDeferredResultInterceptor(RecordOnCompletion.class, onCompletion);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestCounters.bind(previous);
+            if (!request.isAsyncStarted())
+                record(request, counters, start);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestCounters counters, long start) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern == null ? "unmatched" : pattern);
+        requestMetrics.record(endpoint, System.nanoTime() - start, counters.getQueries(),
+                counters.getEntitiesLoaded());
+    }
+
+    private class RecordOnCompletion implements CallableProcessingInterceptor, DeferredResultProcessingInterceptor {
+
+        private final HttpServletRequest request;
+        private final RequestCounters counters;
+        private final long start;
+
+        RecordOnCompletion(HttpServletRequest request, RequestCounters counters, long start) {
+            this.request = request;
+            this.counters = counters;
+            this.start = start;
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+            record(request, counters, start);
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest webRequest, DeferredResult<T> deferredResult) {
+            record(request, counters, start);
+        }
+    }
+
+}
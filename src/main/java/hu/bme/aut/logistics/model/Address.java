@@ -1,14 +1,25 @@
 package hu.bme.aut.logistics.model;
 
+import java.time.LocalDateTime;
+
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import hu.bme.aut.logistics.event.EntityChangeListener;
 
 @Entity
+@EntityListeners(EntityChangeListener.class)
 public class Address {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "address_seq")
+    @SequenceGenerator(name = "address_seq", allocationSize = 50)
     private Long id;
 
     private Double geoLng;
@@ -19,6 +30,10 @@ public class Address {
     private String street;
     private String number;
 
+    // Set when soft deleted; such addresses are only reachable through their milestones
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     public Address() {
     }
     
@@ -33,6 +48,21 @@ public class Address {
 		this.number = number;
 	}
 
+    /**
+     * Copies every field, including the id, into a new detached instance.
+     */
+    public Address(Address other) {
+        this.id = other.id;
+        this.geoLng = other.geoLng;
+        this.geoLat = other.geoLat;
+        this.country = other.country;
+        this.city = other.city;
+        this.zipCode = other.zipCode;
+        this.street = other.street;
+        this.number = other.number;
+        this.deletedAt = other.deletedAt;
+    }
+
 	public Long getId() {
         return id;
     }
@@ -97,4 +127,12 @@ public class Address {
         this.number = number;
     }
 
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
 }
@@ -4,13 +4,21 @@ import java.time.LocalDateTime;
 
 import javax.persistence.*;
 
+import hu.bme.aut.logistics.event.EntityChangeListener;
+
 @Entity
+@EntityListeners(EntityChangeListener.class)
+@Table(indexes = @Index(name = "ix_milestone_address_id_planned_time", columnList = "address_id, plannedTime"))
 public class Milestone {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "milestone_seq")
+    @SequenceGenerator(name = "milestone_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     @ManyToOne
     private Address address;
 
@@ -32,6 +40,14 @@ public class Milestone {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Address getAddress() {
         return address;
     }
@@ -3,24 +3,43 @@ package hu.bme.aut.logistics.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import javax.persistence.*;
 
+import hu.bme.aut.logistics.event.EntityChangeListener;
+
 @Entity
+@EntityListeners(EntityChangeListener.class)
+@Table(indexes = {
+        @Index(name = "ix_section_from_milestone_id", columnList = "from_milestone_id"),
+        @Index(name = "ix_section_to_milestone_id", columnList = "to_milestone_id"),
+        @Index(name = "ix_section_transport_plan_id", columnList = "transport_plan_id") })
 public class Section {
     
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "section_seq")
+    @SequenceGenerator(name = "section_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     @ManyToOne
 	private Milestone fromMilestone;
     
     @ManyToOne
 	private Milestone toMilestone;
     
+    @JsonIgnore
     @ManyToOne
     private TransportPlan transportPlan;
     
     private int number;
 
+    @Transient
+    private Long loadedTransportPlanId;
+
+    // Set by RouteMetricsService where plans are served
+    @Transient
+    private Double distanceKm;
+
 	public Section() {
 	}
 
@@ -38,6 +57,14 @@ public class Section {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Milestone getFromMilestone() {
         return fromMilestone;
     }
@@ -70,4 +97,26 @@ public class Section {
         this.transportPlan = transportPlan;
     }
 
+    public Double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(Double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+
+    /**
+     * The id of the plan the section belonged to when it was loaded, so that a
+     * plan losing a section can be found after the section has been moved.
+     */
+    @JsonIgnore
+    public Long getLoadedTransportPlanId() {
+        return loadedTransportPlanId;
+    }
+
+    @PostLoad
+    void rememberTransportPlan() {
+        loadedTransportPlanId = transportPlan == null ? null : transportPlan.getId();
+    }
+
 }
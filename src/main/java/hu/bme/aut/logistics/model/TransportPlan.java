@@ -1,20 +1,43 @@
 package hu.bme.aut.logistics.model;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 
 import java.util.List;
 import javax.persistence.*;
 
+import hu.bme.aut.logistics.event.EntityChangeListener;
+
 @Entity
+@EntityListeners(EntityChangeListener.class)
+@Table(indexes = {
+        @Index(name = "ix_transport_plan_earliest_planned_time", columnList = "earliestPlannedTime"),
+        @Index(name = "ix_transport_plan_latest_planned_time", columnList = "latestPlannedTime") })
 public class TransportPlan {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transport_plan_seq")
+    @SequenceGenerator(name = "transport_plan_seq", allocationSize = 50)
     private Long id;
+
+    @Version
+    private Long version;
     
 	@OneToMany(mappedBy = "transportPlan")
 	@OrderBy("number")
 	private java.util.List<Section> sections;
+
+    // Planned time range of all section milestones, maintained by TransportPlanTimeRangeUpdater
+    private LocalDateTime earliestPlannedTime;
+    private LocalDateTime latestPlannedTime;
+
+    // Route metrics, set by RouteMetricsService where plans are served
+    @Transient
+    private Double totalDistanceKm;
+    @Transient
+    private Long totalDurationMinutes;
+    @Transient
+    private Double averageSpeedKmh;
 	
 	public TransportPlan() {
 	}
@@ -31,6 +54,14 @@ public class TransportPlan {
     public void setId(Long id) {
         this.id = id;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
     
 	public java.util.List<Section> getSections() {
 		return sections;
@@ -40,6 +71,46 @@ public class TransportPlan {
 		this.sections = sections;
 	}
 
+    public LocalDateTime getEarliestPlannedTime() {
+        return earliestPlannedTime;
+    }
+
+    public void setEarliestPlannedTime(LocalDateTime earliestPlannedTime) {
+        this.earliestPlannedTime = earliestPlannedTime;
+    }
+
+    public LocalDateTime getLatestPlannedTime() {
+        return latestPlannedTime;
+    }
+
+    public void setLatestPlannedTime(LocalDateTime latestPlannedTime) {
+        this.latestPlannedTime = latestPlannedTime;
+    }
+
+    public Double getTotalDistanceKm() {
+        return totalDistanceKm;
+    }
+
+    public void setTotalDistanceKm(Double totalDistanceKm) {
+        this.totalDistanceKm = totalDistanceKm;
+    }
+
+    public Long getTotalDurationMinutes() {
+        return totalDurationMinutes;
+    }
+
+    public void setTotalDurationMinutes(Long totalDurationMinutes) {
+        this.totalDurationMinutes = totalDurationMinutes;
+    }
+
+    public Double getAverageSpeedKmh() {
+        return averageSpeedKmh;
+    }
+
+    public void setAverageSpeedKmh(Double averageSpeedKmh) {
+        this.averageSpeedKmh = averageSpeedKmh;
+    }
+
     public void addSection(Section section) {
         if(sections == null)
             sections = new ArrayList<>();
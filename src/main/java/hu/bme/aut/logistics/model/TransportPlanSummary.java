@@ -0,0 +1,122 @@
+package hu.bme.aut.logistics.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.*;
+
+/**
+ * Denormalized aggregates of a transport plan for listings, maintained by
+ * {@code TransportPlanSummaryUpdater}. References plans and addresses by id
+ * only, so it never blocks deleting them.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "ix_transport_plan_summary_first_departure", columnList = "firstDeparture"),
+        @Index(name = "ix_transport_plan_summary_final_arrival", columnList = "finalArrival"),
+        @Index(name = "ix_transport_plan_summary_origin_address_id", columnList = "originAddressId"),
+        @Index(name = "ix_transport_plan_summary_destination_address_id", columnList = "destinationAddressId") })
+public class TransportPlanSummary {
+
+    @Id
+    private Long transportPlanId;
+
+    private int sectionCount;
+    private LocalDateTime firstDeparture;
+    private LocalDateTime finalArrival;
+
+    private Long originAddressId;
+    private String originCountry;
+    private String originCity;
+
+    private Long destinationAddressId;
+    private String destinationCountry;
+    private String destinationCity;
+
+    public TransportPlanSummary() {
+    }
+
+    public TransportPlanSummary(Long transportPlanId) {
+        this.transportPlanId = transportPlanId;
+    }
+
+    public Long getTransportPlanId() {
+        return transportPlanId;
+    }
+
+    public void setTransportPlanId(Long transportPlanId) {
+        this.transportPlanId = transportPlanId;
+    }
+
+    public int getSectionCount() {
+        return sectionCount;
+    }
+
+    public void setSectionCount(int sectionCount) {
+        this.sectionCount = sectionCount;
+    }
+
+    public LocalDateTime getFirstDeparture() {
+        return firstDeparture;
+    }
+
+    public void setFirstDeparture(LocalDateTime firstDeparture) {
+        this.firstDeparture = firstDeparture;
+    }
+
+    public LocalDateTime getFinalArrival() {
+        return finalArrival;
+    }
+
+    public void setFinalArrival(LocalDateTime finalArrival) {
+        this.finalArrival = finalArrival;
+    }
+
+    public Long getOriginAddressId() {
+        return originAddressId;
+    }
+
+    public void setOriginAddressId(Long originAddressId) {
+        this.originAddressId = originAddressId;
+    }
+
+    public String getOriginCountry() {
+        return originCountry;
+    }
+
+    public void setOriginCountry(String originCountry) {
+        this.originCountry = originCountry;
+    }
+
+    public String getOriginCity() {
+        return originCity;
+    }
+
+    public void setOriginCity(String originCity) {
+        this.originCity = originCity;
+    }
+
+    public Long getDestinationAddressId() {
+        return destinationAddressId;
+    }
+
+    public void setDestinationAddressId(Long destinationAddressId) {
+        this.destinationAddressId = destinationAddressId;
+    }
+
+    public String getDestinationCountry() {
+        return destinationCountry;
+    }
+
+    public void setDestinationCountry(String destinationCountry) {
+        this.destinationCountry = destinationCountry;
+    }
+
+    public String getDestinationCity() {
+        return destinationCity;
+    }
+
+    public void setDestinationCity(String destinationCity) {
+        this.destinationCity = destinationCity;
+    }
+
+}
@@ -1,9 +1,55 @@
 package hu.bme.aut.logistics.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.hibernate.jpa.QueryHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import hu.bme.aut.logistics.model.Address;
 
-public interface AddressRepository extends JpaRepository<Address, Long> {
-    
+public interface AddressRepository
+        extends JpaRepository<Address, Long>, JpaSpecificationExecutor<Address>, AddressSearchRepository {
+
+    List<Address> findTop1000ByIdGreaterThanOrderById(Long id);
+
+    List<Address> findAllByDeletedAtIsNull();
+
+    boolean existsByIdAndDeletedAtIsNull(Long id);
+
+    @Query("select a from Address a where a.deletedAt is null order by a.id")
+    @org.springframework.data.jpa.repository.QueryHints({
+            @QueryHint(name = QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = QueryHints.HINT_READONLY, value = "true") })
+    Stream<Address> streamAll();
+
+    @Query("select a.id from Address a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select a.id from Address a where a.id in :ids and a.deletedAt is null")
+    List<Long> findNotDeletedIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct m.address.id from Milestone m where m.address.id in :ids")
+    List<Long> findReferencedIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the addresses not referenced by any milestone at the time of the
+     * statement, bypassing entity listeners.
+     */
+    @Modifying
+    @Query("delete from Address a where a.id in :ids and not exists (select m.id from Milestone m where m.address = a)")
+    int deleteUnreferenced(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Address a set a.deletedAt = :deletedAt where a.id in :ids and a.deletedAt is null")
+    int markDeleted(@Param("ids") Collection<Long> ids, @Param("deletedAt") LocalDateTime deletedAt);
+
 }
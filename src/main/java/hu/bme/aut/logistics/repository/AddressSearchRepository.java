@@ -0,0 +1,19 @@
+package hu.bme.aut.logistics.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import hu.bme.aut.logistics.model.Address;
+
+public interface AddressSearchRepository {
+
+    /**
+     * Loads one page of matching addresses without issuing a count query.
+     */
+    List<Address> findPage(Specification<Address> spec, Pageable pageable);
+
+    List<Long> findIds(Specification<Address> spec);
+
+}
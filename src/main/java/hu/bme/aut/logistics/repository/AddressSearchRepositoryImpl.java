@@ -0,0 +1,56 @@
+package hu.bme.aut.logistics.repository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import hu.bme.aut.logistics.model.Address;
+
+public class AddressSearchRepositoryImpl implements AddressSearchRepository {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Override
+    public List<Address> findPage(Specification<Address> spec, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Address> query = cb.createQuery(Address.class);
+        Root<Address> root = query.from(Address.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.select(root);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Address> typedQuery = em.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Address> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Address> root = query.from(Address.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.select(root.get("id"));
+        query.orderBy(cb.asc(root.get("id")));
+        return em.createQuery(query).getResultList();
+    }
+
+}
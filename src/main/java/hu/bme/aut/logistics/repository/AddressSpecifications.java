@@ -0,0 +1,53 @@
+package hu.bme.aut.logistics.repository;
+
+import java.util.Collection;
+import java.util.Locale;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import hu.bme.aut.logistics.model.Address;
+
+public final class AddressSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private AddressSpecifications() {
+    }
+
+    public static Specification<Address> startsWithIgnoreCase(String attribute, String prefix) {
+        String pattern = escapeLike(prefix.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(attribute)), pattern, LIKE_ESCAPE);
+    }
+
+    public static Specification<Address> notDeleted() {
+        return (root, query, cb) -> cb.isNull(root.get("deletedAt"));
+    }
+
+    public static Specification<Address> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Seek predicate for keyset paging: rows strictly after the given sort key,
+     * using the id as tie-breaker.
+     */
+    public static Specification<Address> after(String property, boolean ascending, String lastValue, Long lastId) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            Predicate idAfter = ascending ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+            if (property.equals("id"))
+                return idAfter;
+            Path<String> value = root.get(property);
+            Predicate valueAfter = ascending ? cb.greaterThan(value, lastValue) : cb.lessThan(value, lastValue);
+            return cb.or(valueAfter, cb.and(cb.equal(value, lastValue), idAfter));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+}
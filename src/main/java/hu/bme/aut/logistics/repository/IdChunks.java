@@ -0,0 +1,26 @@
+package hu.bme.aut.logistics.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits id collections for {@code in} queries, keeping well under the 2100
+ * parameter limit of SQL Server.
+ */
+public final class IdChunks {
+
+    public static final int MAX_IDS_PER_QUERY = 1000;
+
+    private IdChunks() {
+    }
+
+    public static List<List<Long>> of(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += MAX_IDS_PER_QUERY)
+            chunks.add(all.subList(from, Math.min(all.size(), from + MAX_IDS_PER_QUERY)));
+        return chunks;
+    }
+
+}
@@ -0,0 +1,61 @@
+package hu.bme.aut.logistics.repository;
+
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the id sequences of the entities past the ids already in their tables.
+ * Schema update creates a missing sequence starting from 1, so on a database
+ * whose rows got their ids before the sequences existed, inserts would collide
+ * with them. Runs while the context starts, before any request is served.
+ */
+@Component
+public class IdSequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // As in the @SequenceGenerator of the entities
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> TABLES_BY_SEQUENCE = Map.of(
+            "address_seq", "address",
+            "milestone_seq", "milestone",
+            "section_seq", "section",
+            "transport_plan_seq", "transport_plan");
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    // Also makes sure schema update has created the sequences
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void advanceSequences() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        TABLES_BY_SEQUENCE.forEach((sequence, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (maxId == null)
+                return;
+            // Hibernate hands out the ALLOCATION_SIZE ids up to each value it takes from the sequence,
+            // so after taking this one the ids continue from next + 1
+            long next = jdbcTemplate.queryForObject(dialect.getSequenceNextValString(sequence), Long.class);
+            if (next >= maxId)
+                return;
+            long restart = maxId + ALLOCATION_SIZE;
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart);
+            log.warn("Sequence {} was behind the ids in {}, restarted with {}", sequence, table, restart);
+        });
+    }
+
+}
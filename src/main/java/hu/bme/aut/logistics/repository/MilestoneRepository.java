@@ -1,9 +1,39 @@
 package hu.bme.aut.logistics.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import hu.bme.aut.logistics.model.Address;
 import hu.bme.aut.logistics.model.Milestone;
 
 public interface MilestoneRepository extends JpaRepository<Milestone, Long> {
 
+    Page<Milestone> findByAddressId(Long addressId, Pageable pageable);
+
+    Page<Milestone> findByAddressIdAndPlannedTimeBetween(Long addressId, LocalDateTime from, LocalDateTime to,
+            Pageable pageable);
+
+    @Query("select m from Milestone m left join fetch m.address where m.id in :ids")
+    List<Milestone> findWithAddressByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select m.id from Milestone m where m.address.id in :addressIds")
+    List<Long> findIdsByAddressIdIn(@Param("addressIds") Collection<Long> addressIds);
+
+    /**
+     * Points the milestones of the given addresses to another address,
+     * incrementing their versions. Bypasses entity listeners; pending changes
+     * are flushed and the persistence context is cleared.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Milestone m set m.address = :address, m.version = m.version + 1 where m.address.id in :addressIds")
+    int repointAddress(@Param("addressIds") Collection<Long> addressIds, @Param("address") Address address);
+
 }
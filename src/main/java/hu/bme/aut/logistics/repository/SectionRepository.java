@@ -1,9 +1,108 @@
 package hu.bme.aut.logistics.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import hu.bme.aut.logistics.model.Section;
 
 public interface SectionRepository extends JpaRepository<Section, Long> {
 
+    @Query("select distinct s.transportPlan.id from Section s where s.transportPlan is not null"
+            + " and (s.fromMilestone.id in :milestoneIds or s.toMilestone.id in :milestoneIds)")
+    List<Long> findPlanIdsByMilestoneIds(@Param("milestoneIds") Collection<Long> milestoneIds);
+
+    /**
+     * Rows of plan id, earliest and latest planned time of the section
+     * milestones of the given plans. Plans without sections are missing.
+     */
+    @Query("select s.transportPlan.id, min(fm.plannedTime), max(fm.plannedTime), min(tm.plannedTime), max(tm.plannedTime)"
+            + " from Section s left join s.fromMilestone fm left join s.toMilestone tm"
+            + " where s.transportPlan.id in :planIds group by s.transportPlan.id")
+    List<Object[]> findPlannedTimeRanges(@Param("planIds") Collection<Long> planIds);
+
+    /**
+     * Rows of section id, plan id, from milestone id and planned time, to
+     * milestone id and planned time, ordered by section id.
+     */
+    @Query("select s.id, s.transportPlan.id, fm.id, fm.plannedTime, tm.id, tm.plannedTime"
+            + " from Section s left join s.fromMilestone fm left join s.toMilestone tm"
+            + " where s.id > :lastId order by s.id")
+    List<Object[]> findSpanRowsAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Rows of plan id, from milestone id and to milestone id of every section of
+     * the plans containing any of the given milestones, ordered by plan and
+     * section number.
+     */
+    @Query("select s.transportPlan.id, s.fromMilestone.id, s.toMilestone.id from Section s"
+            + " where s.transportPlan.id in (select s2.transportPlan.id from Section s2"
+            + " where s2.fromMilestone.id in :milestoneIds or s2.toMilestone.id in :milestoneIds)"
+            + " order by s.transportPlan.id, s.number")
+    List<Object[]> findChainRowsByMilestoneIds(@Param("milestoneIds") Collection<Long> milestoneIds);
+
+    /**
+     * Rows of plan id, from milestone planned time, address id, country and
+     * city, then the same of the to milestone, for every section of the given
+     * plans, ordered by plan and section number.
+     */
+    @Query("select s.transportPlan.id, fm.plannedTime, fa.id, fa.country, fa.city,"
+            + " tm.plannedTime, ta.id, ta.country, ta.city"
+            + " from Section s left join s.fromMilestone fm left join fm.address fa"
+            + " left join s.toMilestone tm left join tm.address ta"
+            + " where s.transportPlan.id in :planIds order by s.transportPlan.id, s.number")
+    List<Object[]> findSummaryRows(@Param("planIds") Collection<Long> planIds);
+
+    /**
+     * Rows of plan id, section id and number, then from milestone id, planned
+     * time, address id, latitude and longitude, then the same of the to
+     * milestone, for every section of the given plans, ordered by plan and
+     * section number.
+     */
+    @Query("select s.transportPlan.id, s.id, s.number,"
+            + " fm.id, fm.plannedTime, fa.id, fa.geoLat, fa.geoLng,"
+            + " tm.id, tm.plannedTime, ta.id, ta.geoLat, ta.geoLng"
+            + " from Section s left join s.fromMilestone fm left join fm.address fa"
+            + " left join s.toMilestone tm left join tm.address ta"
+            + " where s.transportPlan.id in :planIds order by s.transportPlan.id, s.number, s.id")
+    List<Object[]> findGraphRows(@Param("planIds") Collection<Long> planIds);
+
+    /**
+     * Ids of the plans with a section starting or ending at the address,
+     * ordered by id. The milestones are found through their address index and
+     * the sections through their milestone foreign key indexes.
+     */
+    @Query(value = "select distinct s.transportPlan.id from Section s"
+            + " where s.fromMilestone.id in (select m.id from Milestone m where m.address.id = :addressId)"
+            + " or s.toMilestone.id in (select m.id from Milestone m where m.address.id = :addressId)"
+            + " order by s.transportPlan.id",
+            countQuery = "select count(distinct s.transportPlan.id) from Section s"
+            + " where s.fromMilestone.id in (select m.id from Milestone m where m.address.id = :addressId)"
+            + " or s.toMilestone.id in (select m.id from Milestone m where m.address.id = :addressId)")
+    Page<Long> findPlanIdsByAddressId(@Param("addressId") Long addressId, Pageable pageable);
+
+    /**
+     * Like {@link #findPlanIdsByAddressId}, counting only milestones planned
+     * within {@code [from, to]}.
+     */
+    @Query(value = "select distinct s.transportPlan.id from Section s"
+            + " where s.fromMilestone.id in (select m.id from Milestone m where m.address.id = :addressId"
+            + " and m.plannedTime between :from and :to)"
+            + " or s.toMilestone.id in (select m.id from Milestone m where m.address.id = :addressId"
+            + " and m.plannedTime between :from and :to)"
+            + " order by s.transportPlan.id",
+            countQuery = "select count(distinct s.transportPlan.id) from Section s"
+            + " where s.fromMilestone.id in (select m.id from Milestone m where m.address.id = :addressId"
+            + " and m.plannedTime between :from and :to)"
+            + " or s.toMilestone.id in (select m.id from Milestone m where m.address.id = :addressId"
+            + " and m.plannedTime between :from and :to)")
+    Page<Long> findPlanIdsByAddressIdAndPlannedTimeBetween(@Param("addressId") Long addressId,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
 }
@@ -1,9 +1,51 @@
 package hu.bme.aut.logistics.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import hu.bme.aut.logistics.model.TransportPlan;
 
 public interface TransportPlanRepository extends JpaRepository<TransportPlan, Long> {
 
+    @Query("select p.id from TransportPlan p where p.latestPlannedTime > :dateTime")
+    List<Long> findIdsByLatestPlannedTimeAfter(@Param("dateTime") LocalDateTime dateTime, Pageable pageable);
+
+    @Query("select p.id from TransportPlan p where p.latestPlannedTime is null"
+            + " and exists (select s.id from Section s where s.transportPlan = p)")
+    List<Long> findIdsWithoutPlannedTimeRange();
+
+    @Query("select p.id from TransportPlan p where p.id > :lastId order by p.id")
+    List<Long> findIdsAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    @Query("select p.id from TransportPlan p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update TransportPlan p set p.earliestPlannedTime = :earliest, p.latestPlannedTime = :latest where p.id = :id")
+    int updatePlannedTimeRange(@Param("id") Long id, @Param("earliest") LocalDateTime earliest,
+            @Param("latest") LocalDateTime latest);
+
+    /**
+     * Loads the plans with their sections, milestones and milestone addresses
+     * in a single query.
+     */
+    @Query("select distinct p from TransportPlan p"
+            + " left join fetch p.sections s"
+            + " left join fetch s.fromMilestone fm left join fetch fm.address"
+            + " left join fetch s.toMilestone tm left join fetch tm.address"
+            + " where p.id in :ids order by p.id, s.number")
+    @org.springframework.data.jpa.repository.QueryHints(
+            @QueryHint(name = QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<TransportPlan> findWithGraphByIdIn(@Param("ids") Collection<Long> ids);
+
 }
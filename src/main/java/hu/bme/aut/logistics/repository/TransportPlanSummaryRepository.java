@@ -0,0 +1,34 @@
+package hu.bme.aut.logistics.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import hu.bme.aut.logistics.model.TransportPlanSummary;
+
+public interface TransportPlanSummaryRepository extends JpaRepository<TransportPlanSummary, Long> {
+
+    @Query("select p.id from TransportPlan p"
+            + " where not exists (select s.transportPlanId from TransportPlanSummary s where s.transportPlanId = p.id)")
+    List<Long> findPlanIdsWithoutSummary();
+
+    @Modifying
+    @Query("delete from TransportPlanSummary s where s.transportPlanId in :planIds")
+    int deleteByPlanIds(@Param("planIds") Collection<Long> planIds);
+
+    @Modifying
+    @Query("update TransportPlanSummary s set s.originCountry = :country, s.originCity = :city"
+            + " where s.originAddressId = :addressId")
+    int updateOrigin(@Param("addressId") Long addressId, @Param("country") String country, @Param("city") String city);
+
+    @Modifying
+    @Query("update TransportPlanSummary s set s.destinationCountry = :country, s.destinationCity = :city"
+            + " where s.destinationAddressId = :addressId")
+    int updateDestination(@Param("addressId") Long addressId, @Param("country") String country,
+            @Param("city") String city);
+
+}
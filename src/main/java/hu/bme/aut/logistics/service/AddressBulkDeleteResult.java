@@ -0,0 +1,29 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk address deletion: the ids deleted, the ids kept because
+ * milestones reference them, and the ids that did not exist (or were already
+ * soft deleted in soft mode).
+ */
+public class AddressBulkDeleteResult {
+
+    private final List<Long> deletedIds = new ArrayList<>();
+    private final List<Long> referencedIds = new ArrayList<>();
+    private final List<Long> notFoundIds = new ArrayList<>();
+
+    public List<Long> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public List<Long> getReferencedIds() {
+        return referencedIds;
+    }
+
+    public List<Long> getNotFoundIds() {
+        return notFoundIds;
+    }
+
+}
@@ -0,0 +1,100 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntityChangePublisher;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.IdChunks;
+
+/**
+ * Deletes addresses in chunks, one short transaction per chunk. References are
+ * checked with one query per chunk, and the delete statement itself skips
+ * addresses that became referenced meanwhile, so it never fails on the
+ * milestone foreign key. Soft deletion marks the addresses instead, whether
+ * referenced or not. The statements bypass entity listeners, so the changes are
+ * recorded for the change events explicitly, as deletions in both modes.
+ */
+@Service
+public class AddressBulkDeleteService {
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    EntityChangePublisher changePublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AddressBulkDeleteService(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public AddressBulkDeleteResult delete(Collection<Long> ids, boolean soft) {
+        AddressBulkDeleteResult result = new AddressBulkDeleteResult();
+        for (List<Long> chunk : IdChunks.of(new LinkedHashSet<>(ids))) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (soft)
+                    softDeleteChunk(chunk, result);
+                else
+                    deleteChunk(chunk, result);
+            });
+        }
+        return result;
+    }
+
+    private void deleteChunk(List<Long> ids, AddressBulkDeleteResult result) {
+        Set<Long> existing = new HashSet<>(addressRepository.findExistingIds(ids));
+        Set<Long> referenced = new HashSet<>(addressRepository.findReferencedIds(existing));
+        Set<Long> deletable = new HashSet<>(existing);
+        deletable.removeAll(referenced);
+        if (!deletable.isEmpty()) {
+            addressRepository.deleteUnreferenced(deletable);
+            // Referenced after the check above, so kept by the delete statement
+            referenced.addAll(addressRepository.findExistingIds(deletable));
+        }
+
+        for (Long id : ids) {
+            if (!existing.contains(id)) {
+                result.getNotFoundIds().add(id);
+            } else if (referenced.contains(id)) {
+                result.getReferencedIds().add(id);
+            } else {
+                result.getDeletedIds().add(id);
+                recordDeleted(id);
+            }
+        }
+    }
+
+    private void softDeleteChunk(List<Long> ids, AddressBulkDeleteResult result) {
+        Set<Long> existing = new HashSet<>(addressRepository.findNotDeletedIds(ids));
+        if (!existing.isEmpty())
+            addressRepository.markDeleted(existing, LocalDateTime.now());
+        for (Long id : ids) {
+            if (existing.contains(id)) {
+                result.getDeletedIds().add(id);
+                recordDeleted(id);
+            } else {
+                result.getNotFoundIds().add(id);
+            }
+        }
+    }
+
+    private void recordDeleted(Long id) {
+        Address address = new Address();
+        address.setId(id);
+        changePublisher.record(ChangeType.DELETED, address);
+    }
+
+}
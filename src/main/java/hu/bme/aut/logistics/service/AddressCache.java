@@ -0,0 +1,87 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Bounded LRU cache of detached addresses by id with a time to live. Entries
+ * are evicted by the after-commit change events, which cover entity writes as
+ * well as the bulk delete and deduplication statements, as those record their
+ * changes explicitly. A load overlapping any eviction is not stored, so a row
+ * read before a commit is never cached after that commit's eviction. Only found
+ * addresses are cached, so a missing id always reaches the database.
+ * <p>
+ * The cache keeps its own copy of each address and hands out a fresh copy on
+ * every lookup, so callers may modify what they get.
+ * <p>
+ * Writes the events do not see, made by another instance or by SQL outside
+ * the application, are only picked up when the entry expires: like the address
+ * indexes, the cache assumes this instance is the only writer of addresses.
+ */
+@Component
+public class AddressCache {
+
+    private final BoundedTtlCache<Long, Address> cache;
+
+    public AddressCache(
+            @Value("${logistics.address-cache.max-size:10000}") int maxSize,
+            @Value("${logistics.address-cache.ttl:10m}") Duration ttl) {
+        this.cache = new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    public Optional<Address> get(Long id, Function<Long, Optional<Address>> loader) {
+        return cache.get(id, key -> loader.apply(key).map(Address::new)).map(Address::new);
+    }
+
+    public void evict(Long id) {
+        cache.evict(id);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public Stats getStats() {
+        return new Stats(cache.size(), cache.getHits(), cache.getMisses());
+    }
+
+    @EventListener
+    public void onEntitiesChanged(EntitiesChangedEvent event) {
+        for (EntityChange change : event.getChanges(Address.class))
+            evict(((Address) change.getEntity()).getId());
+    }
+
+    public static class Stats {
+        private final int size;
+        private final long hits;
+        private final long misses;
+
+        Stats(int size, long hits, long misses) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Bounded LRU cache of address search counts keyed by the normalized search
+ * example. Every committed address change invalidates the whole cache; counts
+ * computed concurrently with a change are not stored.
+ */
+@Component
+public class AddressCountCache {
+
+    private final BoundedTtlCache<String, Long> cache;
+
+    public AddressCountCache(
+            @Value("${logistics.address-search.count-cache.max-size:1000}") int maxSize,
+            @Value("${logistics.address-search.count-cache.ttl:60s}") Duration ttl) {
+        this.cache = new BoundedTtlCache<>(maxSize, ttl);
+    }
+
+    public long get(String key, LongSupplier counter) {
+        return cache.get(key, k -> Optional.of(counter.getAsLong())).get();
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    @EventListener
+    public void onEntitiesChanged(EntitiesChangedEvent event) {
+        if (event.contains(Address.class))
+            clear();
+    }
+
+}
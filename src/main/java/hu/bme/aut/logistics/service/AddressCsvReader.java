@@ -0,0 +1,138 @@
+package hu.bme.aut.logistics.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Reads addresses from CSV with a header line naming the columns (country,
+ * city, zipCode, street, number, geoLat, geoLng, in any order). Fields may be
+ * quoted with double quotes; quoted fields cannot span lines.
+ */
+public class AddressCsvReader implements Iterator<AddressImportRow> {
+
+    private static final List<String> COLUMNS = List.of("country", "city", "zipcode", "street", "number", "geolat", "geolng");
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private String nextLine;
+    private int row;
+
+    public AddressCsvReader(BufferedReader reader) {
+        this.reader = reader;
+        String header = readLine();
+        if (header == null)
+            return;
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            if (!COLUMNS.contains(name))
+                throw new IllegalArgumentException("unknown CSV column: " + names.get(i));
+            columnIndexes.put(name, i);
+        }
+        nextLine = readNonEmptyLine();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    @Override
+    public AddressImportRow next() {
+        if (nextLine == null)
+            throw new NoSuchElementException();
+        String line = nextLine;
+        nextLine = readNonEmptyLine();
+        row++;
+        try {
+            return AddressImportRow.of(row, toAddress(split(line)));
+        } catch (IllegalArgumentException e) {
+            return AddressImportRow.failed(row, e.getMessage());
+        }
+    }
+
+    private Address toAddress(List<String> fields) {
+        if (fields.size() != columnIndexes.size())
+            throw new IllegalArgumentException("expected " + columnIndexes.size() + " fields but found " + fields.size());
+        Address address = new Address();
+        address.setCountry(text(fields, "country"));
+        address.setCity(text(fields, "city"));
+        address.setZipCode(text(fields, "zipcode"));
+        address.setStreet(text(fields, "street"));
+        address.setNumber(text(fields, "number"));
+        address.setGeoLat(coordinate(fields, "geolat"));
+        address.setGeoLng(coordinate(fields, "geolng"));
+        return address;
+    }
+
+    private String text(List<String> fields, String column) {
+        Integer index = columnIndexes.get(column);
+        return index == null ? null : fields.get(index);
+    }
+
+    private Double coordinate(List<String> fields, String column) {
+        String value = text(fields, column);
+        if (value == null || value.isBlank())
+            return null;
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + ": " + value);
+        }
+    }
+
+    private String readNonEmptyLine() {
+        String line;
+        do {
+            line = readLine();
+        } while (line != null && line.isBlank());
+        return line;
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+}
@@ -0,0 +1,114 @@
+package hu.bme.aut.logistics.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Position of a keyset (seek) paged address listing: the sort property and
+ * direction, plus the sort key and id of the last address already returned.
+ * Serialized as an opaque URL-safe token.
+ */
+public class AddressCursor {
+
+    public static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "country", "city", "zipCode", "street", "number");
+
+    private final String property;
+    private final Direction direction;
+    private final String lastValue;
+    private final Long lastId;
+
+    private AddressCursor(String property, Direction direction, String lastValue, Long lastId) {
+        this.property = property;
+        this.direction = direction;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Cursor before the first address in the given order. Only a single sort
+     * property is supported; the id is always appended as tie-breaker.
+     */
+    public static AddressCursor first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (sort.stream().count() > 1 || !SORTABLE_PROPERTIES.contains(order.getProperty()))
+            throw new IllegalArgumentException("cursor paging supports sorting by one of " + SORTABLE_PROPERTIES);
+        return new AddressCursor(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    public static AddressCursor decode(String token) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("malformed cursor", e);
+        }
+        String[] parts = decoded.split(",", 4);
+        if (parts.length != 4 || !SORTABLE_PROPERTIES.contains(parts[0]))
+            throw new IllegalArgumentException("malformed cursor");
+        try {
+            return new AddressCursor(parts[0], Direction.fromString(parts[1]), parts[3], Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("malformed cursor", e);
+        }
+    }
+
+    public AddressCursor after(Address address) {
+        String value = property.equals("id") ? "" : sortValueOf(address);
+        return new AddressCursor(property, direction, value, address.getId());
+    }
+
+    public String encode() {
+        String raw = property + "," + direction.name() + "," + lastId + "," + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public Sort getSort() {
+        if (property.equals("id"))
+            return Sort.by(direction, "id");
+        return Sort.by(direction, property, "id");
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    private String sortValueOf(Address address) {
+        switch (property) {
+        case "country":
+            return address.getCountry();
+        case "city":
+            return address.getCity();
+        case "zipCode":
+            return address.getZipCode();
+        case "street":
+            return address.getStreet();
+        case "number":
+            return address.getNumber();
+        default:
+            throw new IllegalStateException(property);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package hu.bme.aut.logistics.service;
+
+/**
+ * Outcome of an address deduplication run: the number of duplicate groups
+ * merged, the duplicate addresses removed and the milestones moved to the
+ * address kept from their group.
+ */
+public class AddressDeduplicationResult {
+
+    private int mergedGroups;
+    private int removedAddresses;
+    private int repointedMilestones;
+
+    public int getMergedGroups() {
+        return mergedGroups;
+    }
+
+    public int getRemovedAddresses() {
+        return removedAddresses;
+    }
+
+    public int getRepointedMilestones() {
+        return repointedMilestones;
+    }
+
+    void addGroup(int removedAddresses, int repointedMilestones) {
+        this.mergedGroups++;
+        this.removedAddresses += removedAddresses;
+        this.repointedMilestones += repointedMilestones;
+    }
+
+}
@@ -0,0 +1,149 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntityChangePublisher;
+import hu.bme.aut.logistics.index.AddressFingerprintIndex;
+import hu.bme.aut.logistics.index.AddressNormalizer;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+
+/**
+ * Merges addresses sharing a fingerprint. Of each group the address with the
+ * lowest id is kept in normalized form, the milestones of the others are
+ * pointed to it and the others are deleted. Groups come from the fingerprint
+ * index and are checked against the stored addresses, so a stale index entry
+ * never merges addresses that are no longer duplicates. Groups are processed
+ * in short transactions of about {@code batch-size} addresses. The bulk
+ * statements bypass entity listeners, so the milestone and address changes are
+ * recorded for the change events explicitly.
+ */
+@Service
+public class AddressDeduplicationService {
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    AddressFingerprintIndex fingerprintIndex;
+
+    @Autowired
+    EntityChangePublisher changePublisher;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public AddressDeduplicationService(PlatformTransactionManager transactionManager,
+            @Value("${logistics.address-dedup.batch-size:1000}") int batchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public AddressDeduplicationResult deduplicate() {
+        AddressDeduplicationResult result = new AddressDeduplicationResult();
+        List<List<Long>> batch = new ArrayList<>();
+        int batchAddresses = 0;
+        for (List<Long> group : fingerprintIndex.findDuplicateGroups()) {
+            batch.add(group);
+            batchAddresses += group.size();
+            if (batchAddresses >= batchSize) {
+                mergeBatch(batch, result);
+                batch = new ArrayList<>();
+                batchAddresses = 0;
+            }
+        }
+        if (!batch.isEmpty())
+            mergeBatch(batch, result);
+        return result;
+    }
+
+    private void mergeBatch(List<List<Long>> groups, AddressDeduplicationResult result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (List<Long> group : groups) {
+                for (List<Address> duplicates : regroup(group))
+                    merge(duplicates, result);
+            }
+        });
+    }
+
+    /**
+     * Groups the stored, not deleted addresses of the given ids by their
+     * current fingerprint, each group ordered by id, keeping only real
+     * duplicates.
+     */
+    private List<List<Address>> regroup(List<Long> ids) {
+        Map<String, List<Address>> byFingerprint = new LinkedHashMap<>();
+        for (List<Long> chunk : IdChunks.of(ids)) {
+            for (Address address : addressRepository.findAllById(chunk)) {
+                if (address.getDeletedAt() == null) {
+                    byFingerprint.computeIfAbsent(AddressNormalizer.fingerprint(address), f -> new ArrayList<>())
+                            .add(address);
+                }
+            }
+        }
+        List<List<Address>> groups = new ArrayList<>();
+        for (List<Address> group : byFingerprint.values()) {
+            if (group.size() > 1) {
+                group.sort((a, b) -> a.getId().compareTo(b.getId()));
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    private void merge(List<Address> group, AddressDeduplicationResult result) {
+        // Re-loaded because repointing clears the persistence context, which
+        // detaches the addresses loaded for later groups of the batch
+        Address kept = addressRepository.findById(group.get(0).getId()).get();
+        Address normalized = AddressNormalizer.normalize(kept);
+        kept.setCountry(normalized.getCountry());
+        kept.setCity(normalized.getCity());
+        kept.setZipCode(normalized.getZipCode());
+        kept.setStreet(normalized.getStreet());
+        kept.setNumber(normalized.getNumber());
+
+        List<Long> duplicateIds = new ArrayList<>();
+        for (Address duplicate : group.subList(1, group.size()))
+            duplicateIds.add(duplicate.getId());
+
+        List<Long> milestoneIds = new ArrayList<>();
+        Set<Long> deletedIds = new HashSet<>(duplicateIds);
+        for (List<Long> chunk : IdChunks.of(duplicateIds)) {
+            milestoneIds.addAll(milestoneRepository.findIdsByAddressIdIn(chunk));
+            milestoneRepository.repointAddress(chunk, kept);
+            addressRepository.deleteUnreferenced(chunk);
+            // Referenced by a milestone created meanwhile, so kept by the delete statement
+            deletedIds.removeAll(addressRepository.findExistingIds(chunk));
+        }
+
+        for (List<Long> chunk : IdChunks.of(milestoneIds)) {
+            for (Milestone milestone : milestoneRepository.findWithAddressByIdIn(chunk))
+                changePublisher.record(ChangeType.UPDATED, milestone);
+        }
+        for (Long id : deletedIds) {
+            Address deleted = new Address();
+            deleted.setId(id);
+            changePublisher.record(ChangeType.DELETED, deleted);
+        }
+        result.addGroup(deletedIds.size(), milestoneIds.size());
+    }
+
+}
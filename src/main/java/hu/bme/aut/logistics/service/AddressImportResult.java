@@ -0,0 +1,46 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AddressImportResult {
+
+    private int imported;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public int getImported() {
+        return imported;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    void addImported(int count) {
+        imported += count;
+    }
+
+    void addError(int row, String message) {
+        errors.add(new RowError(row, message));
+    }
+
+    public static class RowError {
+
+        private final int row;
+        private final String message;
+
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+}
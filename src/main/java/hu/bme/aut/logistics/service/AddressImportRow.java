@@ -0,0 +1,41 @@
+package hu.bme.aut.logistics.service;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * One parsed row of a bulk import: either an address or the reason it could
+ * not be read. Rows are numbered from 1.
+ */
+public class AddressImportRow {
+
+    private final int row;
+    private final Address address;
+    private final String error;
+
+    private AddressImportRow(int row, Address address, String error) {
+        this.row = row;
+        this.address = address;
+        this.error = error;
+    }
+
+    public static AddressImportRow of(int row, Address address) {
+        return new AddressImportRow(row, address, null);
+    }
+
+    public static AddressImportRow failed(int row, String error) {
+        return new AddressImportRow(row, null, error);
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+}
@@ -0,0 +1,99 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Imports addresses in chunks, each chunk in its own transaction. Inserts are
+ * sent in JDBC batches of {@code hibernate.jdbc.batch_size}, ids come from the
+ * pooled address sequence. A failing chunk is rolled back and reported row by
+ * row; chunks committed before it are kept.
+ */
+@Service
+public class AddressImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AddressImportService.class);
+
+    @Autowired
+    AddressService addressService;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Value("${logistics.address-import.chunk-size:1000}")
+    int chunkSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    int batchSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AddressImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public AddressImportResult importAddresses(Iterator<AddressImportRow> rows) {
+        AddressImportResult result = new AddressImportResult();
+        List<AddressImportRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            AddressImportRow row = rows.next();
+            String error = row.getError() != null ? row.getError() : validationError(row.getAddress());
+            if (error != null) {
+                result.addError(row.getRow(), error);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                insertChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty())
+            insertChunk(chunk, result);
+        return result;
+    }
+
+    private String validationError(Address address) {
+        if (address == null)
+            return "row is empty";
+        if (address.getId() != null)
+            return "id must not be set";
+        return addressService.findValidationError(address);
+    }
+
+    private void insertChunk(List<AddressImportRow> chunk, AddressImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    em.persist(chunk.get(i).getAddress());
+                    if ((i + 1) % batchSize == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+            });
+            result.addImported(chunk.size());
+        } catch (RuntimeException e) {
+            log.warn("Address import chunk of {} rows failed", chunk.size(), e);
+            for (AddressImportRow row : chunk) {
+                row.getAddress().setId(null);
+                result.addError(row.getRow(), "not imported: " + e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.repository.SectionRepository;
+
+/**
+ * Milestones and transport plans using an address, optionally restricted to
+ * milestones planned within a time window. An open end of the window is
+ * unbounded; without a window milestones without planned time are included
+ * too.
+ */
+@Service
+public class AddressReferenceService {
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    TransportPlanService transportPlanService;
+
+    @Transactional(readOnly = true)
+    public Page<Milestone> findMilestones(Long addressId, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        if (from == null && to == null)
+            return milestoneRepository.findByAddressId(addressId, pageable);
+        return milestoneRepository.findByAddressIdAndPlannedTimeBetween(addressId,
+                from == null ? MIN_TIME : from, to == null ? MAX_TIME : to, pageable);
+    }
+
+    /**
+     * Plans ordered by id, with their whole section graph loaded.
+     */
+    @Transactional(readOnly = true)
+    public Page<TransportPlan> findTransportPlans(Long addressId, LocalDateTime from, LocalDateTime to,
+            Pageable pageable) {
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<Long> ids;
+        if (from == null && to == null)
+            ids = sectionRepository.findPlanIdsByAddressId(addressId, unsorted);
+        else
+            ids = sectionRepository.findPlanIdsByAddressIdAndPlannedTimeBetween(addressId,
+                    from == null ? MIN_TIME : from, to == null ? MAX_TIME : to, unsorted);
+        List<TransportPlan> plans = transportPlanService.loadGraphs(ids.getContent());
+        return new PageImpl<>(plans, pageable, ids.getTotalElements());
+    }
+
+}
@@ -0,0 +1,52 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.List;
+
+import hu.bme.aut.logistics.model.Address;
+
+public class AddressSearchResult {
+
+    private final List<Address> content;
+    private final long totalCount;
+    private final boolean totalCountEstimated;
+    private final String nextCursor;
+
+    public AddressSearchResult(List<Address> content, long totalCount, boolean totalCountEstimated) {
+        this(content, totalCount, totalCountEstimated, null);
+    }
+
+    public AddressSearchResult(List<Address> content, long totalCount, boolean totalCountEstimated, String nextCursor) {
+        this.content = content;
+        this.totalCount = totalCount;
+        this.totalCountEstimated = totalCountEstimated;
+        this.nextCursor = nextCursor;
+    }
+
+    public static AddressSearchResult empty() {
+        return new AddressSearchResult(List.of(), 0, false);
+    }
+
+    public List<Address> getContent() {
+        return content;
+    }
+
+    /**
+     * Negative if the total count was not computed.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean isTotalCountEstimated() {
+        return totalCountEstimated;
+    }
+
+    public boolean hasTotalCount() {
+        return totalCount >= 0;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+}
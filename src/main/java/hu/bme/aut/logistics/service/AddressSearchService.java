@@ -0,0 +1,203 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import hu.bme.aut.logistics.index.AddressGeoIndex;
+import hu.bme.aut.logistics.index.AddressIndexMaintainer;
+import hu.bme.aut.logistics.index.AddressPrefixIndex;
+import hu.bme.aut.logistics.index.AddressPrefixIndex.Field;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.AddressSpecifications;
+
+/**
+ * Case-insensitive prefix search on country, city and street. The prefix index
+ * is trusted to hold every address: a search with no candidates returns without
+ * a query, and a selective one is restricted to the candidate ids, so the
+ * database only evaluates the predicates on those rows. Writes made while the
+ * index loads are guarded by {@link AddressIndexMaintainer}, and every write
+ * path of this application publishes its address changes.
+ * <p>
+ * Rows written by other nodes or plain JDBC are not in the index; with
+ * {@code logistics.address-search.index-authoritative=false} the database
+ * evaluates the predicates on the whole table and the index only supplies the
+ * count estimate.
+ */
+@Service
+public class AddressSearchService {
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    AddressPrefixIndex prefixIndex;
+
+    @Autowired
+    AddressGeoIndex geoIndex;
+
+    @Autowired
+    AddressIndexMaintainer indexMaintainer;
+
+    @Autowired
+    AddressCountCache countCache;
+
+    @Value("${logistics.address-search.index-authoritative:true}")
+    boolean indexAuthoritative;
+
+    @Value("${logistics.address-search.index-max-candidates:1000}")
+    int indexMaxCandidates;
+
+    @Value("${logistics.address-search.index-max-scan:100000}")
+    int indexMaxScan;
+
+    @Value("${logistics.address-search.count-estimate-threshold:-1}")
+    long countEstimateThreshold;
+
+    @Transactional(readOnly = true)
+    public AddressSearchResult search(Address example, Pageable pageable) {
+        SearchQuery query = buildQuery(example, countEstimateThreshold >= 0);
+        if (query.empty)
+            return AddressSearchResult.empty();
+
+        List<Address> content = addressRepository.findPage(query.spec, pageable);
+        if (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty()))
+            return new AddressSearchResult(content, pageable.getOffset() + content.size(), false);
+        if (countEstimateThreshold >= 0 && query.estimate > countEstimateThreshold)
+            return new AddressSearchResult(content, query.estimate, true);
+
+        long total = countCache.get(countKey(query.prefixes), () -> addressRepository.count(query.spec));
+        return new AddressSearchResult(content, total, false);
+    }
+
+    /**
+     * Keyset paged search: seeks directly past the cursor position instead of
+     * skipping an offset, and returns the cursor of the next page if there is
+     * one. No total count is computed.
+     */
+    @Transactional(readOnly = true)
+    public AddressSearchResult searchAfter(Address example, AddressCursor cursor, int size) {
+        SearchQuery query = buildQuery(example, false);
+        if (query.empty)
+            return AddressSearchResult.empty();
+
+        Specification<Address> spec = query.spec;
+        if (!cursor.isFirst())
+            spec = spec.and(AddressSpecifications.after(cursor.getProperty(), cursor.getDirection().isAscending(),
+                    cursor.getLastValue(), cursor.getLastId()));
+
+        List<Address> content = addressRepository.findPage(spec, PageRequest.of(0, size + 1, cursor.getSort()));
+        if (content.size() <= size)
+            return new AddressSearchResult(content, -1, false);
+        content = content.subList(0, size);
+        return new AddressSearchResult(content, -1, false, cursor.after(content.get(size - 1)).encode());
+    }
+
+    /**
+     * Whether the example constrains any of the searchable fields. An example
+     * without one matches every address.
+     */
+    public boolean hasCriteria(Address example) {
+        return !searchPrefixes(example).isEmpty();
+    }
+
+    /**
+     * Ids of all addresses matching the example, in ascending order.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findIds(Address example) {
+        SearchQuery query = buildQuery(example, false);
+        if (query.empty)
+            return List.of();
+        return addressRepository.findIds(query.spec);
+    }
+
+    @Transactional(readOnly = true)
+    public List<NearbyAddress> findNearest(double lat, double lng, int k) {
+        return load(geoIndex.findNearest(lat, lng, k));
+    }
+
+    @Transactional(readOnly = true)
+    public List<NearbyAddress> findWithin(double lat, double lng, double radiusKm) {
+        return load(geoIndex.findWithin(lat, lng, radiusKm));
+    }
+
+    private List<NearbyAddress> load(List<AddressGeoIndex.Match> matches) {
+        List<Long> ids = matches.stream().map(AddressGeoIndex.Match::getId).collect(Collectors.toList());
+        Map<Long, Address> addressesById = addressRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Address::getId, Function.identity()));
+        List<NearbyAddress> result = new ArrayList<>(matches.size());
+        for (AddressGeoIndex.Match match : matches) {
+            Address address = addressesById.get(match.getId());
+            if (address != null)
+                result.add(new NearbyAddress(address, match.getDistanceKm()));
+        }
+        return result;
+    }
+
+    /**
+     * The candidate ids are only looked up if they restrict the query or the
+     * caller uses the estimate, as collecting them can scan many index entries.
+     */
+    private SearchQuery buildQuery(Address example, boolean estimate) {
+        SearchQuery query = new SearchQuery();
+        query.prefixes = searchPrefixes(example);
+        query.spec = AddressSpecifications.notDeleted();
+        for (Map.Entry<Field, String> prefix : query.prefixes.entrySet())
+            query.spec = query.spec.and(AddressSpecifications.startsWithIgnoreCase(prefix.getKey().getAttribute(), prefix.getValue()));
+
+        if (!indexMaintainer.isReady() || (!indexAuthoritative && !estimate))
+            return query;
+        if (query.prefixes.isEmpty()) {
+            query.estimate = prefixIndex.size();
+            return query;
+        }
+        Set<Long> candidateIds = prefixIndex.findCandidateIds(query.prefixes, indexMaxScan);
+        if (candidateIds != null) {
+            query.estimate = candidateIds.size();
+            if (indexAuthoritative) {
+                query.empty = candidateIds.isEmpty();
+                if (candidateIds.size() <= indexMaxCandidates)
+                    query.spec = query.spec.and(AddressSpecifications.idIn(candidateIds));
+            }
+        }
+        return query;
+    }
+
+    private Map<Field, String> searchPrefixes(Address example) {
+        Map<Field, String> prefixes = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            String value = field.valueOf(example);
+            if (value != null && !value.isEmpty())
+                prefixes.put(field, AddressPrefixIndex.normalize(value));
+        }
+        return prefixes;
+    }
+
+    private static String countKey(Map<Field, String> prefixes) {
+        StringBuilder key = new StringBuilder();
+        prefixes.forEach((field, prefix) -> key.append(field.ordinal()).append(':').append(prefix).append('\0'));
+        return key.toString();
+    }
+
+    private static class SearchQuery {
+        Map<Field, String> prefixes;
+        Specification<Address> spec;
+        long estimate = -1;
+        boolean empty;
+    }
+
+}
@@ -0,0 +1,161 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import hu.bme.aut.logistics.index.AddressFingerprintIndex;
+import hu.bme.aut.logistics.index.AddressNormalizer;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.repository.AddressRepository;
+
+@Service
+public class AddressService {
+
+    private static final int UPSERT_LOCK_STRIPES = 64;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    AddressCache addressCache;
+
+    @Autowired
+    AddressFingerprintIndex fingerprintIndex;
+
+    // Held across JDBC calls, so not a monitor (see ExecutionConfiguration)
+    private final Lock[] upsertLocks = Stream.generate(ReentrantLock::new).limit(UPSERT_LOCK_STRIPES).toArray(Lock[]::new);
+
+    @PersistenceContext
+    EntityManager em;
+
+    public List<Address> findAll() {
+        return addressRepository.findAllByDeletedAtIsNull();
+    }
+
+    /**
+     * Passes every address to the consumer through a forward-only cursor,
+     * detaching each one afterwards so the persistence context stays empty.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Address> consumer) {
+        try (Stream<Address> addresses = addressRepository.streamAll()) {
+            addresses.forEach(address -> {
+                consumer.accept(address);
+                em.detach(address);
+            });
+        }
+    }
+
+    /**
+     * Served from {@link AddressCache}; every call returns its own copy of the
+     * address. Soft deleted addresses are not found.
+     */
+    public Optional<Address> findById(Long id) {
+        return addressCache.get(id, key -> addressRepository.findById(key)
+                .filter(address -> address.getDeletedAt() == null));
+    }
+
+    public AddressCache.Stats getCacheStats() {
+        return addressCache.getStats();
+    }
+
+    public boolean exists(Long id) {
+        return addressRepository.existsByIdAndDeletedAtIsNull(id);
+    }
+
+    public boolean isReferenced(Long id) {
+        return !addressRepository.findReferencedIds(List.of(id)).isEmpty();
+    }
+
+    @Transactional
+    public Address create(Address address) {
+        return addressRepository.save(address);
+    }
+
+    /**
+     * Returns the existing address with the same fingerprint as the given one,
+     * or inserts the normalized address if there is none. Must be called
+     * outside a transaction: the insert commits, and so reaches the fingerprint
+     * index, before the lock of its fingerprint is released. Index hits are
+     * checked against the stored address, so stale entries are skipped. Upserts
+     * on other nodes are not serialized; duplicates they cause are merged by
+     * {@link AddressDeduplicationService}.
+     */
+    public Address upsert(Address address) {
+        Address normalized = AddressNormalizer.normalize(address);
+        String fingerprint = AddressNormalizer.fingerprint(normalized);
+        Lock lock = upsertLocks[Math.floorMod(fingerprint.hashCode(), upsertLocks.length)];
+        lock.lock();
+        try {
+            for (Long id : fingerprintIndex.find(fingerprint)) {
+                Optional<Address> existing = addressRepository.findById(id)
+                        .filter(stored -> stored.getDeletedAt() == null && fingerprint.equals(AddressNormalizer.fingerprint(stored)));
+                if (existing.isPresent())
+                    return existing.get();
+            }
+            return addressRepository.save(normalized);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Transactional
+    public Address update(Address address) {
+        return addressRepository.save(address);
+    }
+
+    /**
+     * Updates the address only if its stored state, locked for the rest of the
+     * transaction, satisfies the precondition. Returns empty if it does not or
+     * the address no longer exists.
+     */
+    @Transactional
+    public Optional<Address> update(Address address, Predicate<Address> precondition) {
+        Address current = em.find(Address.class, address.getId(), LockModeType.PESSIMISTIC_WRITE);
+        if (current == null || !precondition.test(current))
+            return Optional.empty();
+        return Optional.of(addressRepository.save(address));
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        if (addressRepository.existsById(id))
+            addressRepository.deleteById(id);
+    }
+
+    /**
+     * Returns a validation error message for the address, or {@code null} if it
+     * can be stored.
+     */
+    public String findValidationError(Address address) {
+        if (isEmpty(address.getCountry()))
+            return "country is required";
+        if (isEmpty(address.getCity()))
+            return "city is required";
+        if (isEmpty(address.getZipCode()))
+            return "zipCode is required";
+        if (isEmpty(address.getStreet()))
+            return "street is required";
+        if (isEmpty(address.getNumber()))
+            return "number is required";
+        return null;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+}
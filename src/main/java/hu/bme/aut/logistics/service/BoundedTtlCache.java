@@ -0,0 +1,97 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache with a time to live, backing {@link AddressCache} and
+ * {@link AddressCountCache}. Every eviction bumps a generation counter, and a
+ * value loaded while the generation changed is returned but not stored, so a
+ * value read before a commit is never cached after that commit's eviction.
+ * Only present values are stored, so an absent one is loaded again next time.
+ */
+class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Map<K, Entry<V>> entries;
+
+    BoundedTtlCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > BoundedTtlCache.this.maxSize;
+            }
+        };
+    }
+
+    Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.incrementAndGet();
+                return Optional.of(entry.value);
+            }
+        }
+        misses.incrementAndGet();
+
+        long startGeneration = generation.get();
+        Optional<V> value = loader.apply(key);
+        if (value.isPresent()) {
+            synchronized (entries) {
+                if (generation.get() == startGeneration)
+                    entries.put(key, new Entry<>(value.get(), now + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    void evict(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.SectionRepository;
+
+/**
+ * In-memory ring buffer of the latest committed transport plan, section and
+ * milestone changes, numbered by a sequence that grows by one per change.
+ * Readers resume after the last sequence they saw; if that has already been
+ * overwritten they are told so and have to reload. Sequences restart from 1
+ * with the application, so the event ids given to clients also carry a random
+ * epoch of this instance; an id from another epoch (before a restart, or from
+ * another instance) cannot be resumed and makes the client reload as well.
+ */
+@Component
+public class ChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final ChangeFeedEntry[] buffer;
+    private final TransactionTemplate readTransaction;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private long lastSequence;
+
+    public ChangeFeed(PlatformTransactionManager transactionManager,
+            @Value("${logistics.change-feed.capacity:10000}") int capacity) {
+        buffer = new ChangeFeedEntry[capacity];
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Returns the sequence of an event id of this feed, or -1 if the id is from
+     * another epoch. Throws {@link IllegalArgumentException} if the id is
+     * malformed.
+     */
+    public long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator <= 0)
+            throw new IllegalArgumentException("invalid event id");
+        long sequence;
+        try {
+            sequence = Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid event id");
+        }
+        if (sequence < 0)
+            throw new IllegalArgumentException("invalid event id");
+        return epoch.equals(eventId.substring(0, separator)) ? sequence : -1;
+    }
+
+    /**
+     * Returns at most {@code limit} entries following {@code afterSequence}, or
+     * {@code null} if some of them are no longer in the buffer or the sequence
+     * is from another epoch (negative, see {@link #sequenceOf}).
+     */
+    public synchronized List<ChangeFeedEntry> readAfter(long afterSequence, int limit) {
+        if (afterSequence < 0 || afterSequence > lastSequence || afterSequence < lastSequence - buffer.length)
+            return null;
+        long end = Math.min(lastSequence, afterSequence + limit);
+        List<ChangeFeedEntry> entries = new ArrayList<>((int) (end - afterSequence));
+        for (long sequence = afterSequence + 1; sequence <= end; sequence++)
+            entries.add(buffer[(int) (sequence % buffer.length)]);
+        return entries;
+    }
+
+    /**
+     * Registers a callback run on the committing thread after new entries were
+     * appended. It must not block.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    @EventListener
+    public void onEntitiesChanged(EntitiesChangedEvent event) {
+        List<EntityChange> changes = new ArrayList<>();
+        Set<Long> milestoneIds = new HashSet<>();
+        for (EntityChange change : event.getChanges()) {
+            Object entity = change.getEntity();
+            if (entity instanceof TransportPlan || entity instanceof Section) {
+                changes.add(change);
+            } else if (entity instanceof Milestone) {
+                changes.add(change);
+                if (change.getType() != ChangeType.CREATED)
+                    milestoneIds.add(((Milestone) entity).getId());
+            }
+        }
+        if (changes.isEmpty())
+            return;
+
+        Map<Long, Set<Long>> planIdsByMilestoneId = findPlanIdsByMilestoneIds(milestoneIds);
+        synchronized (this) {
+            for (EntityChange change : changes)
+                append(change, planIdsByMilestoneId);
+        }
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Change feed listener failed", e);
+            }
+        }
+    }
+
+    private void append(EntityChange change, Map<Long, Set<Long>> planIdsByMilestoneId) {
+        long sequence = ++lastSequence;
+        Object entity = change.getEntity();
+        ChangeFeedEntry entry;
+        if (entity instanceof TransportPlan) {
+            TransportPlan plan = (TransportPlan) entity;
+            entry = new ChangeFeedEntry(sequence, change.getType(), "TransportPlan", plan.getId(),
+                    Set.of(plan.getId()), Set.of(), null);
+        } else if (entity instanceof Section) {
+            Section section = (Section) entity;
+            Set<Long> planIds = section.getTransportPlan() == null ? Set.of() : Set.of(section.getTransportPlan().getId());
+            Set<Long> addressIds = new HashSet<>();
+            addAddressId(addressIds, section.getFromMilestone());
+            addAddressId(addressIds, section.getToMilestone());
+            entry = new ChangeFeedEntry(sequence, change.getType(), "Section", section.getId(), planIds, addressIds,
+                    null);
+        } else {
+            Milestone milestone = (Milestone) entity;
+            Set<Long> addressIds = new HashSet<>();
+            addAddressId(addressIds, milestone);
+            entry = new ChangeFeedEntry(sequence, change.getType(), "Milestone", milestone.getId(),
+                    planIdsByMilestoneId.getOrDefault(milestone.getId(), Set.of()), addressIds,
+                    milestone.getPlannedTime());
+        }
+        buffer[(int) (sequence % buffer.length)] = entry;
+    }
+
+    private static void addAddressId(Set<Long> addressIds, Milestone milestone) {
+        if (milestone == null)
+            return;
+        Address address = milestone.getAddress();
+        if (address != null && address.getId() != null)
+            addressIds.add(address.getId());
+    }
+
+    private Map<Long, Set<Long>> findPlanIdsByMilestoneIds(Set<Long> milestoneIds) {
+        if (milestoneIds.isEmpty())
+            return Map.of();
+        return readTransaction.execute(status -> {
+            Map<Long, Set<Long>> planIds = new HashMap<>();
+            for (List<Long> chunk : IdChunks.of(milestoneIds)) {
+                for (Object[] row : sectionRepository.findChainRowsByMilestoneIds(chunk)) {
+                    Long planId = (Long) row[0];
+                    if (planId == null)
+                        continue;
+                    planIds.computeIfAbsent((Long) row[1], id -> new HashSet<>()).add(planId);
+                    planIds.computeIfAbsent((Long) row[2], id -> new HashSet<>()).add(planId);
+                }
+            }
+            return planIds;
+        });
+    }
+
+}
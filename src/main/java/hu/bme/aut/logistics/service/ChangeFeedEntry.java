@@ -0,0 +1,66 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import hu.bme.aut.logistics.event.ChangeType;
+
+/**
+ * One committed change of a transport plan, section or milestone as seen by
+ * change feed subscribers. Carries only ids; clients fetch the current state
+ * of the entities they are interested in.
+ */
+public class ChangeFeedEntry {
+
+    private final long sequence;
+    private final ChangeType type;
+    private final String entity;
+    private final Long entityId;
+    private final Set<Long> planIds;
+    private final Set<Long> addressIds;
+    private final LocalDateTime plannedTime;
+
+    public ChangeFeedEntry(long sequence, ChangeType type, String entity, Long entityId, Set<Long> planIds,
+            Set<Long> addressIds, LocalDateTime plannedTime) {
+        this.sequence = sequence;
+        this.type = type;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.planIds = Set.copyOf(planIds);
+        this.addressIds = Set.copyOf(addressIds);
+        this.plannedTime = plannedTime;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Set<Long> getPlanIds() {
+        return planIds;
+    }
+
+    public Set<Long> getAddressIds() {
+        return addressIds;
+    }
+
+    public LocalDateTime getPlannedTime() {
+        return plannedTime;
+    }
+
+    public boolean matches(Long planId, Long addressId) {
+        return (planId == null || planIds.contains(planId)) && (addressId == null || addressIds.contains(addressId));
+    }
+
+}
@@ -0,0 +1,122 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityNotFoundException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.repository.SectionRepository;
+
+/**
+ * Applies milestone delays to the delayed milestones and to every milestone
+ * after them in their transport plan, where the plan's milestones are ordered
+ * by section number, from milestone before to milestone.
+ */
+@Service
+public class DelayPropagationService {
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    /**
+     * Shifts the planned times in one transaction and returns the affected
+     * milestones ordered by id. Delays of the same milestone add up, and within
+     * a plan every milestone, a delayed one included, moves by the running sum
+     * of the delays up to and including it. The changed milestones are written by the flush at commit, so the
+     * updates are sent in JDBC batches.
+     *
+     * @throws EntityNotFoundException if a delayed milestone does not exist
+     */
+    @Transactional
+    public List<Milestone> registerDelays(Collection<MilestoneDelay> delays) {
+        Map<Long, Long> ownDelays = new HashMap<>();
+        for (MilestoneDelay delay : delays)
+            ownDelays.merge(delay.getMilestoneId(), delay.getMinutes(), Long::sum);
+
+        Map<Long, Long> shifts = new HashMap<>();
+        for (List<Long> chain : findChains(ownDelays.keySet())) {
+            long shift = 0;
+            for (Long milestoneId : chain) {
+                shift += ownDelays.getOrDefault(milestoneId, 0L);
+                if (shift != 0 || ownDelays.containsKey(milestoneId))
+                    shifts.merge(milestoneId, shift, DelayPropagationService::later);
+            }
+        }
+        // Not part of any section, so only moved by their own delay
+        ownDelays.forEach(shifts::putIfAbsent);
+
+        List<Milestone> milestones = new ArrayList<>(shifts.size());
+        for (List<Long> chunk : IdChunks.of(shifts.keySet()))
+            milestones.addAll(milestoneRepository.findWithAddressByIdIn(chunk));
+        if (milestones.size() < shifts.size())
+            throw new EntityNotFoundException("milestone not found: " + findMissing(ownDelays.keySet(), milestones));
+
+        for (Milestone milestone : milestones) {
+            long shift = shifts.get(milestone.getId());
+            if (milestone.getPlannedTime() != null && shift != 0)
+                milestone.setPlannedTime(milestone.getPlannedTime().plusMinutes(shift));
+        }
+        milestones.sort(Comparator.comparing(Milestone::getId));
+        return milestones;
+    }
+
+    /**
+     * Ordered milestone ids of each plan containing any of the given milestones.
+     */
+    private List<List<Long>> findChains(Set<Long> milestoneIds) {
+        Map<Long, Set<Long>> chainsByPlanId = new HashMap<>();
+        for (List<Long> chunk : IdChunks.of(milestoneIds)) {
+            Set<Long> seenInChunk = new HashSet<>();
+            for (Object[] row : sectionRepository.findChainRowsByMilestoneIds(chunk)) {
+                Long planId = (Long) row[0];
+                // A plan found by an earlier chunk is returned again whole
+                if (chainsByPlanId.containsKey(planId) && !seenInChunk.contains(planId))
+                    continue;
+                seenInChunk.add(planId);
+                Set<Long> chain = chainsByPlanId.computeIfAbsent(planId, id -> new LinkedHashSet<>());
+                if (row[1] != null)
+                    chain.add((Long) row[1]);
+                if (row[2] != null)
+                    chain.add((Long) row[2]);
+            }
+        }
+        List<List<Long>> chains = new ArrayList<>(chainsByPlanId.size());
+        for (Set<Long> chain : chainsByPlanId.values())
+            chains.add(new ArrayList<>(chain));
+        return chains;
+    }
+
+    /**
+     * A milestone shared by several plans moves by the latest shift any of them
+     * implies instead of the sum, which would count its own delay twice: it
+     * cannot be reached earlier than any of its plans allows.
+     */
+    private static Long later(Long a, Long b) {
+        return Math.max(a, b);
+    }
+
+    private static Set<Long> findMissing(Set<Long> ids, List<Milestone> found) {
+        Set<Long> missing = new HashSet<>(ids);
+        for (Milestone milestone : found)
+            missing.remove(milestone.getId());
+        return missing;
+    }
+
+}
@@ -0,0 +1,36 @@
+package hu.bme.aut.logistics.service;
+
+/**
+ * A registered slip of a milestone's planned time, in minutes. Negative values
+ * move the milestone earlier.
+ */
+public class MilestoneDelay {
+
+    private Long milestoneId;
+    private Long minutes;
+
+    public MilestoneDelay() {
+    }
+
+    public MilestoneDelay(Long milestoneId, Long minutes) {
+        this.milestoneId = milestoneId;
+        this.minutes = minutes;
+    }
+
+    public Long getMilestoneId() {
+        return milestoneId;
+    }
+
+    public void setMilestoneId(Long milestoneId) {
+        this.milestoneId = milestoneId;
+    }
+
+    public Long getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(Long minutes) {
+        this.minutes = minutes;
+    }
+
+}
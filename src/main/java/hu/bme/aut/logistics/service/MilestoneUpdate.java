@@ -0,0 +1,40 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * An update of a milestone's planned time: a new absolute time, a delay in
+ * minutes to propagate through its plan, or both (the delay applies after the
+ * new time).
+ */
+public class MilestoneUpdate {
+
+    private Long milestoneId;
+    private LocalDateTime plannedTime;
+    private Long delayMinutes;
+
+    public Long getMilestoneId() {
+        return milestoneId;
+    }
+
+    public void setMilestoneId(Long milestoneId) {
+        this.milestoneId = milestoneId;
+    }
+
+    public LocalDateTime getPlannedTime() {
+        return plannedTime;
+    }
+
+    public void setPlannedTime(LocalDateTime plannedTime) {
+        this.plannedTime = plannedTime;
+    }
+
+    public Long getDelayMinutes() {
+        return delayMinutes;
+    }
+
+    public void setDelayMinutes(Long delayMinutes) {
+        this.delayMinutes = delayMinutes;
+    }
+
+}
@@ -0,0 +1,426 @@
+package hu.bme.aut.logistics.service;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+
+/**
+ * Write-behind buffer of milestone updates. Updates of the same milestone are
+ * coalesced while pending: a new planned time replaces the previous one and
+ * delays add up. The pending milestones are written on a schedule, in arrival
+ * order, one transaction per batch; a failing batch is retried milestone by
+ * milestone so one bad update does not lose the others.
+ * <p>
+ * Only updates that fail for good, such as those of milestones that no longer
+ * exist, are dropped. When the database cannot be reached the unwritten
+ * updates go back to the head of the queue, ahead of and coalesced with the
+ * updates that arrived since, and flushing pauses for a backoff that doubles
+ * with every consecutive failure. Such updates were accepted already, so they
+ * are queued again even beyond the capacity.
+ */
+@Component
+public class MilestoneUpdateQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(MilestoneUpdateQueue.class);
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    DelayPropagationService delayPropagationService;
+
+    private final int capacity;
+    private final int batchSize;
+    private final long retryBackoffNanos;
+    private final long maxRetryBackoffNanos;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Pending> pending = new LinkedHashMap<>();
+    // Held across the batch writes, so not a monitor (see ExecutionConfiguration)
+    private final Lock flushLock = new ReentrantLock();
+    // Guarded by flushLock
+    private int consecutiveRetries;
+    private long retryAt;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    public MilestoneUpdateQueue(PlatformTransactionManager transactionManager,
+            @Value("${logistics.milestone-updates.capacity:10000}") int capacity,
+            @Value("${logistics.milestone-updates.batch-size:500}") int batchSize,
+            @Value("${logistics.milestone-updates.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${logistics.milestone-updates.max-retry-backoff:1m}") Duration maxRetryBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.retryBackoffNanos = retryBackoff.toNanos();
+        this.maxRetryBackoffNanos = maxRetryBackoff.toNanos();
+    }
+
+    /**
+     * Queues all updates, or none of them if the milestones not pending yet
+     * would not fit.
+     */
+    public boolean offer(Collection<MilestoneUpdate> updates) {
+        synchronized (pending) {
+            long newMilestones = updates.stream()
+                    .map(MilestoneUpdate::getMilestoneId)
+                    .filter(id -> !pending.containsKey(id))
+                    .distinct()
+                    .count();
+            if (pending.size() + newMilestones > capacity) {
+                rejected.addAndGet(updates.size());
+                return false;
+            }
+            for (MilestoneUpdate update : updates) {
+                Pending entry = pending.get(update.getMilestoneId());
+                if (entry == null)
+                    pending.put(update.getMilestoneId(), new Pending(update));
+                else {
+                    entry.merge(update);
+                    coalesced.incrementAndGet();
+                }
+            }
+            accepted.addAndGet(updates.size());
+            return true;
+        }
+    }
+
+    /**
+     * Writes the pending updates batch by batch, unless waiting out the backoff
+     * after the database could not be reached. Stops at the first batch that
+     * cannot be written for that reason.
+     */
+    @Scheduled(fixedDelayString = "${logistics.milestone-updates.flush-interval:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (consecutiveRetries > 0 && System.nanoTime() - retryAt < 0)
+                return;
+            Map<Long, Pending> batch;
+            while (!(batch = takeBatch()).isEmpty()) {
+                long start = System.nanoTime();
+                boolean reachable = write(batch);
+                recordFlush(System.nanoTime() - start);
+                if (!reachable) {
+                    backOff();
+                    return;
+                }
+                consecutiveRetries = 0;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            consecutiveRetries = 0;
+            flush();
+            int lost = getStats().getDepth();
+            if (lost > 0)
+                log.warn("Losing updates of {} milestones, the database could not be reached on shutdown", lost);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        int depth;
+        synchronized (pending) {
+            depth = pending.size();
+        }
+        long flushCount = flushes.get();
+        return new Stats(depth, capacity, accepted.get(), coalesced.get(), rejected.get(), written.get(),
+                failed.get(), retried.get(), flushCount, lastFlushNanos / 1_000_000.0,
+                flushCount == 0 ? 0 : totalFlushNanos.get() / 1_000_000.0 / flushCount,
+                maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    private Map<Long, Pending> takeBatch() {
+        Map<Long, Pending> batch = new LinkedHashMap<>();
+        synchronized (pending) {
+            Iterator<Map.Entry<Long, Pending>> entries = pending.entrySet().iterator();
+            while (entries.hasNext() && batch.size() < batchSize) {
+                Map.Entry<Long, Pending> entry = entries.next();
+                batch.put(entry.getKey(), entry.getValue());
+                entries.remove();
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Returns false if the database could not be reached, in which case the
+     * updates not written are queued again.
+     */
+    private boolean write(Map<Long, Pending> batch) {
+        RuntimeException failure = tryWrite(batch);
+        if (failure == null)
+            return true;
+        if (isTransient(failure)) {
+            requeue(batch, failure);
+            return false;
+        }
+        if (batch.size() == 1) {
+            drop(batch.keySet().iterator().next(), failure);
+            return true;
+        }
+
+        Map<Long, Pending> remaining = new LinkedHashMap<>(batch);
+        Iterator<Map.Entry<Long, Pending>> entries = remaining.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, Pending> entry = entries.next();
+            failure = tryWrite(Map.of(entry.getKey(), entry.getValue()));
+            if (failure != null && isTransient(failure)) {
+                requeue(remaining, failure);
+                return false;
+            }
+            entries.remove();
+            if (failure != null)
+                drop(entry.getKey(), failure);
+        }
+        return true;
+    }
+
+    private RuntimeException tryWrite(Map<Long, Pending> batch) {
+        try {
+            Set<Long> missingIds = transactionTemplate.execute(status -> apply(batch));
+            written.addAndGet(batch.size() - missingIds.size());
+            for (Long id : missingIds)
+                drop(id, null);
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private void drop(Long milestoneId, RuntimeException failure) {
+        failed.incrementAndGet();
+        if (failure == null)
+            log.warn("Dropping update of milestone {}, it does not exist", milestoneId);
+        else
+            log.warn("Dropping update of milestone {}", milestoneId, failure);
+    }
+
+    /**
+     * Puts the updates back at the head of the queue. An update of the same
+     * milestone that arrived since was made later, so it is applied on top.
+     */
+    private void requeue(Map<Long, Pending> updates, RuntimeException failure) {
+        retried.addAndGet(updates.size());
+        log.warn("Could not write updates of {} milestones, retrying later", updates.size(), failure);
+        synchronized (pending) {
+            Map<Long, Pending> requeued = new LinkedHashMap<>(updates);
+            pending.forEach((id, newer) -> requeued.merge(id, newer, Pending::then));
+            pending.clear();
+            pending.putAll(requeued);
+        }
+    }
+
+    private void backOff() {
+        long backoff = retryBackoffNanos;
+        for (int i = 0; i < consecutiveRetries && backoff < maxRetryBackoffNanos; i++)
+            backoff *= 2;
+        retryAt = System.nanoTime() + Math.min(backoff, maxRetryBackoffNanos);
+        consecutiveRetries++;
+    }
+
+    /**
+     * The database or the connection to it failed, so the same statements may
+     * succeed later; anything else, a missing milestone or a violated
+     * constraint, will fail again.
+     */
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException || cause instanceof SQLRecoverableException)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ids of the retimed milestones that do not exist; delays of
+     * missing milestones fail the transaction instead.
+     */
+    private Set<Long> apply(Map<Long, Pending> batch) {
+        List<Long> retimedIds = new ArrayList<>();
+        List<MilestoneDelay> delays = new ArrayList<>();
+        batch.forEach((id, update) -> {
+            if (update.plannedTime != null)
+                retimedIds.add(id);
+            if (update.delayMinutes != 0)
+                delays.add(new MilestoneDelay(id, update.delayMinutes));
+        });
+        Set<Long> missingIds = new HashSet<>(retimedIds);
+        for (List<Long> chunk : IdChunks.of(retimedIds)) {
+            for (Milestone milestone : milestoneRepository.findAllById(chunk)) {
+                milestone.setPlannedTime(batch.get(milestone.getId()).plannedTime);
+                missingIds.remove(milestone.getId());
+            }
+        }
+        if (!delays.isEmpty())
+            delayPropagationService.registerDelays(delays);
+        return missingIds;
+    }
+
+    private void recordFlush(long nanos) {
+        flushes.incrementAndGet();
+        lastFlushNanos = nanos;
+        totalFlushNanos.addAndGet(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static class Pending {
+        LocalDateTime plannedTime;
+        long delayMinutes;
+
+        Pending(MilestoneUpdate update) {
+            merge(update);
+        }
+
+        void merge(MilestoneUpdate update) {
+            if (update.getPlannedTime() != null) {
+                plannedTime = update.getPlannedTime();
+                delayMinutes = 0;
+            }
+            if (update.getDelayMinutes() != null)
+                delayMinutes += update.getDelayMinutes();
+        }
+
+        /**
+         * This update followed by the newer one.
+         */
+        Pending then(Pending newer) {
+            if (newer.plannedTime != null) {
+                plannedTime = newer.plannedTime;
+                delayMinutes = newer.delayMinutes;
+            } else
+                delayMinutes += newer.delayMinutes;
+            return this;
+        }
+    }
+
+    public static class Stats {
+        private final int depth;
+        private final int capacity;
+        private final long accepted;
+        private final long coalesced;
+        private final long rejected;
+        private final long written;
+        private final long failed;
+        private final long retried;
+        private final long flushes;
+        private final double lastFlushMillis;
+        private final double averageFlushMillis;
+        private final double maxFlushMillis;
+
+        Stats(int depth, int capacity, long accepted, long coalesced, long rejected, long written, long failed,
+                long retried, long flushes, double lastFlushMillis, double averageFlushMillis, double maxFlushMillis) {
+            this.depth = depth;
+            this.capacity = capacity;
+            this.accepted = accepted;
+            this.coalesced = coalesced;
+            this.rejected = rejected;
+            this.written = written;
+            this.failed = failed;
+            this.retried = retried;
+            this.flushes = flushes;
+            this.lastFlushMillis = lastFlushMillis;
+            this.averageFlushMillis = averageFlushMillis;
+            this.maxFlushMillis = maxFlushMillis;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getRetried() {
+            return retried;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public double getLastFlushMillis() {
+            return lastFlushMillis;
+        }
+
+        public double getAverageFlushMillis() {
+            return averageFlushMillis;
+        }
+
+        public double getMaxFlushMillis() {
+            return maxFlushMillis;
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package hu.bme.aut.logistics.service;
+
+import hu.bme.aut.logistics.model.Address;
+
+public class NearbyAddress {
+
+    private final Address address;
+    private final double distanceKm;
+
+    public NearbyAddress(Address address, double distanceKm) {
+        this.address = address;
+        this.distanceKm = distanceKm;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+}
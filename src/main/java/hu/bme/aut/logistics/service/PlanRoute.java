@@ -0,0 +1,53 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.List;
+
+/**
+ * Route metrics of a transport plan: the length is the sum of the section
+ * distances, the duration spans from the first departure to the final
+ * arrival, so the average speed includes the time spent at milestones.
+ */
+public class PlanRoute {
+
+    private final Long transportPlanId;
+    private final List<SectionRoute> sections;
+    private final Double totalDistanceKm;
+    private final Long totalDurationMinutes;
+    private final Double averageSpeedKmh;
+
+    public PlanRoute(Long transportPlanId, List<SectionRoute> sections, Double totalDistanceKm,
+            Long totalDurationMinutes) {
+        this.transportPlanId = transportPlanId;
+        this.sections = sections;
+        this.totalDistanceKm = totalDistanceKm;
+        this.totalDurationMinutes = totalDurationMinutes;
+        this.averageSpeedKmh = speedKmh(totalDistanceKm, totalDurationMinutes);
+    }
+
+    static Double speedKmh(Double distanceKm, Long durationMinutes) {
+        if (distanceKm == null || durationMinutes == null || durationMinutes <= 0)
+            return null;
+        return distanceKm * 60 / durationMinutes;
+    }
+
+    public Long getTransportPlanId() {
+        return transportPlanId;
+    }
+
+    public List<SectionRoute> getSections() {
+        return sections;
+    }
+
+    public Double getTotalDistanceKm() {
+        return totalDistanceKm;
+    }
+
+    public Long getTotalDurationMinutes() {
+        return totalDurationMinutes;
+    }
+
+    public Double getAverageSpeedKmh() {
+        return averageSpeedKmh;
+    }
+
+}
@@ -0,0 +1,298 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import hu.bme.aut.logistics.index.GeoDistance;
+import hu.bme.aut.logistics.index.PlanGraph;
+import hu.bme.aut.logistics.index.PlanGraphSnapshot;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+
+/**
+ * Computes section distances, plan lengths and implied speeds. Distances come
+ * from {@link SectionDistanceCache}; the missing ones of a whole batch of plans
+ * are computed together over primitive arrays. Plans looked up by id are read
+ * from the {@link PlanGraph} snapshot where it holds them current.
+ */
+@Service
+public class RouteMetricsService {
+
+    @Autowired
+    TransportPlanService transportPlanService;
+
+    @Autowired
+    SectionDistanceCache distanceCache;
+
+    @Autowired
+    PlanGraph planGraph;
+
+    /**
+     * Route metrics of the plans in the order of the given ids, skipping
+     * unknown ids. Plans changed since the last refresh of the plan graph are
+     * loaded from the database with their section graph.
+     */
+    public List<PlanRoute> findRoutes(List<Long> planIds) {
+        Set<Long> loadedIds = new HashSet<>();
+        List<Long> snapshotIds = new ArrayList<>();
+        for (Long planId : planIds) {
+            if (planGraph.isCurrent(planId))
+                snapshotIds.add(planId);
+            else
+                loadedIds.add(planId);
+        }
+        // Taken after the checks, so it is at least as new as the one they saw
+        PlanGraphSnapshot snapshot = planGraph.getSnapshot();
+
+        Map<Long, PlanRoute> routesById = new HashMap<>();
+        for (PlanRoute route : computeRoutes(snapshot, snapshotIds))
+            routesById.put(route.getTransportPlanId(), route);
+        if (!loadedIds.isEmpty()) {
+            for (PlanRoute route : computeRoutes(transportPlanService.loadGraphs(new ArrayList<>(loadedIds))))
+                routesById.put(route.getTransportPlanId(), route);
+        }
+        List<PlanRoute> routes = new ArrayList<>(planIds.size());
+        for (Long planId : planIds) {
+            PlanRoute route = routesById.get(planId);
+            if (route != null)
+                routes.add(route);
+        }
+        return routes;
+    }
+
+    /**
+     * Sets the route metrics on plans and their sections whose milestones and
+     * addresses are loaded, so the plan representation carries them.
+     */
+    public void attachRoutes(List<TransportPlan> plans) {
+        List<PlanRoute> routes = computeRoutes(plans);
+        for (int i = 0; i < plans.size(); i++) {
+            TransportPlan plan = plans.get(i);
+            PlanRoute route = routes.get(i);
+            plan.setTotalDistanceKm(route.getTotalDistanceKm());
+            plan.setTotalDurationMinutes(route.getTotalDurationMinutes());
+            plan.setAverageSpeedKmh(route.getAverageSpeedKmh());
+            for (int j = 0; j < route.getSections().size(); j++)
+                plan.getSections().get(j).setDistanceKm(route.getSections().get(j).getDistanceKm());
+        }
+    }
+
+    /**
+     * Route metrics of plans whose sections, milestones and addresses are
+     * loaded.
+     */
+    public List<PlanRoute> computeRoutes(List<TransportPlan> plans) {
+        List<Section> sections = new ArrayList<>();
+        for (TransportPlan plan : plans) {
+            if (plan.getSections() != null)
+                sections.addAll(plan.getSections());
+        }
+        double[] distances = computeDistances(sections);
+
+        List<PlanRoute> routes = new ArrayList<>(plans.size());
+        int index = 0;
+        for (TransportPlan plan : plans) {
+            List<Section> planSections = plan.getSections() == null ? List.of() : plan.getSections();
+            List<SectionRoute> sectionRoutes = new ArrayList<>(planSections.size());
+            double total = 0;
+            boolean complete = true;
+            for (Section section : planSections) {
+                double distance = distances[index++];
+                if (Double.isNaN(distance))
+                    complete = false;
+                else
+                    total += distance;
+                sectionRoutes.add(new SectionRoute(section.getId(), section.getNumber(),
+                        Double.isNaN(distance) ? null : distance,
+                        minutesBetween(departure(section), arrival(section))));
+            }
+            Long duration = planSections.isEmpty() ? null
+                    : minutesBetween(departure(planSections.get(0)), arrival(planSections.get(planSections.size() - 1)));
+            routes.add(new PlanRoute(plan.getId(), sectionRoutes, complete ? total : null, duration));
+        }
+        return routes;
+    }
+
+    /**
+     * Route metrics of the snapshot's plans with the given ids, without
+     * touching an entity.
+     */
+    private List<PlanRoute> computeRoutes(PlanGraphSnapshot snapshot, List<Long> planIds) {
+        int[] plans = new int[planIds.size()];
+        int sectionCount = 0;
+        for (int i = 0; i < plans.length; i++) {
+            plans[i] = snapshot.indexOfPlan(planIds.get(i));
+            if (plans[i] >= 0)
+                sectionCount += snapshot.sectionEnd(plans[i]) - snapshot.sectionStart(plans[i]);
+        }
+
+        double[] distances = new double[sectionCount];
+        int[] indexes = new int[sectionCount];
+        long[] fromIds = new long[sectionCount];
+        long[] toIds = new long[sectionCount];
+        double[] lat1 = new double[sectionCount];
+        double[] lng1 = new double[sectionCount];
+        double[] lat2 = new double[sectionCount];
+        double[] lng2 = new double[sectionCount];
+        int located = 0;
+        int index = 0;
+        for (int plan : plans) {
+            if (plan < 0)
+                continue;
+            for (int section = snapshot.sectionStart(plan); section < snapshot.sectionEnd(plan); section++, index++) {
+                int from = PlanGraphSnapshot.fromEnd(section);
+                int to = PlanGraphSnapshot.toEnd(section);
+                distances[index] = Double.NaN;
+                if (!hasCoordinates(snapshot, from) || !hasCoordinates(snapshot, to))
+                    continue;
+                fromIds[located] = snapshot.addressId(from);
+                toIds[located] = snapshot.addressId(to);
+                lat1[located] = snapshot.lat(from);
+                lng1[located] = snapshot.lng(from);
+                lat2[located] = snapshot.lat(to);
+                lng2[located] = snapshot.lng(to);
+                indexes[located++] = index;
+            }
+        }
+        fillDistances(fromIds, toIds, lat1, lng1, lat2, lng2, indexes, located, distances);
+
+        List<PlanRoute> routes = new ArrayList<>(plans.length);
+        index = 0;
+        for (int plan : plans) {
+            if (plan < 0)
+                continue;
+            int start = snapshot.sectionStart(plan);
+            int end = snapshot.sectionEnd(plan);
+            List<SectionRoute> sectionRoutes = new ArrayList<>(end - start);
+            double total = 0;
+            boolean complete = true;
+            for (int section = start; section < end; section++) {
+                double distance = distances[index++];
+                if (Double.isNaN(distance))
+                    complete = false;
+                else
+                    total += distance;
+                sectionRoutes.add(new SectionRoute(snapshot.sectionId(section), snapshot.sectionNumber(section),
+                        Double.isNaN(distance) ? null : distance,
+                        minutesBetween(snapshot.plannedTime(PlanGraphSnapshot.fromEnd(section)),
+                                snapshot.plannedTime(PlanGraphSnapshot.toEnd(section)))));
+            }
+            Long duration = start == end ? null
+                    : minutesBetween(snapshot.plannedTime(PlanGraphSnapshot.fromEnd(start)),
+                            snapshot.plannedTime(PlanGraphSnapshot.toEnd(end - 1)));
+            routes.add(new PlanRoute(snapshot.planId(plan), sectionRoutes, complete ? total : null, duration));
+        }
+        return routes;
+    }
+
+    /**
+     * Distances of the sections in order, {@code NaN} where an address or a
+     * coordinate is missing.
+     */
+    private double[] computeDistances(List<Section> sections) {
+        int count = sections.size();
+        double[] distances = new double[count];
+        int[] indexes = new int[count];
+        long[] fromIds = new long[count];
+        long[] toIds = new long[count];
+        double[] lat1 = new double[count];
+        double[] lng1 = new double[count];
+        double[] lat2 = new double[count];
+        double[] lng2 = new double[count];
+        int located = 0;
+
+        for (int i = 0; i < count; i++) {
+            Address from = address(sections.get(i).getFromMilestone());
+            Address to = address(sections.get(i).getToMilestone());
+            distances[i] = Double.NaN;
+            if (!hasCoordinates(from) || !hasCoordinates(to))
+                continue;
+            fromIds[located] = from.getId();
+            toIds[located] = to.getId();
+            lat1[located] = from.getGeoLat();
+            lng1[located] = from.getGeoLng();
+            lat2[located] = to.getGeoLat();
+            lng2[located] = to.getGeoLng();
+            indexes[located++] = i;
+        }
+        fillDistances(fromIds, toIds, lat1, lng1, lat2, lng2, indexes, located, distances);
+        return distances;
+    }
+
+    /**
+     * Writes the distances of the first {@code located} address pairs to
+     * {@code distances} at their indexes. Cache misses are compacted to the
+     * front of the arrays, computed in one pass and stored in one batch.
+     */
+    private void fillDistances(long[] fromIds, long[] toIds, double[] lat1, double[] lng1, double[] lat2,
+            double[] lng2, int[] indexes, int located, double[] distances) {
+        double[] cached = new double[located];
+        distanceCache.get(fromIds, toIds, lat1, lng1, lat2, lng2, cached, located);
+        int missing = 0;
+        for (int j = 0; j < located; j++) {
+            if (!Double.isNaN(cached[j])) {
+                distances[indexes[j]] = cached[j];
+                continue;
+            }
+            fromIds[missing] = fromIds[j];
+            toIds[missing] = toIds[j];
+            lat1[missing] = lat1[j];
+            lng1[missing] = lng1[j];
+            lat2[missing] = lat2[j];
+            lng2[missing] = lng2[j];
+            indexes[missing++] = indexes[j];
+        }
+
+        double[] computed = new double[missing];
+        GeoDistance.haversineKm(lat1, lng1, lat2, lng2, computed, missing);
+        distanceCache.put(fromIds, toIds, lat1, lng1, lat2, lng2, computed, missing);
+        for (int j = 0; j < missing; j++)
+            distances[indexes[j]] = computed[j];
+    }
+
+    private static Address address(Milestone milestone) {
+        return milestone == null ? null : milestone.getAddress();
+    }
+
+    private static boolean hasCoordinates(Address address) {
+        return address != null && address.getId() != null && address.getGeoLat() != null
+                && address.getGeoLng() != null;
+    }
+
+    private static boolean hasCoordinates(PlanGraphSnapshot snapshot, int end) {
+        return snapshot.addressId(end) != PlanGraphSnapshot.NO_ID && !Double.isNaN(snapshot.lat(end))
+                && !Double.isNaN(snapshot.lng(end));
+    }
+
+    private static LocalDateTime departure(Section section) {
+        return section.getFromMilestone() == null ? null : section.getFromMilestone().getPlannedTime();
+    }
+
+    private static LocalDateTime arrival(Section section) {
+        return section.getToMilestone() == null ? null : section.getToMilestone().getPlannedTime();
+    }
+
+    private static Long minutesBetween(long fromEpochSecond, long toEpochSecond) {
+        if (fromEpochSecond == PlanGraphSnapshot.NO_TIME || toEpochSecond == PlanGraphSnapshot.NO_TIME)
+            return null;
+        return (toEpochSecond - fromEpochSecond) / 60;
+    }
+
+    private static Long minutesBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null)
+            return null;
+        return Duration.between(from, to).toMinutes();
+    }
+
+}
@@ -0,0 +1,176 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Bounded LRU cache of section distances keyed by the ids of the addresses of
+ * the section's milestones. A committed change of an address evicts exactly the
+ * entries touching it, so only the affected sections are computed again. Each
+ * entry also remembers the coordinates it was computed from and is only used
+ * while the addresses still have them, which covers writes the change events
+ * do not see.
+ * <p>
+ * Lookups and stores take whole batches of sections as parallel arrays, so a
+ * batch takes the monitor twice instead of twice per section.
+ */
+@Component
+public class SectionDistanceCache {
+
+    private final int maxSize;
+    private final Map<Key, Entry> entries;
+    private final Map<Long, Set<Key>> keysByAddressId = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SectionDistanceCache(@Value("${logistics.route-metrics.distance-cache.max-size:100000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= SectionDistanceCache.this.maxSize)
+                    return false;
+                unlink(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Writes the cached distance of each of the first {@code count} address
+     * pairs to {@code distancesKm}, or {@code NaN} if it is missing or was
+     * computed from other coordinates.
+     */
+    public void get(long[] fromAddressIds, long[] toAddressIds, double[] lat1, double[] lng1, double[] lat2,
+            double[] lng2, double[] distancesKm, int count) {
+        int hitCount = 0;
+        synchronized (entries) {
+            for (int i = 0; i < count; i++) {
+                Entry entry = entries.get(new Key(fromAddressIds[i], toAddressIds[i]));
+                if (entry != null && entry.lat1 == lat1[i] && entry.lng1 == lng1[i] && entry.lat2 == lat2[i]
+                        && entry.lng2 == lng2[i]) {
+                    distancesKm[i] = entry.distanceKm;
+                    hitCount++;
+                } else
+                    distancesKm[i] = Double.NaN;
+            }
+        }
+        hits.addAndGet(hitCount);
+        misses.addAndGet(count - hitCount);
+    }
+
+    public void put(long[] fromAddressIds, long[] toAddressIds, double[] lat1, double[] lng1, double[] lat2,
+            double[] lng2, double[] distancesKm, int count) {
+        synchronized (entries) {
+            for (int i = 0; i < count; i++) {
+                Key key = new Key(fromAddressIds[i], toAddressIds[i]);
+                entries.put(key, new Entry(lat1[i], lng1[i], lat2[i], lng2[i], distancesKm[i]));
+                keysByAddressId.computeIfAbsent(key.fromAddressId, id -> new HashSet<>()).add(key);
+                keysByAddressId.computeIfAbsent(key.toAddressId, id -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    /**
+     * Evicts the distances of every section starting or ending at the address.
+     */
+    public void evictAddress(long addressId) {
+        synchronized (entries) {
+            Set<Key> keys = keysByAddressId.remove(addressId);
+            if (keys == null)
+                return;
+            for (Key key : keys) {
+                entries.remove(key);
+                long otherId = key.fromAddressId == addressId ? key.toAddressId : key.fromAddressId;
+                Set<Key> otherKeys = keysByAddressId.get(otherId);
+                if (otherKeys != null && otherKeys.remove(key) && otherKeys.isEmpty())
+                    keysByAddressId.remove(otherId);
+            }
+        }
+    }
+
+    @EventListener
+    public void onEntitiesChanged(EntitiesChangedEvent event) {
+        for (EntityChange change : event.getChanges(Address.class)) {
+            Long id = ((Address) change.getEntity()).getId();
+            if (id != null)
+                evictAddress(id);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Called with the monitor of entries held
+    private void unlink(Key key) {
+        for (long addressId : new long[] { key.fromAddressId, key.toAddressId }) {
+            Set<Key> keys = keysByAddressId.get(addressId);
+            if (keys != null && keys.remove(key) && keys.isEmpty())
+                keysByAddressId.remove(addressId);
+        }
+    }
+
+    private static class Key {
+        final long fromAddressId;
+        final long toAddressId;
+
+        Key(long fromAddressId, long toAddressId) {
+            this.fromAddressId = fromAddressId;
+            this.toAddressId = toAddressId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fromAddressId, toAddressId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return fromAddressId == other.fromAddressId && toAddressId == other.toAddressId;
+        }
+    }
+
+    private static class Entry {
+        final double lat1;
+        final double lng1;
+        final double lat2;
+        final double lng2;
+        final double distanceKm;
+
+        Entry(double lat1, double lng1, double lat2, double lng2, double distanceKm) {
+            this.lat1 = lat1;
+            this.lng1 = lng1;
+            this.lat2 = lat2;
+            this.lng2 = lng2;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package hu.bme.aut.logistics.service;
+
+/**
+ * Distance and planned travel time of a section. Values that cannot be derived
+ * because of missing coordinates or planned times are {@code null}.
+ */
+public class SectionRoute {
+
+    private final Long sectionId;
+    private final int number;
+    private final Double distanceKm;
+    private final Long durationMinutes;
+    private final Double averageSpeedKmh;
+
+    public SectionRoute(Long sectionId, int number, Double distanceKm, Long durationMinutes) {
+        this.sectionId = sectionId;
+        this.number = number;
+        this.distanceKm = distanceKm;
+        this.durationMinutes = durationMinutes;
+        this.averageSpeedKmh = PlanRoute.speedKmh(distanceKm, durationMinutes);
+    }
+
+    public Long getSectionId() {
+        return sectionId;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public Double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public Long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public Double getAverageSpeedKmh() {
+        return averageSpeedKmh;
+    }
+
+}
@@ -0,0 +1,60 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk plan creation: the id of every plan in request order,
+ * {@code null} for plans not created, and the reason for each of those.
+ */
+public class TransportPlanBulkResult {
+
+    private int created;
+    private final List<Long> planIds = new ArrayList<>();
+    private final List<PlanError> errors = new ArrayList<>();
+
+    public int getCreated() {
+        return created;
+    }
+
+    public List<Long> getPlanIds() {
+        return planIds;
+    }
+
+    public List<PlanError> getErrors() {
+        return errors;
+    }
+
+    void setPlanId(int index, Long id) {
+        while (planIds.size() <= index)
+            planIds.add(null);
+        planIds.set(index, id);
+        if (id != null)
+            created++;
+    }
+
+    void addError(int index, String message) {
+        setPlanId(index, null);
+        errors.add(new PlanError(index, message));
+    }
+
+    public static class PlanError {
+
+        private final int index;
+        private final String message;
+
+        public PlanError(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package hu.bme.aut.logistics.service;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.IdChunks;
+
+/**
+ * Creates whole transport plans in chunks, each chunk in its own transaction.
+ * Plans are validated on their own first; the addresses of a chunk are then
+ * loaded with one query per chunk of ids. Milestones, the plan and its sections
+ * are persisted once each, with the plan set on the sections before insert,
+ * and ids come from pooled sequences, so the chunk goes out as ordered JDBC
+ * insert batches. The planned time range of the new plans is then computed from
+ * the inserted milestones by {@link TransportPlanTimeRangeUpdater}, in the
+ * chunk's transaction. A failing chunk is rolled back and reported plan by
+ * plan; chunks committed before it are kept.
+ */
+@Service
+public class TransportPlanBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransportPlanBulkService.class);
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    TransportPlanTimeRangeUpdater timeRangeUpdater;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Value("${logistics.transport-plan-import.chunk-size:500}")
+    int chunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TransportPlanBulkService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Reading stops at the first draft that cannot be read, signalled by the
+     * iterator with an {@link UncheckedIOException}.
+     */
+    public TransportPlanBulkResult create(Iterator<TransportPlanDraft> drafts) {
+        TransportPlanBulkResult result = new TransportPlanBulkResult();
+        List<IndexedDraft> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try {
+            for (; drafts.hasNext(); index++) {
+                TransportPlanDraft draft = drafts.next();
+                String error = validationError(draft);
+                if (error != null) {
+                    result.addError(index, error);
+                    continue;
+                }
+                chunk.add(new IndexedDraft(index, draft));
+                if (chunk.size() == chunkSize) {
+                    insertChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            result.addError(index, "malformed JSON, import stopped: " + e.getCause().getMessage());
+        }
+        if (!chunk.isEmpty())
+            insertChunk(chunk, result);
+        return result;
+    }
+
+    /**
+     * Returns why the plan cannot be created, or {@code null}. Sections must be
+     * listed in order and the planned times must not decrease along the plan.
+     */
+    static String validationError(TransportPlanDraft draft) {
+        if (draft == null)
+            return "plan is empty";
+        if (draft.getSections() == null || draft.getSections().isEmpty())
+            return "sections are required";
+        TransportPlanDraft.MilestoneDraft previousArrival = null;
+        for (int i = 0; i < draft.getSections().size(); i++) {
+            TransportPlanDraft.SectionDraft section = draft.getSections().get(i);
+            if (section == null)
+                return "section " + i + " is empty";
+            if (section.getNumber() != null && section.getNumber() != i)
+                return "section " + i + " has number " + section.getNumber() + ", sections must be numbered in order from 0";
+            if (section.getFrom() == null || section.getTo() == null)
+                return "section " + i + " needs from and to milestones";
+            if (section.getFrom().getPlannedTime() == null || section.getTo().getPlannedTime() == null)
+                return "section " + i + " milestones need a plannedTime";
+            if (section.getTo().getPlannedTime().isBefore(section.getFrom().getPlannedTime()))
+                return "section " + i + " arrives before it departs";
+            if (previousArrival != null && section.getFrom().getPlannedTime().isBefore(previousArrival.getPlannedTime()))
+                return "section " + i + " departs before section " + (i - 1) + " arrives";
+            previousArrival = section.getTo();
+        }
+        return null;
+    }
+
+    private void insertChunk(List<IndexedDraft> chunk, TransportPlanBulkResult result) {
+        List<IndexedDraft> valid = new ArrayList<>(chunk.size());
+        List<TransportPlan> plans = new ArrayList<>(chunk.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, Address> addresses = loadAddresses(chunk);
+                for (IndexedDraft indexed : chunk) {
+                    Long unknownId = findUnknownAddressId(indexed.draft, addresses);
+                    if (unknownId != null) {
+                        result.addError(indexed.index, "address " + unknownId + " does not exist");
+                        continue;
+                    }
+                    plans.add(persist(indexed.draft, addresses));
+                    valid.add(indexed);
+                }
+                em.flush();
+                timeRangeUpdater.update(plans.stream().map(TransportPlan::getId).collect(Collectors.toList()));
+            });
+            for (int i = 0; i < valid.size(); i++)
+                result.setPlanId(valid.get(i).index, plans.get(i).getId());
+        } catch (RuntimeException e) {
+            log.warn("Transport plan chunk of {} plans failed", valid.size(), e);
+            for (IndexedDraft indexed : valid)
+                result.addError(indexed.index, "not created: " + e.getMessage());
+        }
+    }
+
+    private Map<Long, Address> loadAddresses(List<IndexedDraft> chunk) {
+        Set<Long> ids = new HashSet<>();
+        for (IndexedDraft indexed : chunk) {
+            for (TransportPlanDraft.SectionDraft section : indexed.draft.getSections()) {
+                addAddressId(ids, section.getFrom());
+                addAddressId(ids, section.getTo());
+            }
+        }
+        List<Address> addresses = new ArrayList<>(ids.size());
+        for (List<Long> idChunk : IdChunks.of(ids))
+            addresses.addAll(addressRepository.findAllById(idChunk));
+        return addresses.stream()
+                .filter(address -> address.getDeletedAt() == null)
+                .collect(Collectors.toMap(Address::getId, Function.identity()));
+    }
+
+    private static void addAddressId(Set<Long> ids, TransportPlanDraft.MilestoneDraft milestone) {
+        if (milestone.getAddressId() != null)
+            ids.add(milestone.getAddressId());
+    }
+
+    private static Long findUnknownAddressId(TransportPlanDraft draft, Map<Long, Address> addresses) {
+        for (TransportPlanDraft.SectionDraft section : draft.getSections()) {
+            for (TransportPlanDraft.MilestoneDraft milestone : List.of(section.getFrom(), section.getTo())) {
+                if (milestone.getAddressId() != null && !addresses.containsKey(milestone.getAddressId()))
+                    return milestone.getAddressId();
+            }
+        }
+        return null;
+    }
+
+    private TransportPlan persist(TransportPlanDraft draft, Map<Long, Address> addresses) {
+        List<TransportPlanDraft.SectionDraft> sectionDrafts = draft.getSections();
+        TransportPlan plan = new TransportPlan();
+        em.persist(plan);
+        for (int i = 0; i < sectionDrafts.size(); i++) {
+            TransportPlanDraft.SectionDraft sectionDraft = sectionDrafts.get(i);
+            Milestone from = newMilestone(sectionDraft.getFrom(), addresses);
+            Milestone to = newMilestone(sectionDraft.getTo(), addresses);
+            em.persist(from);
+            em.persist(to);
+            Section section = new Section(from, to, i);
+            plan.addSection(section);
+            em.persist(section);
+        }
+        return plan;
+    }
+
+    private static Milestone newMilestone(TransportPlanDraft.MilestoneDraft draft, Map<Long, Address> addresses) {
+        Address address = draft.getAddressId() == null ? null : addresses.get(draft.getAddressId());
+        return new Milestone(address, draft.getPlannedTime());
+    }
+
+    private static class IndexedDraft {
+
+        final int index;
+        final TransportPlanDraft draft;
+
+        IndexedDraft(int index, TransportPlanDraft draft) {
+            this.index = index;
+            this.draft = draft;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package hu.bme.aut.logistics.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesCommittingEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.event.TransportPlansChangingEvent;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.SectionRepository;
+
+/**
+ * Translates the plan, section and milestone changes of a transaction into a
+ * single {@link TransportPlansChangingEvent} naming the affected plans,
+ * published inside the committing transaction. A moved section affects both the
+ * plan it left and the plan it joined.
+ */
+@Component
+public class TransportPlanChangeTracker {
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @EventListener
+    public void onEntitiesCommitting(EntitiesCommittingEvent event) {
+        Set<Long> planIds = new HashSet<>();
+        Set<Long> milestoneIds = new HashSet<>();
+        for (EntityChange change : event.getChanges()) {
+            Object entity = change.getEntity();
+            if (entity instanceof TransportPlan) {
+                planIds.add(((TransportPlan) entity).getId());
+            } else if (entity instanceof Section) {
+                Section section = (Section) entity;
+                if (section.getTransportPlan() != null)
+                    planIds.add(section.getTransportPlan().getId());
+                if (section.getLoadedTransportPlanId() != null)
+                    planIds.add(section.getLoadedTransportPlanId());
+            } else if (entity instanceof Milestone && change.getType() != ChangeType.CREATED) {
+                milestoneIds.add(((Milestone) entity).getId());
+            }
+        }
+        for (List<Long> chunk : IdChunks.of(milestoneIds))
+            planIds.addAll(sectionRepository.findPlanIdsByMilestoneIds(chunk));
+        if (!planIds.isEmpty())
+            eventPublisher.publishEvent(new TransportPlansChangingEvent(planIds));
+    }
+
+}
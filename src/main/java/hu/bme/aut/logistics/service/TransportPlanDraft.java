@@ -0,0 +1,76 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A transport plan to create in bulk: its sections in order, each with its own
+ * departure and arrival milestone referring to an existing address by id.
+ */
+public class TransportPlanDraft {
+
+    private List<SectionDraft> sections;
+
+    public List<SectionDraft> getSections() {
+        return sections;
+    }
+
+    public void setSections(List<SectionDraft> sections) {
+        this.sections = sections;
+    }
+
+    public static class SectionDraft {
+
+        // Optional; if given it must equal the position of the section in the plan
+        private Integer number;
+        private MilestoneDraft from;
+        private MilestoneDraft to;
+
+        public Integer getNumber() {
+            return number;
+        }
+
+        public void setNumber(Integer number) {
+            this.number = number;
+        }
+
+        public MilestoneDraft getFrom() {
+            return from;
+        }
+
+        public void setFrom(MilestoneDraft from) {
+            this.from = from;
+        }
+
+        public MilestoneDraft getTo() {
+            return to;
+        }
+
+        public void setTo(MilestoneDraft to) {
+            this.to = to;
+        }
+    }
+
+    public static class MilestoneDraft {
+
+        private Long addressId;
+        private LocalDateTime plannedTime;
+
+        public Long getAddressId() {
+            return addressId;
+        }
+
+        public void setAddressId(Long addressId) {
+            this.addressId = addressId;
+        }
+
+        public LocalDateTime getPlannedTime() {
+            return plannedTime;
+        }
+
+        public void setPlannedTime(LocalDateTime plannedTime) {
+            this.plannedTime = plannedTime;
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+
+@Service
+public class TransportPlanService {
+
+    @Autowired
+    TransportPlanRepository transportPlanRepository;
+
+    /**
+     * Plans having at least one milestone planned after the given time, with
+     * their whole section graph loaded. Uses the maintained latest planned time
+     * of the plans, see {@link TransportPlanTimeRangeUpdater}.
+     */
+    @Transactional(readOnly = true)
+    public List<TransportPlan> findWithMilestoneAfter(LocalDateTime dateTime, Pageable pageable) {
+        return loadGraphs(transportPlanRepository.findIdsByLatestPlannedTimeAfter(dateTime, pageable));
+    }
+
+    /**
+     * Loads plans with sections, milestones and addresses using one query per
+     * chunk of ids, returned in the order of the given ids.
+     */
+    @Transactional(readOnly = true)
+    public List<TransportPlan> loadGraphs(List<Long> ids) {
+        Map<Long, TransportPlan> plansById = new HashMap<>();
+        for (List<Long> chunk : IdChunks.of(ids)) {
+            for (TransportPlan plan : transportPlanRepository.findWithGraphByIdIn(chunk))
+                plansById.put(plan.getId(), plan);
+        }
+        List<TransportPlan> plans = new ArrayList<>(plansById.size());
+        for (Long id : ids) {
+            TransportPlan plan = plansById.get(id);
+            if (plan != null)
+                plans.add(plan);
+        }
+        return plans;
+    }
+
+}
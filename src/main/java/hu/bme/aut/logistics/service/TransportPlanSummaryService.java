@@ -0,0 +1,21 @@
+package hu.bme.aut.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import hu.bme.aut.logistics.model.TransportPlanSummary;
+import hu.bme.aut.logistics.repository.TransportPlanSummaryRepository;
+
+@Service
+public class TransportPlanSummaryService {
+
+    @Autowired
+    TransportPlanSummaryRepository summaryRepository;
+
+    public Page<TransportPlanSummary> findAll(Pageable pageable) {
+        return summaryRepository.findAll(pageable);
+    }
+
+}
@@ -0,0 +1,117 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesCommittingEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.event.TransportPlansChangingEvent;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.TransportPlanSummary;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.SectionRepository;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+import hu.bme.aut.logistics.repository.TransportPlanSummaryRepository;
+
+/**
+ * Keeps a {@link TransportPlanSummary} for every transport plan. Summaries of
+ * changed plans are rebuilt from one row query per chunk of plans; address
+ * changes are copied to the summaries referencing the address with bulk
+ * updates. Both happen in the transaction making the change, so summaries
+ * commit or roll back together with it.
+ */
+@Component
+public class TransportPlanSummaryUpdater {
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    TransportPlanRepository transportPlanRepository;
+
+    @Autowired
+    TransportPlanSummaryRepository summaryRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TransportPlanSummaryUpdater(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Long> planIds = transactionTemplate.execute(status -> summaryRepository.findPlanIdsWithoutSummary());
+        for (List<Long> chunk : IdChunks.of(planIds))
+            transactionTemplate.executeWithoutResult(status -> updateChunk(chunk));
+    }
+
+    @EventListener
+    public void onTransportPlansChanging(TransportPlansChangingEvent event) {
+        update(event.getPlanIds());
+    }
+
+    @EventListener
+    public void onEntitiesCommitting(EntitiesCommittingEvent event) {
+        for (EntityChange change : event.getChanges(Address.class)) {
+            if (change.getType() != ChangeType.UPDATED)
+                continue;
+            Address address = (Address) change.getEntity();
+            summaryRepository.updateOrigin(address.getId(), address.getCountry(), address.getCity());
+            summaryRepository.updateDestination(address.getId(), address.getCountry(), address.getCity());
+        }
+    }
+
+    /**
+     * Rebuilds the summaries of the given plans in the current transaction.
+     */
+    public void update(Collection<Long> planIds) {
+        for (List<Long> chunk : IdChunks.of(planIds))
+            updateChunk(chunk);
+    }
+
+    private void updateChunk(List<Long> planIds) {
+        summaryRepository.deleteByPlanIds(planIds);
+        List<Long> existingIds = transportPlanRepository.findExistingIds(planIds);
+        if (existingIds.isEmpty())
+            return;
+
+        Map<Long, TransportPlanSummary> summaries = new HashMap<>();
+        for (Long planId : existingIds)
+            summaries.put(planId, new TransportPlanSummary(planId));
+        for (Object[] row : sectionRepository.findSummaryRows(existingIds)) {
+            TransportPlanSummary summary = summaries.get((Long) row[0]);
+            if (summary.getSectionCount() == 0) {
+                summary.setFirstDeparture((LocalDateTime) row[1]);
+                summary.setOriginAddressId((Long) row[2]);
+                summary.setOriginCountry((String) row[3]);
+                summary.setOriginCity((String) row[4]);
+            }
+            summary.setSectionCount(summary.getSectionCount() + 1);
+            summary.setFinalArrival((LocalDateTime) row[5]);
+            summary.setDestinationAddressId((Long) row[6]);
+            summary.setDestinationCountry((String) row[7]);
+            summary.setDestinationCity((String) row[8]);
+        }
+        summaries.values().forEach(em::persist);
+        // Runs after the commit flush, so the inserts must be flushed here
+        em.flush();
+    }
+
+}
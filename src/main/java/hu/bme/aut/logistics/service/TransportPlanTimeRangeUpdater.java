@@ -0,0 +1,94 @@
+package hu.bme.aut.logistics.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.event.TransportPlansChangingEvent;
+import hu.bme.aut.logistics.repository.IdChunks;
+import hu.bme.aut.logistics.repository.SectionRepository;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+
+/**
+ * Keeps {@code TransportPlan.earliestPlannedTime} and
+ * {@code latestPlannedTime} equal to the planned time range of the plan's
+ * section milestones. The columns are written in the transaction that changes
+ * the plan, its sections or their milestones, so they commit or roll back
+ * together. Uses bulk updates, so maintaining the columns does not trigger
+ * further entity change events.
+ * <p>
+ * Only writes made by this application (on any node) keep the columns current.
+ * A plan changed by plain SQL keeps its previous range until it is next changed
+ * through the application; the startup backfill only fills ranges that were
+ * never set.
+ */
+@Component
+public class TransportPlanTimeRangeUpdater {
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    TransportPlanRepository transportPlanRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TransportPlanTimeRangeUpdater(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Long> planIds = transactionTemplate.execute(status -> transportPlanRepository.findIdsWithoutPlannedTimeRange());
+        for (List<Long> chunk : IdChunks.of(planIds))
+            transactionTemplate.executeWithoutResult(status -> updateChunk(chunk));
+    }
+
+    @EventListener
+    public void onTransportPlansChanging(TransportPlansChangingEvent event) {
+        update(event.getPlanIds());
+    }
+
+    /**
+     * Recomputes the range of the given plans in the current transaction.
+     */
+    public void update(Collection<Long> planIds) {
+        for (List<Long> chunk : IdChunks.of(planIds))
+            updateChunk(chunk);
+    }
+
+    private void updateChunk(List<Long> planIds) {
+        Map<Long, LocalDateTime[]> ranges = new HashMap<>();
+        for (Object[] row : sectionRepository.findPlannedTimeRanges(planIds)) {
+            LocalDateTime earliest = min((LocalDateTime) row[1], (LocalDateTime) row[3]);
+            LocalDateTime latest = max((LocalDateTime) row[2], (LocalDateTime) row[4]);
+            ranges.put((Long) row[0], new LocalDateTime[] { earliest, latest });
+        }
+        for (Long planId : planIds) {
+            LocalDateTime[] range = ranges.getOrDefault(planId, new LocalDateTime[2]);
+            transportPlanRepository.updatePlannedTimeRange(planId, range[0], range[1]);
+        }
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null)
+            return a == null ? b : a;
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null)
+            return a == null ? b : a;
+        return a.isAfter(b) ? a : b;
+    }
+
+}
@@ -0,0 +1,32 @@
+package hu.bme.aut.logistics.web;
+
+import java.util.List;
+
+import hu.bme.aut.logistics.model.Address;
+
+/**
+ * Selects the addresses to delete either by id or by a search example, in the
+ * same form as for {@code POST /addresses/search}.
+ */
+public class AddressBulkDeleteRequest {
+
+    private List<Long> ids;
+    private Address example;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Address getExample() {
+        return example;
+    }
+
+    public void setExample(Address example) {
+        this.example = example;
+    }
+
+}
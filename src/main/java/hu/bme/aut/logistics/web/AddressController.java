@@ -0,0 +1,425 @@
+package hu.bme.aut.logistics.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import hu.bme.aut.logistics.index.AddressIndexMaintainer;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.service.AddressBulkDeleteResult;
+import hu.bme.aut.logistics.service.AddressBulkDeleteService;
+import hu.bme.aut.logistics.service.AddressCache;
+import hu.bme.aut.logistics.service.AddressCsvReader;
+import hu.bme.aut.logistics.service.AddressCursor;
+import hu.bme.aut.logistics.service.AddressDeduplicationResult;
+import hu.bme.aut.logistics.service.AddressDeduplicationService;
+import hu.bme.aut.logistics.service.AddressImportResult;
+import hu.bme.aut.logistics.service.AddressImportRow;
+import hu.bme.aut.logistics.service.AddressImportService;
+import hu.bme.aut.logistics.service.AddressReferenceService;
+import hu.bme.aut.logistics.service.AddressSearchResult;
+import hu.bme.aut.logistics.service.AddressSearchService;
+import hu.bme.aut.logistics.service.AddressService;
+import hu.bme.aut.logistics.service.NearbyAddress;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/addresses")
+public class AddressController {
+
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_COUNT_ESTIMATED_HEADER = "X-Total-Count-Estimated";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    static final Set<String> SORT_PROPERTIES = Set.of("id", "country", "city", "zipCode", "street", "number",
+            "geoLat", "geoLng");
+
+    private static final Set<String> MILESTONE_SORT_PROPERTIES = Set.of("id", "plannedTime");
+
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_NEAREST_COUNT = 1000;
+    private static final double MAX_RADIUS_KM = 500;
+
+    @Autowired
+    AddressService addressService;
+
+    @Autowired
+    AddressSearchService addressSearchService;
+
+    @Autowired
+    AddressImportService addressImportService;
+
+    @Autowired
+    AddressReferenceService addressReferenceService;
+
+    @Autowired
+    AddressBulkDeleteService addressBulkDeleteService;
+
+    @Autowired
+    AddressDeduplicationService addressDeduplicationService;
+
+    @Autowired
+    AddressIndexMaintainer addressIndexMaintainer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * Lists all addresses, or a keyset paged slice of them if the
+     * {@code cursor} parameter is present (empty for the first page).
+     */
+    @GetMapping
+    public ResponseEntity<List<Address>> getAll(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Sort sort) {
+        if (cursor == null) {
+            List<Address> addresses = addressService.findAll();
+            return ResponseEntity.ok().eTag(ETags.ofAddresses(addresses)).body(addresses);
+        }
+        AddressSearchResult result = searchAfter(new Address(), cursor, size, sort);
+        return toResponse(result, ETags.ofAddresses(result.getContent()));
+    }
+
+    /**
+     * Writes all addresses as newline delimited JSON while reading them, so
+     * memory use does not depend on the size of the table.
+     */
+    @GetMapping(value = "/stream", produces = NDJSON_VALUE)
+    public StreamingResponseBody stream() {
+        ObjectWriter writer = objectMapper.writerFor(Address.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                addressService.streamAll(address -> {
+                    try {
+                        writer.writeValue(generator, address);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeRaw('\n');
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    @GetMapping("/nearest")
+    public List<NearbyAddress> findNearest(@RequestParam double lat, @RequestParam double lng,
+            @RequestParam(defaultValue = "10") int k) {
+        validateCoordinates(lat, lng);
+        if (k < 1 || k > MAX_NEAREST_COUNT)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "k must be between 1 and " + MAX_NEAREST_COUNT);
+        checkIndexReady();
+        return addressSearchService.findNearest(lat, lng, k);
+    }
+
+    @GetMapping("/within")
+    public List<NearbyAddress> findWithin(@RequestParam double lat, @RequestParam double lng,
+            @RequestParam double radiusKm) {
+        validateCoordinates(lat, lng);
+        if (!(radiusKm > 0 && radiusKm <= MAX_RADIUS_KM))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be in (0, " + MAX_RADIUS_KM + "]");
+        checkIndexReady();
+        return addressSearchService.findWithin(lat, lng, radiusKm);
+    }
+
+    @GetMapping("/cache-stats")
+    public AddressCache.Stats getCacheStats() {
+        return addressService.getCacheStats();
+    }
+
+    /**
+     * Answers with 304 Not Modified if the {@code If-None-Match} header holds the
+     * current entity tag of the address.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Address> getById(@PathVariable long id) {
+        Address address = addressService.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok().eTag(ETags.of(address)).body(address);
+    }
+
+    /**
+     * Milestones at the address, optionally planned within {@code [from, to]},
+     * sorted by planned time unless requested otherwise.
+     */
+    @GetMapping("/{id}/milestones")
+    public ResponseEntity<List<Milestone>> getMilestones(@PathVariable long id,
+            @RequestParam(required = false) @DateTimeFormat(pattern = TransportPlanController.DATE_TIME_PATTERN) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = TransportPlanController.DATE_TIME_PATTERN) LocalDateTime to,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @SortDefault({ "plannedTime", "id" }) Sort sort) {
+        Paging.requireSortable(sort, MILESTONE_SORT_PROPERTIES);
+        checkExists(id);
+        validateWindow(from, to);
+        Page<Milestone> milestones = addressReferenceService.findMilestones(id, from, to,
+                Paging.toPageable(page, size, sort));
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(milestones.getTotalElements()))
+                .body(milestones.getContent());
+    }
+
+    /**
+     * Transport plans with a section starting or ending at the address, where
+     * that milestone is optionally planned within {@code [from, to]}, ordered
+     * by id.
+     */
+    @GetMapping("/{id}/transportplans")
+    public ResponseEntity<List<TransportPlan>> getTransportPlans(@PathVariable long id,
+            @RequestParam(required = false) @DateTimeFormat(pattern = TransportPlanController.DATE_TIME_PATTERN) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = TransportPlanController.DATE_TIME_PATTERN) LocalDateTime to,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        checkExists(id);
+        validateWindow(from, to);
+        Page<TransportPlan> plans = addressReferenceService.findTransportPlans(id, from, to,
+                Paging.toPageable(page, size, Sort.unsorted()));
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(plans.getTotalElements()))
+                .body(plans.getContent());
+    }
+
+    /**
+     * Stores the address as given, or with {@code upsert} in normalized form
+     * unless an address with the same fingerprint exists, which is returned
+     * instead.
+     */
+    @PostMapping
+    public Address create(@RequestBody Address address, @RequestParam(defaultValue = "false") boolean upsert) {
+        if (address.getId() != null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id must not be set");
+        validate(address);
+        if (!upsert)
+            return addressService.create(address);
+        checkIndexReady();
+        return addressService.upsert(address);
+    }
+
+    /**
+     * Merges addresses sharing a fingerprint, moving their milestones to the
+     * address kept.
+     */
+    @PostMapping("/deduplicate")
+    public AddressDeduplicationResult deduplicate() {
+        checkIndexReady();
+        return addressDeduplicationService.deduplicate();
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public AddressImportResult importJson(InputStream body) throws IOException {
+        try (MappingIterator<Address> addresses = objectMapper.readerFor(Address.class).readValues(body)) {
+            return addressImportService.importAddresses(new JsonImportRows(addresses));
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = CSV_VALUE)
+    public AddressImportResult importCsv(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            return addressImportService.importAddresses(new AddressCsvReader(reader));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * With an {@code If-Match} header the update is only done if the stored
+     * address still has one of the given entity tags, otherwise it is rejected
+     * with 412 Precondition Failed.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<Address> update(@PathVariable long id, @RequestBody Address address,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (address.getId() != null && address.getId() != id)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id in body does not match the path");
+        validate(address);
+        if (!addressService.exists(id))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        address.setId(id);
+        Address updated;
+        if (ifMatch == null) {
+            updated = addressService.update(address);
+        } else {
+            updated = addressService.update(address, current -> ETags.matches(ifMatch, ETags.of(current)))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+        }
+        return ResponseEntity.ok().eTag(ETags.of(updated)).body(updated);
+    }
+
+    /**
+     * Answers 409 Conflict if milestones reference the address.
+     */
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable long id) {
+        if (addressService.isReferenced(id))
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "address is referenced by milestones");
+        addressService.delete(id);
+    }
+
+    /**
+     * Deletes the addresses given by id or by a search example. Referenced
+     * addresses are kept and reported, unless {@code soft} is set, which marks
+     * every selected address deleted instead of removing it.
+     */
+    @PostMapping("/bulk-delete")
+    public AddressBulkDeleteResult bulkDelete(@RequestBody AddressBulkDeleteRequest request,
+            @RequestParam(defaultValue = "false") boolean soft) {
+        if ((request.getIds() == null) == (request.getExample() == null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "exactly one of ids and example is required");
+        if (request.getExample() != null && !addressSearchService.hasCriteria(request.getExample()))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "example needs at least one of country, city, street");
+        List<Long> ids = request.getIds() != null ? request.getIds() : addressSearchService.findIds(request.getExample());
+        if (ids.contains(null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not be null");
+        return addressBulkDeleteService.delete(ids, soft);
+    }
+
+    @PostMapping("/search")
+    public ResponseEntity<List<Address>> search(@RequestBody Address example,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            Sort sort) {
+        Paging.requireSortable(sort, SORT_PROPERTIES);
+        if (cursor != null)
+            return toResponse(searchAfter(example, cursor, size, sort), null);
+        return toResponse(addressSearchService.search(example, Paging.toPageable(page, size, sort)), null);
+    }
+
+    private AddressSearchResult searchAfter(Address example, String cursor, Integer size, Sort sort) {
+        int pageSize = size == null ? DEFAULT_CURSOR_PAGE_SIZE : size;
+        if (pageSize < 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid paging parameters");
+        try {
+            AddressCursor position = cursor.isEmpty() ? AddressCursor.first(sort) : AddressCursor.decode(cursor);
+            return addressSearchService.searchAfter(example, position, pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    static ResponseEntity<List<Address>> toResponse(AddressSearchResult result, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (etag != null)
+            response.eTag(etag);
+        if (result.hasTotalCount())
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(result.getTotalCount()));
+        if (result.isTotalCountEstimated())
+            response.header(TOTAL_COUNT_ESTIMATED_HEADER, "true");
+        if (result.getNextCursor() != null)
+            response.header(NEXT_CURSOR_HEADER, result.getNextCursor());
+        return response.body(result.getContent());
+    }
+
+    private void validateCoordinates(double lat, double lng) {
+        if (!(Math.abs(lat) <= 90 && Math.abs(lng) <= 180))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid coordinates");
+    }
+
+    private void checkIndexReady() {
+        if (!addressIndexMaintainer.isReady())
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "address indexes are loading");
+    }
+
+    private void checkExists(long id) {
+        if (!addressService.exists(id))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
+    private static void validateWindow(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && to.isBefore(from))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to is before from");
+    }
+
+    private void validate(Address address) {
+        String error = addressService.findValidationError(address);
+        if (error != null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+    }
+
+    /**
+     * Rows of a JSON array import. Reading stops at the first element that
+     * cannot be parsed, since the position in the stream is lost after it.
+     */
+    private static class JsonImportRows implements Iterator<AddressImportRow> {
+
+        private final MappingIterator<Address> addresses;
+        private int row;
+        private boolean failed;
+
+        JsonImportRows(MappingIterator<Address> addresses) {
+            this.addresses = addresses;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (failed)
+                return false;
+            try {
+                return addresses.hasNextValue();
+            } catch (IOException e) {
+                failed = true;
+                return true;
+            }
+        }
+
+        @Override
+        public AddressImportRow next() {
+            row++;
+            if (failed)
+                return AddressImportRow.failed(row, "malformed JSON, import stopped");
+            try {
+                return AddressImportRow.of(row, addresses.nextValue());
+            } catch (IOException e) {
+                failed = true;
+                return AddressImportRow.failed(row, "malformed JSON, import stopped: " + e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package hu.bme.aut.logistics.web;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import hu.bme.aut.logistics.metrics.RequestCounters;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs the blocking service and JDBC calls of the reactive controllers on a
+ * bounded pool sized to the connection pool, so the event loop threads never
+ * wait for the database. Calls beyond the queue limit are answered with 503
+ * Service Unavailable instead of piling up. The calls count their statements
+ * in the {@link RequestCounters} of the request.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class BlockingCalls {
+
+    private final Scheduler scheduler;
+
+    public BlockingCalls(@Value("${logistics.reactive.blocking-threads:10}") int threads,
+            @Value("${logistics.reactive.blocking-queue-size:10000}") int queueSize) {
+        scheduler = Schedulers.newBoundedElastic(threads, queueSize, "blocking-jdbc");
+    }
+
+    public <T> Mono<T> call(Callable<T> callable) {
+        return Mono.subscriberContext()
+                .flatMap(context -> Mono.fromCallable(
+                        () -> RequestCounters.callWith(context.getOrDefault(RequestCounters.class, null), callable))
+                        .subscribeOn(scheduler))
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "too many pending requests"));
+    }
+
+    public Mono<Void> run(Runnable runnable) {
+        return call(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void dispose() {
+        scheduler.dispose();
+    }
+
+}
@@ -0,0 +1,186 @@
+package hu.bme.aut.logistics.web;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import hu.bme.aut.logistics.service.ChangeFeed;
+import hu.bme.aut.logistics.service.ChangeFeedEntry;
+
+/**
+ * Pushes change feed entries to the subscribed SSE clients. Sending happens on
+ * a single dispatcher thread, so a slow client never holds up the committing
+ * threads; a client that falls further behind than the feed capacity gets a
+ * {@code reset} event and is disconnected.
+ */
+@Component
+public class ChangeFeedBroadcaster {
+
+    static final String CHANGE_EVENT = "change";
+    static final String RESET_EVENT = "reset";
+
+    private static final int SEND_BATCH_SIZE = 500;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final Runnable feedListener = this::requestDispatch;
+
+    public ChangeFeedBroadcaster(
+            @Value("${logistics.change-feed.max-subscribers:1000}") int maxSubscribers,
+            @Value("${logistics.change-feed.timeout:30m}") Duration timeout) {
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @PostConstruct
+    public void start() {
+        changeFeed.addListener(feedListener);
+    }
+
+    @PreDestroy
+    public void stop() {
+        changeFeed.removeListener(feedListener);
+        dispatcher.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+
+    /**
+     * Subscribes a client to the changes after {@code afterSequence}, or to new
+     * changes only if it is {@code null}. A negative sequence (from another
+     * epoch) is answered with a {@code reset} event. Returns {@code null} if the
+     * subscriber limit is reached.
+     */
+    public SseEmitter subscribe(Long afterSequence, Long planId, Long addressId) {
+        if (subscriptions.size() >= maxSubscribers)
+            return null;
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        if (afterSequence != null && changeFeed.readAfter(afterSequence, 1) == null) {
+            // Answered on the request thread, as completing the emitter from the
+            // dispatcher could race with the container starting the async request
+            try {
+                sendReset(emitter);
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
+        long cursor = afterSequence != null ? afterSequence : changeFeed.getLastSequence();
+        Subscription subscription = new Subscription(emitter, cursor, planId, addressId);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        if (afterSequence != null)
+            requestDispatch();
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Keeps idle connections open through proxies that close silent ones.
+     */
+    @Scheduled(fixedDelayString = "${logistics.change-feed.heartbeat-interval:15000}")
+    public void heartbeat() {
+        dispatcher.execute(() -> {
+            for (Subscription subscription : subscriptions) {
+                try {
+                    subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    close(subscription);
+                }
+            }
+        });
+    }
+
+    private void requestDispatch() {
+        if (dispatchPending.compareAndSet(false, true))
+            dispatcher.execute(this::dispatch);
+    }
+
+    private void dispatch() {
+        dispatchPending.set(false);
+        for (Subscription subscription : subscriptions)
+            send(subscription);
+    }
+
+    private void send(Subscription subscription) {
+        try {
+            List<ChangeFeedEntry> entries;
+            do {
+                entries = changeFeed.readAfter(subscription.cursor, SEND_BATCH_SIZE);
+                if (entries == null) {
+                    subscriptions.remove(subscription);
+                    sendReset(subscription.emitter);
+                    return;
+                }
+                for (ChangeFeedEntry entry : entries) {
+                    subscription.cursor = entry.getSequence();
+                    if (entry.matches(subscription.planId, subscription.addressId)) {
+                        subscription.emitter.send(SseEmitter.event()
+                                .id(changeFeed.eventId(entry.getSequence()))
+                                .name(CHANGE_EVENT)
+                                .data(entry));
+                    }
+                }
+            } while (entries.size() == SEND_BATCH_SIZE);
+        } catch (IOException | IllegalStateException e) {
+            close(subscription);
+        }
+    }
+
+    private void sendReset(SseEmitter emitter) throws IOException {
+        emitter.send(SseEmitter.event()
+                .name(RESET_EVENT)
+                .data(changeFeed.eventId(changeFeed.getLastSequence())));
+        emitter.complete();
+    }
+
+    private void close(Subscription subscription) {
+        subscriptions.remove(subscription);
+        subscription.emitter.complete();
+    }
+
+    private static class Subscription {
+
+        final SseEmitter emitter;
+        final Long planId;
+        final Long addressId;
+        long cursor;
+
+        Subscription(SseEmitter emitter, long cursor, Long planId, Long addressId) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.planId = planId;
+            this.addressId = addressId;
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package hu.bme.aut.logistics.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import hu.bme.aut.logistics.service.ChangeFeed;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class ChangeFeedController {
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    ChangeFeedBroadcaster changeFeedBroadcaster;
+
+    /**
+     * Streams committed transport plan, section and milestone changes as
+     * server-sent events, optionally only those touching the given plan or
+     * address. Resumes after the event id in {@code Last-Event-ID} or
+     * {@code since}; a {@code reset} event means the client missed changes, or
+     * the id is from before a restart, and has to reload before subscribing
+     * again after the event id in the reset event.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) String since,
+            @RequestParam(required = false) Long planId,
+            @RequestParam(required = false) Long addressId,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        Long afterSequence = null;
+        if (lastEventId != null)
+            afterSequence = sequenceOf(lastEventId, "invalid Last-Event-ID");
+        else if (since != null)
+            afterSequence = sequenceOf(since, "invalid since");
+
+        SseEmitter emitter = changeFeedBroadcaster.subscribe(afterSequence, planId, addressId);
+        if (emitter == null)
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "too many change feed subscribers");
+        return emitter;
+    }
+
+    private long sequenceOf(String eventId, String error) {
+        try {
+            return changeFeed.sequenceOf(eventId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package hu.bme.aut.logistics.web;
+
+import java.util.List;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+
+/**
+ * Strong entity tags computed from entity state without serializing the
+ * response. Plans, sections and milestones contribute their version, addresses
+ * (which are not versioned) their content.
+ */
+final class ETags {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long hash = FNV_OFFSET_BASIS;
+
+    private ETags() {
+    }
+
+    static String of(Address address) {
+        return new ETags().add(address).toETag();
+    }
+
+    static String ofAddresses(List<Address> addresses) {
+        ETags etag = new ETags().add(addresses.size());
+        for (Address address : addresses)
+            etag.add(address);
+        return etag.toETag();
+    }
+
+    static String ofTransportPlans(List<TransportPlan> plans) {
+        ETags etag = new ETags().add(plans.size());
+        for (TransportPlan plan : plans) {
+            etag.add(plan.getId()).add(plan.getVersion())
+                    .add(String.valueOf(plan.getEarliestPlannedTime()))
+                    .add(String.valueOf(plan.getLatestPlannedTime()));
+            List<Section> sections = plan.getSections();
+            etag.add(sections == null ? -1 : sections.size());
+            if (sections == null)
+                continue;
+            for (Section section : sections) {
+                etag.add(section.getId()).add(section.getVersion()).add(section.getNumber());
+                etag.add(section.getFromMilestone()).add(section.getToMilestone());
+            }
+        }
+        return etag.toETag();
+    }
+
+    /**
+     * Whether an {@code If-Match} header value matches the current tag, using
+     * strong comparison.
+     */
+    static boolean matches(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag))
+                return true;
+        }
+        return false;
+    }
+
+    private ETags add(Milestone milestone) {
+        if (milestone == null)
+            return add(-1);
+        return add(milestone.getId()).add(milestone.getVersion()).add(milestone.getAddress());
+    }
+
+    private ETags add(Address address) {
+        if (address == null)
+            return add(-1);
+        return add(address.getId())
+                .add(address.getCountry())
+                .add(address.getCity())
+                .add(address.getZipCode())
+                .add(address.getStreet())
+                .add(address.getNumber())
+                .add(address.getGeoLat() == null ? null : Double.doubleToLongBits(address.getGeoLat()))
+                .add(address.getGeoLng() == null ? null : Double.doubleToLongBits(address.getGeoLng()));
+    }
+
+    private ETags add(String value) {
+        if (value == null)
+            return add(-1);
+        add(value.length());
+        for (int i = 0; i < value.length(); i++)
+            mix(value.charAt(i));
+        return this;
+    }
+
+    private ETags add(Long value) {
+        if (value == null)
+            return add(-1);
+        mix(1);
+        for (int shift = 0; shift < 64; shift += 16)
+            mix((int) (value >>> shift) & 0xffff);
+        return this;
+    }
+
+    private ETags add(int value) {
+        mix(0);
+        mix(value >>> 16);
+        mix(value & 0xffff);
+        return this;
+    }
+
+    private void mix(int value) {
+        hash = (hash ^ value) * FNV_PRIME;
+    }
+
+    private String toETag() {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+}
@@ -0,0 +1,24 @@
+package hu.bme.aut.logistics.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import hu.bme.aut.logistics.metrics.PrometheusExporter;
+
+@RestController
+public class MetricsController {
+
+    @Autowired
+    PrometheusExporter prometheusExporter;
+
+    @GetMapping("/metrics")
+    public ResponseEntity<String> getMetrics() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, PrometheusExporter.CONTENT_TYPE)
+                .body(prometheusExporter.export());
+    }
+
+}
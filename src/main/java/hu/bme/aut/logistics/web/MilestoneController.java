@@ -0,0 +1,80 @@
+package hu.bme.aut.logistics.web;
+
+import java.util.List;
+
+import javax.persistence.EntityNotFoundException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.service.DelayPropagationService;
+import hu.bme.aut.logistics.service.MilestoneDelay;
+import hu.bme.aut.logistics.service.MilestoneUpdate;
+import hu.bme.aut.logistics.service.MilestoneUpdateQueue;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/milestones")
+public class MilestoneController {
+
+    @Autowired
+    DelayPropagationService delayPropagationService;
+
+    @Autowired
+    MilestoneUpdateQueue milestoneUpdateQueue;
+
+    /**
+     * Registers delays of milestones, shifting every later milestone of their
+     * transport plans too, and returns all milestones that moved.
+     */
+    @PostMapping("/delays")
+    public List<Milestone> registerDelays(@RequestBody List<MilestoneDelay> delays) {
+        if (delays.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "no delays given");
+        for (MilestoneDelay delay : delays) {
+            if (delay.getMilestoneId() == null || delay.getMinutes() == null)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "milestoneId and minutes are required");
+        }
+        try {
+            return delayPropagationService.registerDelays(delays);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "milestones were modified concurrently");
+        }
+    }
+
+    /**
+     * Queues planned time updates to be written asynchronously and answers 202
+     * Accepted, or 429 Too Many Requests if the queue is full.
+     */
+    @PostMapping("/updates")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void queueUpdates(@RequestBody List<MilestoneUpdate> updates) {
+        for (MilestoneUpdate update : updates) {
+            if (update.getMilestoneId() == null)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "milestoneId is required");
+            if (update.getPlannedTime() == null && update.getDelayMinutes() == null)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "plannedTime or delayMinutes is required");
+        }
+        if (!milestoneUpdateQueue.offer(updates))
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "update queue is full");
+    }
+
+    @GetMapping("/updates/stats")
+    public MilestoneUpdateQueue.Stats getUpdateQueueStats() {
+        return milestoneUpdateQueue.getStats();
+    }
+
+}
@@ -0,0 +1,39 @@
+package hu.bme.aut.logistics.web;
+
+import java.util.Set;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+final class Paging {
+
+    private Paging() {
+    }
+
+    /**
+     * Without a size everything is returned in one page, since the listing
+     * endpoints return all rows unless paging is requested explicitly.
+     */
+    static Pageable toPageable(Integer page, Integer size, Sort sort) {
+        if (size == null)
+            return PageRequest.of(0, Integer.MAX_VALUE, sort);
+        if (size < 1 || (page != null && page < 0))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid paging parameters");
+        return PageRequest.of(page == null ? 0 : page, size, sort);
+    }
+
+    /**
+     * Rejects sorting by anything but the given properties with 400 Bad
+     * Request, instead of failing in the query.
+     */
+    static void requireSortable(Sort sort, Set<String> properties) {
+        for (Sort.Order order : sort) {
+            if (!properties.contains(order.getProperty()))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cannot sort by " + order.getProperty());
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package hu.bme.aut.logistics.web;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import hu.bme.aut.logistics.index.AddressIndexMaintainer;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.service.AddressCursor;
+import hu.bme.aut.logistics.service.AddressSearchResult;
+import hu.bme.aut.logistics.service.AddressSearchService;
+import hu.bme.aut.logistics.service.AddressService;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of the core {@link AddressController} endpoints, active
+ * when the application runs as a reactive web application. Request handling
+ * stays on the event loop; the service calls run on {@link BlockingCalls}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping("/addresses")
+public class ReactiveAddressController {
+
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 100;
+
+    @Autowired
+    AddressService addressService;
+
+    @Autowired
+    AddressSearchService addressSearchService;
+
+    @Autowired
+    AddressIndexMaintainer addressIndexMaintainer;
+
+    @Autowired
+    BlockingCalls blockingCalls;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<Address>>> getAll(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Sort sort) {
+        return blockingCalls.call(() -> {
+            if (cursor == null) {
+                List<Address> addresses = addressService.findAll();
+                return ResponseEntity.ok().eTag(ETags.ofAddresses(addresses)).body(addresses);
+            }
+            AddressSearchResult result = searchAfter(new Address(), cursor, size, sort);
+            return AddressController.toResponse(result, ETags.ofAddresses(result.getContent()));
+        });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Address>> getById(@PathVariable long id) {
+        return blockingCalls.call(() -> {
+            Address address = addressService.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            return ResponseEntity.ok().eTag(ETags.of(address)).body(address);
+        });
+    }
+
+    @PostMapping
+    public Mono<Address> create(@RequestBody Address address, @RequestParam(defaultValue = "false") boolean upsert) {
+        if (address.getId() != null)
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "id must not be set"));
+        return blockingCalls.call(() -> {
+            validate(address);
+            if (!upsert)
+                return addressService.create(address);
+            if (!addressIndexMaintainer.isReady())
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "address indexes are loading");
+            return addressService.upsert(address);
+        });
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Address>> update(@PathVariable long id, @RequestBody Address address,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (address.getId() != null && address.getId() != id)
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "id in body does not match the path"));
+        return blockingCalls.call(() -> {
+            validate(address);
+            if (!addressService.exists(id))
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            address.setId(id);
+            Address updated;
+            if (ifMatch == null) {
+                updated = addressService.update(address);
+            } else {
+                updated = addressService.update(address, current -> ETags.matches(ifMatch, ETags.of(current)))
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+            }
+            return ResponseEntity.ok().eTag(ETags.of(updated)).body(updated);
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> delete(@PathVariable long id) {
+        return blockingCalls.run(() -> {
+            if (addressService.isReferenced(id))
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "address is referenced by milestones");
+            addressService.delete(id);
+        });
+    }
+
+    @PostMapping("/search")
+    public Mono<ResponseEntity<List<Address>>> search(@RequestBody Address example,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            Sort sort) {
+        Paging.requireSortable(sort, AddressController.SORT_PROPERTIES);
+        return blockingCalls.call(() -> {
+            if (cursor != null)
+                return AddressController.toResponse(searchAfter(example, cursor, size, sort), null);
+            return AddressController.toResponse(
+                    addressSearchService.search(example, Paging.toPageable(page, size, sort)), null);
+        });
+    }
+
+    private AddressSearchResult searchAfter(Address example, String cursor, Integer size, Sort sort) {
+        int pageSize = size == null ? DEFAULT_CURSOR_PAGE_SIZE : size;
+        if (pageSize < 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid paging parameters");
+        try {
+            AddressCursor position = cursor.isEmpty() ? AddressCursor.first(sort) : AddressCursor.decode(cursor);
+            return addressSearchService.searchAfter(example, position, pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private void validate(Address address) {
+        String error = addressService.findValidationError(address);
+        if (error != null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+    }
+
+}
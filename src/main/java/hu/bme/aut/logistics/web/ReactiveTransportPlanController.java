@@ -0,0 +1,75 @@
+package hu.bme.aut.logistics.web;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.service.PlanRoute;
+import hu.bme.aut.logistics.service.RouteMetricsService;
+import hu.bme.aut.logistics.service.TransportPlanService;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of the {@link TransportPlanController} search and route
+ * endpoints, active when the application runs as a reactive web application.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RequestMapping("/transportplans")
+public class ReactiveTransportPlanController {
+
+    @Autowired
+    TransportPlanService transportPlanService;
+
+    @Autowired
+    RouteMetricsService routeMetricsService;
+
+    @Autowired
+    BlockingCalls blockingCalls;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<TransportPlan>>> search(
+            @RequestParam @DateTimeFormat(pattern = TransportPlanController.DATE_TIME_PATTERN) LocalDateTime dateTime,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @SortDefault("id") Sort sort) {
+        Paging.requireSortable(sort, TransportPlanController.SORT_PROPERTIES);
+        return blockingCalls.call(() -> {
+            List<TransportPlan> plans = transportPlanService.findWithMilestoneAfter(dateTime,
+                    Paging.toPageable(page, size, sort));
+            routeMetricsService.attachRoutes(plans);
+            return ResponseEntity.ok().eTag(ETags.ofTransportPlans(plans)).body(plans);
+        });
+    }
+
+    @GetMapping("/{id}/route")
+    public Mono<PlanRoute> findRoute(@PathVariable long id) {
+        return blockingCalls.call(() -> {
+            List<PlanRoute> routes = routeMetricsService.findRoutes(List.of(id));
+            if (routes.isEmpty())
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            return routes.get(0);
+        });
+    }
+
+    @GetMapping("/routes")
+    public Mono<List<PlanRoute>> findRoutes(@RequestParam List<Long> ids) {
+        return blockingCalls.call(() -> routeMetricsService.findRoutes(ids));
+    }
+
+}
@@ -0,0 +1,40 @@
+package hu.bme.aut.logistics.web;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import hu.bme.aut.logistics.index.SectionSpan;
+import hu.bme.aut.logistics.index.TransportTimeIndex;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/sections")
+public class SectionController {
+
+    @Autowired
+    TransportTimeIndex transportTimeIndex;
+
+    /**
+     * Sections in progress at the given time, answered from the in-memory time
+     * index.
+     */
+    @GetMapping("/active")
+    public List<SectionSpan> findActive(
+            @RequestParam @DateTimeFormat(pattern = TransportPlanController.DATE_TIME_PATTERN) LocalDateTime at) {
+        if (!transportTimeIndex.isReady())
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "time index is loading");
+        return transportTimeIndex.findSectionsActiveAt(at);
+    }
+
+}
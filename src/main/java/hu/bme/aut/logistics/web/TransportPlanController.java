@@ -0,0 +1,174 @@
+package hu.bme.aut.logistics.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hu.bme.aut.logistics.index.PlanSpan;
+import hu.bme.aut.logistics.index.TransportTimeIndex;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.model.TransportPlanSummary;
+import hu.bme.aut.logistics.service.PlanRoute;
+import hu.bme.aut.logistics.service.RouteMetricsService;
+import hu.bme.aut.logistics.service.TransportPlanBulkResult;
+import hu.bme.aut.logistics.service.TransportPlanBulkService;
+import hu.bme.aut.logistics.service.TransportPlanDraft;
+import hu.bme.aut.logistics.service.TransportPlanService;
+import hu.bme.aut.logistics.service.TransportPlanSummaryService;
+
+@RestController
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@RequestMapping("/transportplans")
+public class TransportPlanController {
+
+    public static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH-mm-ss";
+
+    static final Set<String> SORT_PROPERTIES = Set.of("id", "earliestPlannedTime", "latestPlannedTime");
+
+    private static final Set<String> SUMMARY_SORT_PROPERTIES = Set.of("transportPlanId", "sectionCount",
+            "firstDeparture", "finalArrival", "originCountry", "originCity", "destinationCountry", "destinationCity");
+
+    @Autowired
+    TransportPlanService transportPlanService;
+
+    @Autowired
+    TransportTimeIndex transportTimeIndex;
+
+    @Autowired
+    TransportPlanSummaryService transportPlanSummaryService;
+
+    @Autowired
+    RouteMetricsService routeMetricsService;
+
+    @Autowired
+    TransportPlanBulkService transportPlanBulkService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * Plans with a milestone after {@code dateTime}, matched on the stored
+     * latest planned time of the plans (see
+     * {@link hu.bme.aut.logistics.service.TransportPlanTimeRangeUpdater} for
+     * which writes keep it current). Sortable by id and the planned time range.
+     * Each plan carries its route metrics. Answers with 304 Not Modified
+     * if the {@code If-None-Match} header holds the entity tag of the current
+     * result.
+     */
+    @GetMapping
+    public ResponseEntity<List<TransportPlan>> search(
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime dateTime,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @SortDefault("id") Sort sort) {
+        Paging.requireSortable(sort, SORT_PROPERTIES);
+        List<TransportPlan> plans = transportPlanService.findWithMilestoneAfter(dateTime, Paging.toPageable(page, size, sort));
+        routeMetricsService.attachRoutes(plans);
+        return ResponseEntity.ok().eTag(ETags.ofTransportPlans(plans)).body(plans);
+    }
+
+    /**
+     * Plans whose planned time span overlaps {@code [from, to]}, answered from
+     * the in-memory time index.
+     */
+    @GetMapping("/active")
+    public List<PlanSpan> findActive(
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime from,
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime to) {
+        if (to.isBefore(from))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to is before from");
+        if (!transportTimeIndex.isReady())
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "time index is loading");
+        return transportTimeIndex.findPlansActiveBetween(from, to);
+    }
+
+    /**
+     * Pages of the precomputed plan summaries, sortable by any of their
+     * aggregates, with the total count in the {@code X-Total-Count} header.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<List<TransportPlanSummary>> findSummaries(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @SortDefault("transportPlanId") Sort sort) {
+        Paging.requireSortable(sort, SUMMARY_SORT_PROPERTIES);
+        Page<TransportPlanSummary> summaries = transportPlanSummaryService.findAll(Paging.toPageable(page, size, sort));
+        return ResponseEntity.ok()
+                .header(AddressController.TOTAL_COUNT_HEADER, String.valueOf(summaries.getTotalElements()))
+                .body(summaries.getContent());
+    }
+
+    /**
+     * Creates the plans of a JSON array, read while they are stored, and
+     * reports the id or the rejection reason of each one.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public TransportPlanBulkResult createBulk(InputStream body) throws IOException {
+        try (MappingIterator<TransportPlanDraft> drafts = objectMapper.readerFor(TransportPlanDraft.class)
+                .readValues(body)) {
+            return transportPlanBulkService.create(new Iterator<TransportPlanDraft>() {
+
+                @Override
+                public boolean hasNext() {
+                    try {
+                        return drafts.hasNextValue();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public TransportPlanDraft next() {
+                    try {
+                        return drafts.nextValue();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+    }
+
+    @GetMapping("/{id}/route")
+    public PlanRoute findRoute(@PathVariable long id) {
+        List<PlanRoute> routes = routeMetricsService.findRoutes(List.of(id));
+        if (routes.isEmpty())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        return routes.get(0);
+    }
+
+    /**
+     * Route metrics of several plans in the order of the given ids; unknown
+     * ids are skipped.
+     */
+    @GetMapping("/routes")
+    public List<PlanRoute> findRoutes(@RequestParam List<Long> ids) {
+        return routeMetricsService.findRoutes(ids);
+    }
+
+}
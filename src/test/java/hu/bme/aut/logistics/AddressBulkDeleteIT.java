@@ -0,0 +1,164 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.service.AddressBulkDeleteResult;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class AddressBulkDeleteIT {
+
+    private static final String BULK_DELETE_URI = "/addresses/bulk-delete";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+    }
+
+    @Test
+    public void givenIds_whenBulkDelete_thenUnreferencedAreDeletedAndOthersReported() throws Exception {
+        Address unreferenced = testDataHelper.insertTestAddress();
+        Address referenced = insertReferencedAddress();
+        Long missingId = referenced.getId() + 1000;
+
+        AddressBulkDeleteResult result = bulkDelete(
+                Map.of("ids", new Long[] { unreferenced.getId(), referenced.getId(), missingId }), false);
+
+        assertThat(result.getDeletedIds()).containsExactly(unreferenced.getId());
+        assertThat(result.getReferencedIds()).containsExactly(referenced.getId());
+        assertThat(result.getNotFoundIds()).containsExactly(missingId);
+        assertThat(addressRepository.existsById(unreferenced.getId())).isFalse();
+        assertThat(addressRepository.existsById(referenced.getId())).isTrue();
+    }
+
+    @Test
+    public void givenExample_whenBulkDelete_thenMatchingAddressesAreDeleted() throws Exception {
+        Address debrecen1 = insertAddressInCity("Debrecen");
+        Address debrecen2 = insertAddressInCity("Debrecen");
+        Address budapest = testDataHelper.insertTestAddress();
+
+        AddressBulkDeleteResult result = bulkDelete(Map.of("example", Map.of("city", "Debrecen")), false);
+
+        assertThat(result.getDeletedIds()).containsExactlyInAnyOrder(debrecen1.getId(), debrecen2.getId());
+        assertThat(addressRepository.existsById(debrecen1.getId())).isFalse();
+        assertThat(addressRepository.existsById(debrecen2.getId())).isFalse();
+        assertThat(addressRepository.existsById(budapest.getId())).isTrue();
+    }
+
+    @Test
+    public void givenSoft_whenBulkDelete_thenReferencedAreMarkedDeletedToo() throws Exception {
+        Address unreferenced = testDataHelper.insertTestAddress();
+        Address referenced = insertReferencedAddress();
+        Map<String, Object> request = Map.of("ids", new Long[] { unreferenced.getId(), referenced.getId() });
+
+        AddressBulkDeleteResult result = bulkDelete(request, true);
+
+        assertThat(result.getDeletedIds()).containsExactly(unreferenced.getId(), referenced.getId());
+        assertThat(result.getReferencedIds()).isEmpty();
+        assertThat(addressRepository.findById(unreferenced.getId()).get().getDeletedAt()).isNotNull();
+        assertThat(addressRepository.findById(referenced.getId()).get().getDeletedAt()).isNotNull();
+        webTestClient.get()
+                .uri("/addresses/{id}", unreferenced.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+
+        AddressBulkDeleteResult repeated = bulkDelete(request, true);
+        assertThat(repeated.getNotFoundIds()).containsExactly(unreferenced.getId(), referenced.getId());
+    }
+
+    @Test
+    public void givenIdsAndExample_whenBulkDelete_thenBadRequest() throws Exception {
+        Address address = testDataHelper.insertTestAddress();
+
+        buildBulkDeleteRequest(Map.of("ids", new Long[] { address.getId() }, "example", Map.of("city", "Budapest")), false)
+                .expectStatus().isBadRequest();
+
+        assertThat(addressRepository.existsById(address.getId())).isTrue();
+    }
+
+    @Test
+    public void givenNeitherIdsNorExample_whenBulkDelete_thenBadRequest() throws Exception {
+        buildBulkDeleteRequest(Map.of(), false)
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void givenEmptyExample_whenBulkDelete_thenBadRequest() throws Exception {
+        Address address = testDataHelper.insertTestAddress();
+
+        buildBulkDeleteRequest(Map.of("example", Map.of()), false)
+                .expectStatus().isBadRequest();
+
+        assertThat(addressRepository.existsById(address.getId())).isTrue();
+    }
+
+    @Test
+    public void givenExampleWithoutSearchableField_whenBulkDelete_thenBadRequest() throws Exception {
+        Address address = testDataHelper.insertTestAddress();
+
+        buildBulkDeleteRequest(Map.of("example", Map.of("zipCode", address.getZipCode(), "city", "")), false)
+                .expectStatus().isBadRequest();
+
+        assertThat(addressRepository.existsById(address.getId())).isTrue();
+    }
+
+    private Address insertReferencedAddress() {
+        Address address = testDataHelper.insertTestAddress();
+        milestoneRepository.save(new Milestone(address, LocalDateTime.of(2020, 3, 1, 10, 0)));
+        return address;
+    }
+
+    private Address insertAddressInCity(String city) {
+        Address address = testDataHelper.createTestAddress();
+        address.setCity(city);
+        return testDataHelper.insertTestAddress(address);
+    }
+
+    private AddressBulkDeleteResult bulkDelete(Map<String, Object> request, boolean soft) {
+        return buildBulkDeleteRequest(request, soft)
+                .expectStatus().isOk()
+                .expectBody(AddressBulkDeleteResult.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private ResponseSpec buildBulkDeleteRequest(Map<String, Object> request, boolean soft) {
+        return webTestClient
+                .post()
+                .uri(builder -> builder.path(BULK_DELETE_URI).queryParam("soft", soft).build())
+                .bodyValue(request)
+                .exchange();
+    }
+
+}
@@ -0,0 +1,80 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+        properties = "logistics.address-search.count-estimate-threshold=5")
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class AddressCountEstimateIT {
+
+    private static final String ADDRESS_SEARCH_URI = "/addresses/search";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+    }
+
+    @Test
+    public void givenMoreMatchesThanThreshold_whenSearchWithPaging_thenReturnEstimatedTotalCount() throws Exception {
+        insertAddressesInCity("Debrecen", 21);
+
+        HttpHeaders headers = search("debr", 10);
+
+        assertThat(headers.getFirst("X-Total-Count-Estimated")).isEqualTo("true");
+        // The index may still hold addresses deleted by clearDb, so it only bounds the count from above
+        assertThat(Long.parseLong(headers.getFirst("X-Total-Count"))).isGreaterThanOrEqualTo(21);
+    }
+
+    @Test
+    public void givenFewerMatchesThanThreshold_whenSearchWithPaging_thenReturnExactTotalCount() throws Exception {
+        insertAddressesInCity("Szolnok", 4);
+
+        HttpHeaders headers = search("szol", 2);
+
+        assertThat(headers.getFirst("X-Total-Count-Estimated")).isNull();
+        assertThat(headers.getFirst("X-Total-Count")).isEqualTo("4");
+    }
+
+    private void insertAddressesInCity(String city, int count) {
+        for (int i = 0; i < count; i++) {
+            Address address = testDataHelper.createTestAddress();
+            address.setCity(city);
+            address.setNumber(String.valueOf(i + 1));
+            testDataHelper.insertTestAddress(address);
+        }
+    }
+
+    private HttpHeaders search(String cityPrefix, int size) {
+        Address example = new Address();
+        example.setCity(cityPrefix);
+        return webTestClient
+                .post()
+                .uri(builder -> builder.path(ADDRESS_SEARCH_URI).queryParam("page", 0).queryParam("size", size).build())
+                .bodyValue(example)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Address.class)
+                .getResponseHeaders();
+    }
+
+}
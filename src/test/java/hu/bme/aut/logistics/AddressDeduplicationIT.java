@@ -0,0 +1,106 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.service.AddressDeduplicationResult;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class AddressDeduplicationIT {
+
+    private static final String ADDRESSES_URI = "/addresses";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+    }
+
+    @Test
+    public void givenSameAddressUpsertedTwice_thenReturnTheFirstNormalized() throws Exception {
+        Address first = upsert(new Address(47.5, 19.04, "hu", "budapest", "1111", "magyar tudósok körútja", "2"));
+        Address second = upsert(new Address(47.5, 19.04, "HU", "BUDAPEST", "1111", "MAGYAR TUDÓSOK KÖRÚTJA", "2"));
+
+        assertThat(first.getCity()).isEqualTo("Budapest");
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(addressRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenDuplicateGroups_whenDeduplicate_thenKeepFirstOfEachNormalizedAndRepointMilestones() throws Exception {
+        Address budapest = testDataHelper.insertTestAddress(
+                new Address(47.5, 19.04, "hu", "budapest", "1111", "magyar tudósok körútja", "2"));
+        Address budapestDuplicate = testDataHelper.insertTestAddress(
+                new Address(47.5, 19.04, "HU", "BUDAPEST", "1111", "Magyar tudósok körútja", "2"));
+        Address other = testDataHelper.insertTestAddress(
+                new Address(47.5, 19.04, "hu", "budapest", "1111", "magyar tudósok körútja", "2"));
+        Address otherDuplicate = testDataHelper.insertTestAddress(
+                new Address(47.5, 19.04, "HU", "BUDAPEST", "1111", "Magyar tudósok körútja", "2"));
+        // Changed behind the fingerprint index, which still has all four in one group
+        jdbcTemplate.update("UPDATE address SET street = 'PETŐFI SÁNDOR UTCA' WHERE id IN (?, ?)", other.getId(), otherDuplicate.getId());
+        Milestone milestone = milestoneRepository.save(new Milestone(budapestDuplicate, LocalDateTime.of(2020, 3, 1, 10, 0)));
+
+        AddressDeduplicationResult result = webTestClient
+                .post()
+                .uri(ADDRESSES_URI + "/deduplicate")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AddressDeduplicationResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(result.getMergedGroups()).isEqualTo(2);
+        assertThat(result.getRemovedAddresses()).isEqualTo(2);
+        assertThat(result.getRepointedMilestones()).isEqualTo(1);
+        assertThat(addressRepository.existsById(budapestDuplicate.getId())).isFalse();
+        assertThat(addressRepository.existsById(otherDuplicate.getId())).isFalse();
+        assertThat(addressRepository.findById(budapest.getId()).get().getCity()).isEqualTo("Budapest");
+        assertThat(addressRepository.findById(other.getId()).get().getStreet()).isEqualTo("Petőfi sándor utca");
+        assertThat(milestoneRepository.findById(milestone.getId()).get().getAddress().getId()).isEqualTo(budapest.getId());
+    }
+
+    private Address upsert(Address address) {
+        return webTestClient
+                .post()
+                .uri(uriBuilder -> uriBuilder.path(ADDRESSES_URI).queryParam("upsert", true).build())
+                .bodyValue(address)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Address.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+}
@@ -0,0 +1,126 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.service.AddressImportResult;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class AddressImportIT {
+
+    private static final String ADDRESS_IMPORT_URI = "/addresses/import";
+    private static final MediaType CSV = MediaType.valueOf("text/csv");
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+    }
+
+    @Test
+    public void givenJsonArray_whenImport_thenInsertValidRowsAndReportInvalidOnes() throws Exception {
+        Address withoutCity = testDataHelper.createTestAddress();
+        withoutCity.setCity(null);
+        Address withId = testDataHelper.createTestAddress();
+        withId.setId(42L);
+
+        AddressImportResult result = importAddresses(MediaType.APPLICATION_JSON, List.of(
+                testDataHelper.createTestAddress(), withoutCity, testDataHelper.createTestAddress(), withId));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(AddressImportResult.RowError::getRow).containsExactly(2, 4);
+        assertThat(result.getErrors()).extracting(AddressImportResult.RowError::getMessage)
+                .containsExactly("city is required", "id must not be set");
+        assertThat(addressRepository.findAll()).hasSize(2).allMatch(address -> address.getCity().equals("Budapest"));
+    }
+
+    @Test
+    public void givenMalformedJson_whenImport_thenKeepRowsReadBeforeAndStop() throws Exception {
+        String body = "[{\"country\":\"HU\",\"city\":\"Budapest\",\"zipCode\":\"1111\",\"street\":\"Fő utca\",\"number\":\"1\"},"
+                + " {\"country\": ";
+
+        AddressImportResult result = importAddresses(MediaType.APPLICATION_JSON, body);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).getRow()).isEqualTo(2);
+        assertThat(result.getErrors().get(0).getMessage()).startsWith("malformed JSON, import stopped");
+        assertThat(addressRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenCsv_whenImport_thenInsertValidRowsAndReportInvalidOnes() throws Exception {
+        String body = "Country,City,ZipCode,Street,Number,GeoLat,GeoLng\n"
+                + "HU,Budapest,1111,\"Magyar tudósok körútja, B épület\",2,47.47,19.05\n"
+                + "HU,Szeged,6720,Dóm tér,1,north,20.14\n"
+                + "\n"
+                + "HU,Debrecen,4024,Piac utca,3,,\n";
+
+        AddressImportResult result = importAddresses(CSV, body);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(AddressImportResult.RowError::getRow).containsExactly(2);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("invalid geolat: north");
+        Address budapest = findByCity("Budapest");
+        assertThat(budapest.getStreet()).isEqualTo("Magyar tudósok körútja, B épület");
+        assertThat(budapest.getGeoLat()).isEqualTo(47.47);
+        assertThat(findByCity("Debrecen").getGeoLat()).isNull();
+    }
+
+    @Test
+    public void givenCsvWithUnknownColumn_whenImport_thenReturnBadRequest() throws Exception {
+        buildImportRequest(CSV, "country,city,zipcode,street,number,floor\n")
+                .expectStatus().isBadRequest();
+        assertThat(addressRepository.count()).isZero();
+    }
+
+    private Address findByCity(String city) {
+        return addressRepository.findAll().stream()
+                .filter(address -> address.getCity().equals(city))
+                .findFirst()
+                .get();
+    }
+
+    private AddressImportResult importAddresses(MediaType contentType, Object body) {
+        return buildImportRequest(contentType, body)
+                .expectStatus().isOk()
+                .expectBody(AddressImportResult.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private ResponseSpec buildImportRequest(MediaType contentType, Object body) {
+        return webTestClient
+                .post()
+                .uri(ADDRESS_IMPORT_URI)
+                .contentType(contentType)
+                .bodyValue(body)
+                .exchange();
+    }
+
+}
@@ -0,0 +1,96 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class AddressMilestonesIT {
+
+    private static final String ADDRESS_MILESTONES_URI = "/addresses/{id}/milestones";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    private Address address;
+    private Milestone later;
+    private Milestone earlier;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+        address = testDataHelper.insertTestAddress();
+        later = milestoneRepository.save(new Milestone(address, LocalDateTime.of(2020, 3, 2, 10, 0)));
+        earlier = milestoneRepository.save(new Milestone(address, LocalDateTime.of(2020, 3, 1, 10, 0)));
+    }
+
+    @Test
+    public void givenMilestonesAtAddress_whenNoSort_thenSortedByPlannedTime() throws Exception {
+        List<Milestone> milestones = buildGetMilestonesRequest(null)
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Milestone>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(milestones).extracting(Milestone::getId).containsExactly(earlier.getId(), later.getId());
+    }
+
+    @Test
+    public void givenMilestonesAtAddress_whenSortedByIdDesc_thenSortedById() throws Exception {
+        List<Milestone> milestones = buildGetMilestonesRequest("id,desc")
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Milestone>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(milestones).extracting(Milestone::getId).containsExactly(earlier.getId(), later.getId());
+    }
+
+    @Test
+    public void givenMilestonesAtAddress_whenSortedByUnsupportedProperty_thenBadRequest() throws Exception {
+        buildGetMilestonesRequest("unknown")
+                .expectStatus().isBadRequest();
+        buildGetMilestonesRequest("address")
+                .expectStatus().isBadRequest();
+    }
+
+    private ResponseSpec buildGetMilestonesRequest(String sort) {
+        return webTestClient
+                .get()
+                .uri(builder -> {
+                    builder.path(ADDRESS_MILESTONES_URI);
+                    if (sort != null)
+                        builder.queryParam("sort", sort);
+                    return builder.build(address.getId());
+                })
+                .exchange();
+    }
+
+}
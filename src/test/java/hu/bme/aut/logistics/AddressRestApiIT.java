@@ -3,8 +3,11 @@ package hu.bme.aut.logistics;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.lang.reflect.InvocationTargetException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,13 +20,19 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.reactive.server.WebTestClient.RequestBodySpec;
 import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
 import org.springframework.web.util.UriBuilder;
 
 import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
 import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
 import hu.bme.aut.logistics.test.TestDataHelper;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
@@ -44,6 +53,12 @@ public class AddressRestApiIT {
     @Autowired
     AddressRepository addressRepository;
 
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     public void init() {
         testDataHelper.clearDb();
@@ -186,6 +201,21 @@ public class AddressRestApiIT {
         assertThat(addressRepository.findById(id)).isNotEmpty();
     }
 
+    @Test
+    public void givenAddressReferencedByMilestone_whenDeleteAddress_thenConflictAndNothingIsDeleted()
+            throws Exception {
+
+        Address address = testDataHelper.insertTestAddress();
+        Long id = address.getId();
+        milestoneRepository.save(new Milestone(address, LocalDateTime.of(2020, 3, 1, 10, 0)));
+
+        webTestClient.delete()
+                .uri(builder -> builder.path(ADDRESS_WITH_ID_URI).build(id))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+        assertThat(addressRepository.findById(id)).isNotEmpty();
+    }
+
     /***TEST CASES FOR PUT****/
 
     @ParameterizedTest
@@ -285,6 +315,104 @@ public class AddressRestApiIT {
     }
 
 
+    /***TEST CASES FOR CONDITIONAL REQUESTS****/
+
+    @Test
+    public void givenETagOfAddress_whenGetAddressIfNoneMatch_thenNotModified()
+            throws Exception {
+
+        Address address = testDataHelper.insertTestAddress();
+        String etag = getETag(buildGetAddressRequest(address.getId()));
+
+        webTestClient.get()
+                .uri(builder -> builder.path(ADDRESS_WITH_ID_URI).build(address.getId()))
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void givenETagOfAddress_whenAddressIsModifiedAndGetIfNoneMatch_thenNewETagAndBody()
+            throws Exception {
+
+        Address address = testDataHelper.insertTestAddress();
+        String etag = getETag(buildGetAddressRequest(address.getId()));
+        address.setCity("Győr");
+        putAddress(address.getId(), address);
+
+        Address returnedAddress = webTestClient.get()
+                .uri(builder -> builder.path(ADDRESS_WITH_ID_URI).build(address.getId()))
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(etag))
+                .expectBody(Address.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(returnedAddress.getCity()).isEqualTo("Győr");
+    }
+
+    @Test
+    public void givenETagOfAllAddresses_whenGetAddressesIfNoneMatch_thenNotModifiedUntilOneIsAdded()
+            throws Exception {
+
+        testDataHelper.insertTestAddress();
+        String etag = getETag(webTestClient.get().uri(ADDRESSES_URI).exchange());
+
+        webTestClient.get()
+                .uri(ADDRESSES_URI)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        testDataHelper.insertTestAddress();
+        webTestClient.get()
+                .uri(ADDRESSES_URI)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void givenCurrentETag_whenPutAddressIfMatch_thenAddressIsModified()
+            throws Exception {
+
+        Address address = testDataHelper.insertTestAddress();
+        String etag = getETag(buildGetAddressRequest(address.getId()));
+        address.setCity("Győr");
+
+        webTestClient.put()
+                .uri(builder -> builder.path(ADDRESS_WITH_ID_URI).build(address.getId()))
+                .header(HttpHeaders.IF_MATCH, etag)
+                .bodyValue(address)
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(addressRepository.findById(address.getId()).get().getCity()).isEqualTo("Győr");
+    }
+
+    @Test
+    public void givenOutdatedETag_whenPutAddressIfMatch_thenPreconditionFailedAndNothingIsModified()
+            throws Exception {
+
+        Address address = testDataHelper.insertTestAddress();
+        String etag = getETag(buildGetAddressRequest(address.getId()));
+        address.setCity("Győr");
+        putAddress(address.getId(), address);
+        address.setCity("Pécs");
+
+        webTestClient.put()
+                .uri(builder -> builder.path(ADDRESS_WITH_ID_URI).build(address.getId()))
+                .header(HttpHeaders.IF_MATCH, etag)
+                .bodyValue(address)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        assertThat(addressRepository.findById(address.getId()).get().getCity()).isEqualTo("Győr");
+    }
+
     /** TEST CASES FOR SEARCH **/
 
     /**
@@ -328,6 +456,23 @@ public class AddressRestApiIT {
         assertAddress(foundAddresses, address2);
     }
 
+    @Test
+    public void givenAddressWrittenOutsideJpa_whenSearchByPrefix_thenOnlyIndexedAddressesAreReturned()
+            throws Exception {
+
+        Address indexed = testDataHelper.createTestAddress();
+        indexed.setCity("Szentendre");
+        testDataHelper.insertTestAddress(indexed);
+        jdbcTemplate.update("INSERT INTO address (id, country, city, zip_code, street, number) VALUES (?, ?, ?, ?, ?, ?)",
+                1_000_000L, "HU", "Szeged", "6720", "Dugonics tér", "13");
+        Address example = new Address();
+        example.setCity("sz");
+
+        // The index is authoritative, so the query is restricted to its candidates
+        List<Address> foundAddresses = searchAddresses(example);
+        assertThat(foundAddresses).extracting(Address::getId).containsExactly(indexed.getId());
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"country", "city", "street"})
     public void givenAddressesInDb_whenSearchByExactProperty_thenReturnMatchingAddresses(String prop)
@@ -441,6 +586,22 @@ public class AddressRestApiIT {
 
     }
 
+    @Test
+    public void givenTotalCountCached_whenMatchingAddressPosted_thenXTotalCountIncludesIt() throws Exception {
+
+        List<Address> matchingAddresses = insertAddressesWithDifferentNumbers(21);
+        Address example = matchingAddresses.get(0);
+        buildSearchAddressRequest(example, 0, 10, null)
+                .expectHeader().valueEquals("X-Total-Count", String.valueOf(21));
+
+        buildPostAddressRequest(testDataHelper.createTestAddress())
+                .expectStatus().isOk();
+
+        buildSearchAddressRequest(example, 0, 10, null)
+                .expectHeader().valueEquals("X-Total-Count", String.valueOf(22))
+                .expectHeader().doesNotExist("X-Total-Count-Estimated");
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"country", "city", "street", "zipCode", "number", "geoLat", "geoLng"})
     public void givenAddressesInDb_whenSearchByAllSupportedPropertiesWithSortWithoutDirection_thenReturnMatchingAddressesInProperOrder(String sortProp) throws Exception {
@@ -533,6 +694,15 @@ public class AddressRestApiIT {
         assertThat(foundPage.get(0)).isEqualToComparingFieldByField(matchingAddresses.get(8));
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"deletedAt", "unknown", "unknown,desc"})
+    public void givenAddressesInDb_whenSearchSortedByUnsupportedProperty_thenReturnBadRequest(String sortParam) throws Exception {
+        testDataHelper.insertTestAddress();
+
+        buildSearchAddressRequest(testDataHelper.createTestAddress(), 0, 4, sortParam)
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void givenAddressesInDb_whenSearchByAllSupportedPropertiesWithNoSize_thenReturnAllMatchingAddresses() throws Exception {
 
@@ -570,6 +740,101 @@ public class AddressRestApiIT {
     }
 
     
+    /**
+     * 2.c: TEST CASES WITH CURSOR (KEYSET) PAGING
+     **/
+
+    @Test
+    public void givenAddressesInDb_whenGetAddressesWithCursor_thenWalkAllPagesInIdOrder() throws Exception {
+
+        List<Address> addresses = insertAddressesWithDifferentNumbers(21);
+
+        List<Address> walked = walkPages(cursor -> buildGetAddressesWithCursorRequest(cursor, 10, null), 3);
+
+        assertThat(walked).extracting(Address::getId)
+                .containsExactlyElementsOf(addresses.stream().map(Address::getId).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void givenAddressesInDb_whenSearchWithCursorSortedDesc_thenWalkMatchingAddressesInOrder() throws Exception {
+
+        List<Address> matchingAddresses = insertAddressesWithDifferentProps(5, "city");
+        Address nonMatching = testDataHelper.createTestAddress();
+        nonMatching.setCity("nomatch");
+        testDataHelper.insertTestAddress(nonMatching);
+        Address example = new Address();
+        example.setCity("Budapest");
+
+        List<Address> walked = walkPages(cursor -> buildSearchAddressWithCursorRequest(example, cursor, 2, "city,desc"), 3);
+
+        assertThat(walked).extracting(Address::getCity)
+                .containsExactly("Budapest5", "Budapest4", "Budapest3", "Budapest2", "Budapest1");
+        assertThat(walked).hasSameSizeAs(matchingAddresses);
+    }
+
+    @Test
+    public void whenGetAddressesWithMalformedCursor_thenReturnBadRequest() throws Exception {
+        buildGetAddressesWithCursorRequest("not a cursor", 10, null)
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void whenGetAddressesWithCursorSortedByTwoProperties_thenReturnBadRequest() throws Exception {
+        buildGetAddressesWithCursorRequest("", 10, "city,street")
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void whenSearchWithCursorAndZeroSize_thenReturnBadRequest() throws Exception {
+        buildSearchAddressWithCursorRequest(new Address(), "", 0, null)
+                .expectStatus().isBadRequest();
+    }
+
+    private List<Address> walkPages(Function<String, ResponseSpec> request, int expectedPages) {
+        List<Address> walked = new ArrayList<>();
+        String cursor = "";
+        for (int page = 1; cursor != null; page++) {
+            assertThat(page).isLessThanOrEqualTo(expectedPages);
+            EntityExchangeResult<List<Address>> result = request.apply(cursor)
+                    .expectStatus().isOk()
+                    .expectBody(new ParameterizedTypeReference<List<Address>>() {
+                    })
+                    .returnResult();
+            walked.addAll(result.getResponseBody());
+            cursor = result.getResponseHeaders().getFirst("X-Next-Cursor");
+            if (cursor == null)
+                assertThat(page).isEqualTo(expectedPages);
+        }
+        return walked;
+    }
+
+    private ResponseSpec buildGetAddressesWithCursorRequest(String cursor, int size, String sort) {
+        return webTestClient.get()
+                .uri(builder -> {
+                    UriBuilder path = builder.path(ADDRESSES_URI)
+                            .queryParam("cursor", cursor)
+                            .queryParam("size", size);
+                    if (sort != null)
+                        path = path.queryParam("sort", sort);
+                    return path.build();
+                })
+                .exchange();
+    }
+
+    private ResponseSpec buildSearchAddressWithCursorRequest(Address example, String cursor, int size, String sort) {
+        return webTestClient.post()
+                .uri(builder -> {
+                    UriBuilder path = builder.path(ADDRESS_SEARCH_URI)
+                            .queryParam("cursor", cursor)
+                            .queryParam("size", size);
+                    if (sort != null)
+                        path = path.queryParam("sort", sort);
+                    return path.build();
+                })
+                .bodyValue(example)
+                .exchange();
+    }
+
     private List<Address> insertAddressesWithDifferentNumbers(int count) throws Exception {
         return insertAddressesWithDifferentProps(count, "number");
     }
@@ -630,6 +895,16 @@ public class AddressRestApiIT {
                 .exchange();
     }
 
+    private String getETag(ResponseSpec response) {
+        String etag = response
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+
     private void deleteAddress(Long id) {
         webTestClient.delete()
                 .uri(builder -> builder.path(ADDRESS_WITH_ID_URI).build(id))
@@ -0,0 +1,64 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+        properties = "logistics.address-search.index-authoritative=false")
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class AddressSearchIndexHintIT {
+
+    private static final String ADDRESS_SEARCH_URI = "/addresses/search";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+    }
+
+    @Test
+    public void givenAddressWrittenOutsideJpa_whenSearchByPrefix_thenReturnIt() throws Exception {
+        testDataHelper.insertTestAddress();
+        jdbcTemplate.update("INSERT INTO address (id, country, city, zip_code, street, number) VALUES (?, ?, ?, ?, ?, ?)",
+                1_000_000L, "HU", "Szeged", "6720", "Dugonics tér", "13");
+        Address example = new Address();
+        example.setCity("sze");
+
+        List<Address> foundAddresses = webTestClient
+                .post()
+                .uri(ADDRESS_SEARCH_URI)
+                .bodyValue(example)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Address>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+        assertThat(foundAddresses).extracting(Address::getId).containsExactly(1_000_000L);
+    }
+
+}
@@ -0,0 +1,111 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import hu.bme.aut.logistics.service.ChangeFeed;
+import hu.bme.aut.logistics.test.TestDataHelper;
+import hu.bme.aut.logistics.web.ChangeFeedBroadcaster;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class ChangeFeedIT {
+
+    private static final String CHANGES_URI = "/changes";
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    ChangeFeedBroadcaster changeFeedBroadcaster;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+    }
+
+    // The subscription of a client that stopped reading is only dropped when a
+    // write to it fails, so heartbeat until it is, before the next test writes
+    @AfterEach
+    public void awaitNoSubscribers() throws InterruptedException {
+        for (int attempt = 0; attempt < 50 && changeFeedBroadcaster.getSubscriberCount() > 0; attempt++) {
+            changeFeedBroadcaster.heartbeat();
+            Thread.sleep(100);
+        }
+        assertThat(changeFeedBroadcaster.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    public void givenEventIdOfThisEpoch_whenSubscribe_thenResumeAfterIt() throws Exception {
+        String lastEventId = changeFeed.eventId(changeFeed.getLastSequence());
+        testDataHelper.insertTransportPlans();
+
+        ServerSentEvent<String> event = subscribe(lastEventId).get(0);
+
+        assertThat(event.event()).isEqualTo("change");
+        assertThat(event.id()).isEqualTo(changeFeed.eventId(changeFeed.sequenceOf(lastEventId) + 1));
+    }
+
+    @Test
+    public void givenEventIdOfAnotherEpoch_whenSubscribe_thenReset() throws Exception {
+        testDataHelper.insertTransportPlans();
+
+        List<ServerSentEvent<String>> events = subscribe("0badc0de-1");
+
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).event()).isEqualTo("reset");
+        assertThat(events.get(0).data()).isEqualTo(changeFeed.eventId(changeFeed.getLastSequence()));
+    }
+
+    @Test
+    public void givenEventIdWithoutEpoch_whenSubscribe_thenBadRequest() throws Exception {
+        webTestClient
+                .get()
+                .uri(CHANGES_URI)
+                .header("Last-Event-ID", "1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private List<ServerSentEvent<String>> subscribe(String lastEventId) {
+        return webTestClient
+                .get()
+                .uri(CHANGES_URI)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", lastEventId)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(EVENT_TYPE)
+                .getResponseBody()
+                .filter(event -> event.event() != null)
+                .take(1)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+    }
+
+}
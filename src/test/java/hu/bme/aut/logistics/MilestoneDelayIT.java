@@ -0,0 +1,141 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.service.MilestoneDelay;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class MilestoneDelayIT {
+
+    private static final String DELAYS_URI = "/milestones/delays";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    private List<TransportPlan> allTransportPlans;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+        allTransportPlans = testDataHelper.insertTransportPlans();
+    }
+
+    @Test
+    public void givenDelayOfFirstSectionEnd_thenItAndLaterMilestonesOfThePlanAreShifted() throws Exception {
+        List<Section> sections = allTransportPlans.get(1).getSections();
+        Milestone first = sections.get(0).getFromMilestone();
+        Milestone delayed = sections.get(0).getToMilestone();
+
+        List<Milestone> shifted = registerDelays(List.of(new MilestoneDelay(delayed.getId(), 90L)));
+
+        assertThat(shifted).extracting(Milestone::getId).containsExactly(delayed.getId(),
+                sections.get(1).getFromMilestone().getId(), sections.get(1).getToMilestone().getId());
+        assertThat(plannedTime(delayed)).isEqualTo(LocalDateTime.of(2020, 10, 30, 14, 0, 0));
+        assertThat(plannedTime(sections.get(1).getFromMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 29, 14, 0, 0));
+        assertThat(plannedTime(sections.get(1).getToMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 30, 14, 0, 0));
+        assertThat(plannedTime(first)).isEqualTo(LocalDateTime.of(2020, 10, 29, 12, 30, 0));
+        Milestone otherPlan = allTransportPlans.get(0).getSections().get(1).getToMilestone();
+        assertThat(plannedTime(otherPlan)).isEqualTo(LocalDateTime.of(2019, 1, 30, 12, 30, 0));
+    }
+
+    @Test
+    public void givenDelaysOfTwoMilestonesOfAPlan_thenLaterMilestonesAreShiftedByTheirSum() throws Exception {
+        List<Section> sections = allTransportPlans.get(1).getSections();
+
+        registerDelays(List.of(
+                new MilestoneDelay(sections.get(0).getFromMilestone().getId(), 30L),
+                new MilestoneDelay(sections.get(1).getFromMilestone().getId(), -10L)));
+
+        assertThat(plannedTime(sections.get(0).getToMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 30, 13, 0, 0));
+        assertThat(plannedTime(sections.get(1).getToMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 50, 0));
+    }
+
+    @Test
+    public void givenDelayAndEarlierArrivalOfAPlan_thenMilestonesAfterBothAreShiftedByTheirSum() throws Exception {
+        List<Section> sections = allTransportPlans.get(1).getSections();
+
+        registerDelays(List.of(
+                new MilestoneDelay(sections.get(0).getFromMilestone().getId(), 10L),
+                new MilestoneDelay(sections.get(0).getToMilestone().getId(), -30L)));
+
+        assertThat(plannedTime(sections.get(0).getFromMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 29, 12, 40, 0));
+        assertThat(plannedTime(sections.get(0).getToMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 10, 0));
+        assertThat(plannedTime(sections.get(1).getFromMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 29, 12, 10, 0));
+        assertThat(plannedTime(sections.get(1).getToMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 10, 0));
+    }
+
+    @Test
+    public void givenUnknownMilestone_thenNotFoundAndNothingIsShifted() throws Exception {
+        Milestone milestone = allTransportPlans.get(1).getSections().get(0).getToMilestone();
+
+        buildRegisterDelaysRequest(List.of(
+                new MilestoneDelay(milestone.getId(), 30L),
+                new MilestoneDelay(milestone.getId() + 1000, 30L)))
+                .expectStatus().isNotFound();
+
+        assertThat(plannedTime(milestone)).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 30, 0));
+    }
+
+    @Test
+    public void givenNoDelays_thenBadRequest() throws Exception {
+        buildRegisterDelaysRequest(List.of())
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void givenDelayWithoutMinutes_thenBadRequest() throws Exception {
+        Milestone milestone = allTransportPlans.get(1).getSections().get(0).getToMilestone();
+
+        buildRegisterDelaysRequest(List.of(new MilestoneDelay(milestone.getId(), null)))
+                .expectStatus().isBadRequest();
+    }
+
+    private List<Milestone> registerDelays(List<MilestoneDelay> delays) {
+        return buildRegisterDelaysRequest(delays)
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Milestone>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private ResponseSpec buildRegisterDelaysRequest(List<MilestoneDelay> delays) {
+        return webTestClient
+                .post()
+                .uri(DELAYS_URI)
+                .bodyValue(delays)
+                .exchange();
+    }
+
+    private LocalDateTime plannedTime(Milestone milestone) {
+        return milestoneRepository.findById(milestone.getId()).get().getPlannedTime();
+    }
+
+}
@@ -0,0 +1,127 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.service.MilestoneUpdateQueue;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+// The scheduled flush is pushed out of the way, the tests flush when they need to
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "logistics.milestone-updates.capacity=2",
+        "logistics.milestone-updates.flush-interval=3600000" })
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class MilestoneUpdateQueueIT {
+
+    private static final String UPDATES_URI = "/milestones/updates";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    MilestoneUpdateQueue milestoneUpdateQueue;
+
+    private List<TransportPlan> allTransportPlans;
+
+    @BeforeEach
+    public void init() {
+        milestoneUpdateQueue.flush();
+        testDataHelper.clearDb();
+        allTransportPlans = testDataHelper.insertTransportPlans();
+    }
+
+    @Test
+    public void givenUpdatesOfOneMilestone_whenFlushed_thenCoalescedAndDelayIsPropagated() throws Exception {
+        List<Section> sections = allTransportPlans.get(1).getSections();
+        Milestone milestone = sections.get(0).getToMilestone();
+        long coalescedBefore = milestoneUpdateQueue.getStats().getCoalesced();
+
+        buildQueueUpdatesRequest(List.of(
+                Map.of("milestoneId", milestone.getId(), "plannedTime", "2020-10-30T15:00:00"),
+                Map.of("milestoneId", milestone.getId(), "delayMinutes", 30)))
+                .expectStatus().isAccepted();
+
+        assertThat(plannedTime(milestone)).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 30, 0));
+        assertThat(milestoneUpdateQueue.getStats().getDepth()).isEqualTo(1);
+        assertThat(milestoneUpdateQueue.getStats().getCoalesced()).isEqualTo(coalescedBefore + 1);
+
+        milestoneUpdateQueue.flush();
+
+        assertThat(plannedTime(milestone)).isEqualTo(LocalDateTime.of(2020, 10, 30, 15, 30, 0));
+        assertThat(plannedTime(sections.get(1).getToMilestone())).isEqualTo(LocalDateTime.of(2020, 10, 30, 13, 0, 0));
+        assertThat(milestoneUpdateQueue.getStats().getDepth()).isZero();
+    }
+
+    @Test
+    public void givenQueueIsFull_whenUpdateOfAnotherMilestoneQueued_thenTooManyRequests() throws Exception {
+        List<Section> sections = allTransportPlans.get(1).getSections();
+        long rejectedBefore = milestoneUpdateQueue.getStats().getRejected();
+        buildQueueUpdatesRequest(List.of(
+                Map.of("milestoneId", sections.get(0).getFromMilestone().getId(), "delayMinutes", 10),
+                Map.of("milestoneId", sections.get(0).getToMilestone().getId(), "delayMinutes", 10)))
+                .expectStatus().isAccepted();
+
+        buildQueueUpdatesRequest(List.of(
+                Map.of("milestoneId", sections.get(1).getToMilestone().getId(), "delayMinutes", 10)))
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(milestoneUpdateQueue.getStats().getRejected()).isEqualTo(rejectedBefore + 1);
+
+        // Still fits, as it is coalesced with a pending update
+        buildQueueUpdatesRequest(List.of(
+                Map.of("milestoneId", sections.get(0).getToMilestone().getId(), "delayMinutes", 10)))
+                .expectStatus().isAccepted();
+    }
+
+    @Test
+    public void givenUpdateWithoutMilestoneId_thenBadRequest() throws Exception {
+        buildQueueUpdatesRequest(List.of(Map.of("delayMinutes", 10)))
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void givenUpdateWithoutTimeOrDelay_thenBadRequest() throws Exception {
+        Milestone milestone = allTransportPlans.get(1).getSections().get(0).getToMilestone();
+
+        buildQueueUpdatesRequest(List.of(Map.of("milestoneId", milestone.getId())))
+                .expectStatus().isBadRequest();
+        assertThat(milestoneUpdateQueue.getStats().getDepth()).isZero();
+    }
+
+    private ResponseSpec buildQueueUpdatesRequest(List<Map<String, Object>> updates) {
+        return webTestClient
+                .post()
+                .uri(UPDATES_URI)
+                .bodyValue(updates)
+                .exchange();
+    }
+
+    private LocalDateTime plannedTime(Milestone milestone) {
+        return milestoneRepository.findById(milestone.getId()).get().getPlannedTime();
+    }
+
+}
@@ -0,0 +1,125 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import hu.bme.aut.logistics.index.GeoDistance;
+import hu.bme.aut.logistics.index.PlanGraph;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+// The scheduled refresh is pushed out of the way, the tests refresh when they need to
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "logistics.plan-graph.refresh-interval=3600000")
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class PlanGraphIT {
+
+    private static final String ROUTES_URI = "/transportplans/routes";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    PlanGraph planGraph;
+
+    private List<TransportPlan> allTransportPlans;
+    private double distance;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+        allTransportPlans = testDataHelper.insertTransportPlans();
+        Address budapest = testDataHelper.insertTestAddress();
+        Address debrecen = testDataHelper.createTestAddress();
+        debrecen.setCity("Debrecen");
+        debrecen.setGeoLat(47.531399);
+        debrecen.setGeoLng(21.627312);
+        testDataHelper.insertTestAddress(debrecen);
+        List<Section> sections = allTransportPlans.get(1).getSections();
+        setAddress(sections.get(0).getFromMilestone(), budapest);
+        setAddress(sections.get(0).getToMilestone(), debrecen);
+        setAddress(sections.get(1).getFromMilestone(), debrecen);
+        setAddress(sections.get(1).getToMilestone(), budapest);
+        distance = GeoDistance.haversineKm(budapest.getGeoLat(), budapest.getGeoLng(), debrecen.getGeoLat(),
+                debrecen.getGeoLng());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRefreshedGraph_whenFindRoutes_thenServedFromSnapshot() throws Exception {
+        TransportPlan plan = allTransportPlans.get(1);
+        assertThat(planGraph.isCurrent(plan.getId())).isFalse();
+
+        planGraph.refresh();
+
+        assertThat(planGraph.isCurrent(plan.getId())).isTrue();
+        List<Map<String, Object>> routes = findRoutes(plan.getId(), allTransportPlans.get(0).getId(),
+                plan.getId() + 1000);
+        assertThat(routes).extracting(route -> ((Number) route.get("transportPlanId")).longValue())
+                .containsExactly(plan.getId(), allTransportPlans.get(0).getId());
+        assertThat((List<Map<String, Object>>) routes.get(0).get("sections"))
+                .extracting(section -> section.get("distanceKm"))
+                .containsExactly(distance, distance);
+        assertThat(routes.get(0).get("totalDistanceKm")).isEqualTo(2 * distance);
+        assertThat(routes.get(0).get("totalDurationMinutes")).isEqualTo(24 * 60);
+        assertThat(routes.get(1).get("totalDistanceKm")).isNull();
+    }
+
+    @Test
+    public void givenMilestoneChangedAfterRefresh_whenFindRoutes_thenChangeIsSeenBeforeNextRefresh() throws Exception {
+        TransportPlan plan = allTransportPlans.get(1);
+        planGraph.refresh();
+        Milestone milestone = milestoneRepository.findById(plan.getSections().get(1).getToMilestone().getId()).get();
+        milestone.setPlannedTime(milestone.getPlannedTime().plusHours(2));
+        milestoneRepository.save(milestone);
+
+        assertThat(planGraph.isCurrent(plan.getId())).isFalse();
+        assertThat(findRoutes(plan.getId()).get(0).get("totalDurationMinutes")).isEqualTo(26 * 60);
+
+        planGraph.refresh();
+
+        assertThat(planGraph.isCurrent(plan.getId())).isTrue();
+        assertThat(findRoutes(plan.getId()).get(0).get("totalDurationMinutes")).isEqualTo(26 * 60);
+    }
+
+    private void setAddress(Milestone milestone, Address address) {
+        Milestone stored = milestoneRepository.findById(milestone.getId()).get();
+        stored.setAddress(address);
+        milestoneRepository.save(stored);
+    }
+
+    private List<Map<String, Object>> findRoutes(Long... ids) {
+        return webTestClient
+                .get()
+                .uri(builder -> builder.path(ROUTES_URI).queryParam("ids", (Object[]) ids).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Map<String, Object>>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+    }
+
+}
@@ -0,0 +1,12 @@
+package hu.bme.aut.logistics;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+/**
+ * Runs {@link AddressRestApiIT} against the reactive controllers.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "spring.main.web-application-type=reactive")
+public class ReactiveAddressRestApiIT extends AddressRestApiIT {
+
+}
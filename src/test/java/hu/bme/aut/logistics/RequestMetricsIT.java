@@ -0,0 +1,112 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.context.WebApplicationContext;
+
+import hu.bme.aut.logistics.metrics.RequestMetrics;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class RequestMetricsIT {
+
+    private static final String SEARCH_ENDPOINT = "POST /addresses/search";
+    private static final String STREAM_ENDPOINT = "GET /addresses/stream";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    RequestMetrics requestMetrics;
+
+    @Autowired
+    ApplicationContext applicationContext;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+        testDataHelper.insertTestAddress();
+    }
+
+    @Test
+    public void whenSearch_thenQueriesAreCountedForTheEndpoint() throws Exception {
+        long queriesBefore = queries(SEARCH_ENDPOINT);
+
+        webTestClient
+                .post()
+                .uri("/addresses/search")
+                .bodyValue(testDataHelper.createTestAddress())
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(awaitQueries(SEARCH_ENDPOINT, queriesBefore)).isGreaterThan(queriesBefore);
+    }
+
+    @Test
+    public void whenStream_thenQueriesOfTheAsyncTaskAreCounted() throws Exception {
+        assumeTrue(applicationContext instanceof WebApplicationContext, "streaming is served by the MVC controllers");
+        long queriesBefore = queries(STREAM_ENDPOINT);
+
+        webTestClient
+                .get()
+                .uri("/addresses/stream")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult();
+
+        assertThat(awaitQueries(STREAM_ENDPOINT, queriesBefore)).isGreaterThan(queriesBefore);
+    }
+
+    @Test
+    public void whenGetMetrics_thenLatencyIsExportedAsHistogram() throws Exception {
+        webTestClient
+                .post()
+                .uri("/addresses/search")
+                .bodyValue(testDataHelper.createTestAddress())
+                .exchange()
+                .expectStatus().isOk();
+
+        String metrics = webTestClient
+                .get()
+                .uri("/metrics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(metrics)
+                .contains("# TYPE logistics_http_request_duration_seconds histogram")
+                .contains("logistics_http_request_duration_seconds_bucket{endpoint=\"" + SEARCH_ENDPOINT + "\",le=\"0.001\"}")
+                .contains("logistics_http_request_duration_seconds_bucket{endpoint=\"" + SEARCH_ENDPOINT + "\",le=\"+Inf\"}")
+                .doesNotContain("quantile=");
+    }
+
+    // The request is recorded once the response completes, which may be after the client got it
+    private long awaitQueries(String endpoint, long before) throws InterruptedException {
+        for (int attempt = 0; attempt < 50 && queries(endpoint) == before; attempt++)
+            Thread.sleep(100);
+        return queries(endpoint);
+    }
+
+    private long queries(String endpoint) {
+        RequestMetrics.EndpointMetrics metrics = requestMetrics.getEndpoints().get(endpoint);
+        return metrics == null ? 0 : metrics.getQueries();
+    }
+
+}
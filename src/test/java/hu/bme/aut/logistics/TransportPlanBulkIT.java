@@ -0,0 +1,219 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.IdSequenceInitializer;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+import hu.bme.aut.logistics.repository.SectionRepository;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+import hu.bme.aut.logistics.service.TransportPlanBulkResult;
+import hu.bme.aut.logistics.service.TransportPlanDraft;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "logistics.transport-plan-import.chunk-size=2")
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class TransportPlanBulkIT {
+
+    private static final String BULK_URI = "/transportplans/bulk";
+    private static final LocalDateTime START = LocalDateTime.of(2020, 3, 1, 8, 0);
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    TransportPlanRepository transportPlanRepository;
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
+    @Autowired
+    IdSequenceInitializer idSequenceInitializer;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private Address address;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+        address = testDataHelper.insertTestAddress();
+    }
+
+    @AfterEach
+    public void dropConstraint() {
+        jdbcTemplate.execute("ALTER TABLE milestone DROP CONSTRAINT IF EXISTS ck_test_planned_time");
+    }
+
+    @Test
+    public void givenValidPlans_whenCreateBulk_thenPersistPlansWithSectionsAndMilestones() throws Exception {
+        TransportPlanBulkResult result = createBulk(plan(address.getId(), 0, 2, 4), plan(null, 1, 3));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.getPlanIds()).hasSize(2).doesNotContainNull();
+        TransportPlan plan = transportPlanRepository.findById(result.getPlanIds().get(0)).get();
+        assertThat(plan.getEarliestPlannedTime()).isEqualTo(START);
+        assertThat(plan.getLatestPlannedTime()).isEqualTo(START.plusHours(4));
+        assertThat(sectionRepository.count()).isEqualTo(3);
+        assertThat(milestoneRepository.count()).isEqualTo(6);
+        assertThat(milestoneRepository.findAll()).filteredOn(milestone -> milestone.getAddress() != null)
+                .hasSize(4)
+                .allMatch(milestone -> milestone.getAddress().getId().equals(address.getId()));
+    }
+
+    @Test
+    public void givenPlansCreatedInBulk_whenSearchByDateTime_thenMatchedByTheirLatestPlannedTime() throws Exception {
+        TransportPlanBulkResult result = createBulk(plan(address.getId(), 0, 2, 4), plan(null, 1, 3));
+
+        List<TransportPlan> plans = webTestClient
+                .get()
+                .uri(builder -> builder.path("/transportplans").queryParam("dateTime", "2020-03-01T11-30-00").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<TransportPlan>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(plans).extracting(TransportPlan::getId).containsExactly(result.getPlanIds().get(0));
+    }
+
+    @Test
+    public void givenUnknownAndDeletedAddresses_whenCreateBulk_thenReportThemByIndex() throws Exception {
+        Address deleted = testDataHelper.insertTestAddress();
+        jdbcTemplate.update("UPDATE address SET deleted_at = CURRENT_TIMESTAMP WHERE id = ?", deleted.getId());
+        long unknownId = deleted.getId() + 1_000_000;
+
+        TransportPlanBulkResult result = createBulk(
+                plan(address.getId(), 0, 2),
+                plan(address.getId(), 2, 1),
+                plan(unknownId, 0, 2),
+                plan(deleted.getId(), 0, 2),
+                plan(address.getId(), 0, 2));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getPlanIds()).hasSize(5);
+        assertThat(result.getPlanIds().get(0)).isNotNull();
+        assertThat(result.getPlanIds().subList(1, 4)).containsOnlyNulls();
+        assertThat(result.getPlanIds().get(4)).isNotNull();
+        assertThat(result.getErrors()).extracting(TransportPlanBulkResult.PlanError::getIndex).containsExactly(1, 2, 3);
+        assertThat(result.getErrors()).extracting(TransportPlanBulkResult.PlanError::getMessage).containsExactly(
+                "section 0 arrives before it departs",
+                "address " + unknownId + " does not exist",
+                "address " + deleted.getId() + " does not exist");
+        assertThat(transportPlanRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenChunkFailingOnInsert_whenCreateBulk_thenRollBackOnlyThatChunk() throws Exception {
+        jdbcTemplate.execute("ALTER TABLE milestone ADD CONSTRAINT ck_test_planned_time"
+                + " CHECK (planned_time < TIMESTAMP '2100-01-01 00:00:00')");
+        TransportPlanDraft failing = plan(address.getId(), 0, 2);
+        failing.getSections().get(0).getTo().setPlannedTime(LocalDateTime.of(2100, 6, 1, 0, 0));
+
+        TransportPlanBulkResult result = createBulk(
+                plan(address.getId(), 0, 2),
+                plan(address.getId(), 0, 2),
+                plan(address.getId(), 0, 2),
+                failing);
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getPlanIds().subList(0, 2)).doesNotContainNull();
+        assertThat(result.getPlanIds().subList(2, 4)).containsOnlyNulls();
+        assertThat(result.getErrors()).extracting(TransportPlanBulkResult.PlanError::getIndex).containsExactly(2, 3);
+        assertThat(result.getErrors()).allMatch(error -> error.getMessage().startsWith("not created: "));
+        assertThat(transportPlanRepository.count()).isEqualTo(2);
+        assertThat(sectionRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenMalformedJson_whenCreateBulk_thenKeepPlansReadBefore() throws Exception {
+        TransportPlanBulkResult result = webTestClient
+                .post()
+                .uri(BULK_URI)
+                .header("Content-Type", "application/json")
+                .bodyValue("[{\"sections\":[{\"from\":{\"plannedTime\":\"2020-03-01T08:00:00\"},"
+                        + "\"to\":{\"plannedTime\":\"2020-03-01T10:00:00\"}}]}, {\"sections\": [")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TransportPlanBulkResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(TransportPlanBulkResult.PlanError::getIndex).containsExactly(1);
+        assertThat(result.getErrors().get(0).getMessage()).startsWith("malformed JSON");
+    }
+
+    @Test
+    public void givenIdsAheadOfSequence_whenAdvanceSequences_thenSequenceContinuesAfterThem() throws Exception {
+        long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR transport_plan_seq", Long.class);
+        long aheadId = next + 10;
+        jdbcTemplate.update("INSERT INTO transport_plan (id, version) VALUES (?, 0)", aheadId);
+
+        idSequenceInitializer.advanceSequences();
+
+        long restarted = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR transport_plan_seq", Long.class);
+        assertThat(restarted - 50).isGreaterThanOrEqualTo(aheadId);
+    }
+
+    private TransportPlanBulkResult createBulk(TransportPlanDraft... drafts) {
+        return webTestClient
+                .post()
+                .uri(BULK_URI)
+                .bodyValue(Arrays.asList(drafts))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TransportPlanBulkResult.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private static TransportPlanDraft plan(Long addressId, int... hours) {
+        List<TransportPlanDraft.SectionDraft> sections = new ArrayList<>();
+        for (int i = 0; i + 1 < hours.length; i++) {
+            TransportPlanDraft.SectionDraft section = new TransportPlanDraft.SectionDraft();
+            section.setFrom(milestone(addressId, hours[i]));
+            section.setTo(milestone(addressId, hours[i + 1]));
+            sections.add(section);
+        }
+        TransportPlanDraft draft = new TransportPlanDraft();
+        draft.setSections(sections);
+        return draft;
+    }
+
+    private static TransportPlanDraft.MilestoneDraft milestone(Long addressId, int hour) {
+        TransportPlanDraft.MilestoneDraft milestone = new TransportPlanDraft.MilestoneDraft();
+        milestone.setAddressId(addressId);
+        milestone.setPlannedTime(START.plusHours(hour));
+        return milestone;
+    }
+
+}
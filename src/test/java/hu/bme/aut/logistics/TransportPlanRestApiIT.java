@@ -12,12 +12,18 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
 import org.springframework.web.util.UriBuilder;
 
+import hu.bme.aut.logistics.index.GeoDistance;
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
 import hu.bme.aut.logistics.model.TransportPlan;
 import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
 import hu.bme.aut.logistics.test.TestDataHelper;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
@@ -36,6 +42,9 @@ public class TransportPlanRestApiIT {
     @Autowired
     AddressRepository addressRepository;
 
+    @Autowired
+    MilestoneRepository milestoneRepository;
+
     private List<TransportPlan> allTransportPlans;
 
     @BeforeEach
@@ -61,6 +70,100 @@ public class TransportPlanRestApiIT {
         assertThat(returnedTransportPlans.get(0).getId()).isEqualTo(allTransportPlans.get(1).getId());
     }
 
+    @Test
+    public void givenTransportPlansInDb_whenSortedByLatestPlannedTimeDesc_thenReturnLatestFirst() throws Exception {
+        List<TransportPlan> returnedTransportPlans = buildSearchTransportPlanRequest("2019-01-01T00-00-00",
+                "latestPlannedTime,desc")
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<TransportPlan>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+        assertThat(returnedTransportPlans).extracting(TransportPlan::getId)
+                .containsExactly(allTransportPlans.get(1).getId(), allTransportPlans.get(0).getId());
+    }
+
+    @Test
+    public void givenTransportPlansInDb_whenSortedByUnknownProperty_thenReturnBadRequest() throws Exception {
+        buildSearchTransportPlanRequest("2019-01-01T00-00-00", "sections")
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void givenETagOfResult_whenSearchIfNoneMatch_thenNotModified() throws Exception {
+        String etag = getETag(buildSearchTransportPlanRequest("2019-01-01T00-00-00"));
+
+        buildSearchTransportPlanRequest("2019-01-01T00-00-00", null, etag)
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void givenETagOfResult_whenMilestoneIsModifiedAndSearchIfNoneMatch_thenNewETagAndBody() throws Exception {
+        String etag = getETag(buildSearchTransportPlanRequest("2019-01-01T00-00-00"));
+        Milestone milestone = milestoneRepository.findById(
+                allTransportPlans.get(1).getSections().get(0).getToMilestone().getId()).get();
+        milestone.setPlannedTime(milestone.getPlannedTime().plusHours(1));
+        milestoneRepository.save(milestone);
+
+        buildSearchTransportPlanRequest("2019-01-01T00-00-00", null, etag)
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, value -> assertThat(value).isNotEqualTo(etag))
+                .expectBody(new ParameterizedTypeReference<List<TransportPlan>>() {
+                })
+                .value(plans -> assertThat(plans).hasSize(2));
+    }
+
+    @Test
+    public void givenMilestonesWithAddresses_whenSearch_thenPlansCarryRouteMetricsFollowingAddressChanges() throws Exception {
+        Address budapest = testDataHelper.insertTestAddress();
+        Address debrecen = testDataHelper.createTestAddress();
+        debrecen.setCity("Debrecen");
+        debrecen.setGeoLat(47.531399);
+        debrecen.setGeoLng(21.627312);
+        testDataHelper.insertTestAddress(debrecen);
+        List<Section> sections = allTransportPlans.get(1).getSections();
+        setAddress(sections.get(0).getFromMilestone(), budapest);
+        setAddress(sections.get(0).getToMilestone(), debrecen);
+        setAddress(sections.get(1).getFromMilestone(), debrecen);
+        setAddress(sections.get(1).getToMilestone(), budapest);
+
+        TransportPlan plan = searchTransportPlans("2020-03-01T10-00-00").get(0);
+
+        double distance = GeoDistance.haversineKm(budapest.getGeoLat(), budapest.getGeoLng(), debrecen.getGeoLat(),
+                debrecen.getGeoLng());
+        assertThat(plan.getSections()).extracting(Section::getDistanceKm).containsExactly(distance, distance);
+        assertThat(plan.getTotalDistanceKm()).isEqualTo(2 * distance);
+        assertThat(plan.getTotalDurationMinutes()).isEqualTo(24 * 60);
+        assertThat(plan.getAverageSpeedKmh()).isEqualTo(2 * distance / 24);
+
+        debrecen.setGeoLat(46.253010);
+        debrecen.setGeoLng(20.141425);
+        addressRepository.save(debrecen);
+        TransportPlan moved = searchTransportPlans("2020-03-01T10-00-00").get(0);
+
+        double movedDistance = GeoDistance.haversineKm(budapest.getGeoLat(), budapest.getGeoLng(), debrecen.getGeoLat(),
+                debrecen.getGeoLng());
+        assertThat(moved.getSections()).extracting(Section::getDistanceKm).containsExactly(movedDistance, movedDistance);
+    }
+
+    private void setAddress(Milestone milestone, Address address) {
+        Milestone stored = milestoneRepository.findById(milestone.getId()).get();
+        stored.setAddress(address);
+        milestoneRepository.save(stored);
+    }
+
+    private String getETag(ResponseSpec response) {
+        String etag = response
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+
     private List<TransportPlan> searchTransportPlans(String dateTime) {
         return buildSearchTransportPlanRequest(dateTime)
                 .expectStatus().isOk()
@@ -76,15 +179,26 @@ public class TransportPlanRestApiIT {
     }
 
     private ResponseSpec buildSearchTransportPlanRequest(String dateTime) {
+        return buildSearchTransportPlanRequest(dateTime, null);
+    }
+
+    private ResponseSpec buildSearchTransportPlanRequest(String dateTime, String sort) {
+        return buildSearchTransportPlanRequest(dateTime, sort, null);
+    }
+
+    private ResponseSpec buildSearchTransportPlanRequest(String dateTime, String sort, String ifNoneMatch) {
         WebTestClient.RequestHeadersSpec<?> uri = webTestClient
                 .get()
                 .uri(builder -> {
                     UriBuilder path = builder.path(TRANSPORTPLAN_SEARCH_URI);
                     if (dateTime != null)
                         path = path.queryParam("dateTime", dateTime);
+                    if (sort != null)
+                        path = path.queryParam("sort", sort);
                     return path.build();
                 });
-
+        if (ifNoneMatch != null)
+            uri = uri.ifNoneMatch(ifNoneMatch);
 
         return uri.exchange();
     }
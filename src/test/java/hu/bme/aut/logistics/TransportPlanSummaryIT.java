@@ -0,0 +1,102 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.model.Address;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.model.TransportPlanSummary;
+import hu.bme.aut.logistics.repository.AddressRepository;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+import hu.bme.aut.logistics.repository.TransportPlanSummaryRepository;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class TransportPlanSummaryIT {
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    TransportPlanRepository transportPlanRepository;
+
+    @Autowired
+    TransportPlanSummaryRepository summaryRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private List<TransportPlan> allTransportPlans;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+        allTransportPlans = testDataHelper.insertTransportPlans();
+    }
+
+    @Test
+    public void givenTransportPlansInserted_thenSummariesAreWrittenOnCommit() throws Exception {
+        assertThat(summaryRepository.findAll()).hasSize(2);
+        assertThat(summaryRepository.findById(allTransportPlans.get(0).getId()).get().getSectionCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenSectionsMovedToAnotherPlan_thenBothSummariesAreRebuilt() throws Exception {
+        Long oldPlanId = allTransportPlans.get(0).getId();
+        Long newPlanId = allTransportPlans.get(1).getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            TransportPlan newPlan = transportPlanRepository.findById(newPlanId).get();
+            for (Section section : transportPlanRepository.findById(oldPlanId).get().getSections())
+                section.setTransportPlan(newPlan);
+        });
+
+        assertThat(summaryRepository.findById(oldPlanId).get().getSectionCount()).isZero();
+        assertThat(summaryRepository.findById(newPlanId).get().getSectionCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void givenOriginAddressUpdated_thenSummaryIsUpdatedOnCommit() throws Exception {
+        Long planId = allTransportPlans.get(0).getId();
+        Address address = testDataHelper.insertTestAddress();
+        transactionTemplate.executeWithoutResult(status -> transportPlanRepository.findById(planId).get()
+                .getSections().get(0).getFromMilestone().setAddress(addressRepository.findById(address.getId()).get()));
+        assertThat(summaryRepository.findById(planId).get().getOriginCity()).isEqualTo("Budapest");
+
+        transactionTemplate.executeWithoutResult(status -> addressRepository.findById(address.getId()).get().setCity("Debrecen"));
+
+        assertThat(summaryRepository.findById(planId).get().getOriginCity()).isEqualTo("Debrecen");
+    }
+
+    @Test
+    public void givenTransactionRolledBack_thenSummaryIsUnchanged() throws Exception {
+        Long oldPlanId = allTransportPlans.get(0).getId();
+        Long newPlanId = allTransportPlans.get(1).getId();
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            TransportPlan newPlan = transportPlanRepository.findById(newPlanId).get();
+            transportPlanRepository.findById(oldPlanId).get().getSections().get(0).setTransportPlan(newPlan);
+            transportPlanRepository.flush();
+            throw new IllegalStateException();
+        })).isInstanceOf(IllegalStateException.class);
+
+        TransportPlanSummary summary = summaryRepository.findById(oldPlanId).get();
+        assertThat(summary.getSectionCount()).isEqualTo(2);
+    }
+
+}
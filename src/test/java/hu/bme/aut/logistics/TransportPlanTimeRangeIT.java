@@ -0,0 +1,102 @@
+package hu.bme.aut.logistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.model.TransportPlan;
+import hu.bme.aut.logistics.repository.SectionRepository;
+import hu.bme.aut.logistics.repository.TransportPlanRepository;
+import hu.bme.aut.logistics.test.TestDataHelper;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class TransportPlanTimeRangeIT {
+
+    @Autowired
+    TestDataHelper testDataHelper;
+
+    @Autowired
+    TransportPlanRepository transportPlanRepository;
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private List<TransportPlan> allTransportPlans;
+
+    @BeforeEach
+    public void init() {
+        testDataHelper.clearDb();
+        allTransportPlans = testDataHelper.insertTransportPlans();
+    }
+
+    @Test
+    public void givenTransportPlansInserted_thenRangeIsSetOnCommit() throws Exception {
+        TransportPlan plan = transportPlanRepository.findById(allTransportPlans.get(1).getId()).get();
+        assertThat(plan.getEarliestPlannedTime()).isEqualTo(LocalDateTime.of(2020, 10, 29, 12, 30, 0));
+        assertThat(plan.getLatestPlannedTime()).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 30, 0));
+    }
+
+    @Test
+    public void givenMilestoneDelayed_thenRangeIsUpdatedOnCommit() throws Exception {
+        Long planId = allTransportPlans.get(1).getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            Section section = transportPlanRepository.findById(planId).get().getSections().get(1);
+            Milestone to = section.getToMilestone();
+            to.setPlannedTime(to.getPlannedTime().plusHours(5));
+        });
+
+        TransportPlan plan = transportPlanRepository.findById(planId).get();
+        assertThat(plan.getLatestPlannedTime()).isEqualTo(LocalDateTime.of(2020, 10, 30, 17, 30, 0));
+    }
+
+    @Test
+    public void givenSectionsMovedToAnotherPlan_thenBothPlansAreRecomputed() throws Exception {
+        Long oldPlanId = allTransportPlans.get(0).getId();
+        Long newPlanId = allTransportPlans.get(1).getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            TransportPlan newPlan = transportPlanRepository.findById(newPlanId).get();
+            for (Section section : transportPlanRepository.findById(oldPlanId).get().getSections())
+                section.setTransportPlan(newPlan);
+        });
+
+        TransportPlan oldPlan = transportPlanRepository.findById(oldPlanId).get();
+        assertThat(oldPlan.getEarliestPlannedTime()).isNull();
+        assertThat(oldPlan.getLatestPlannedTime()).isNull();
+        TransportPlan newPlan = transportPlanRepository.findById(newPlanId).get();
+        assertThat(newPlan.getEarliestPlannedTime()).isEqualTo(LocalDateTime.of(2019, 1, 29, 12, 30, 0));
+        assertThat(newPlan.getLatestPlannedTime()).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 30, 0));
+    }
+
+    @Test
+    public void givenTransactionRolledBack_thenRangeIsUnchanged() throws Exception {
+        Long planId = allTransportPlans.get(1).getId();
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            Section section = transportPlanRepository.findById(planId).get().getSections().get(1);
+            section.getToMilestone().setPlannedTime(LocalDateTime.of(2021, 1, 1, 0, 0, 0));
+            sectionRepository.flush();
+            throw new IllegalStateException();
+        })).isInstanceOf(IllegalStateException.class);
+
+        TransportPlan plan = transportPlanRepository.findById(planId).get();
+        assertThat(plan.getLatestPlannedTime()).isEqualTo(LocalDateTime.of(2020, 10, 30, 12, 30, 0));
+    }
+
+}
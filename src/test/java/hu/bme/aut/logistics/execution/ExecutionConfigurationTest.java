@@ -0,0 +1,58 @@
+package hu.bme.aut.logistics.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class ExecutionConfigurationTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withBean(DataSource.class, HikariDataSource::new)
+            .withUserConfiguration(ExecutionConfiguration.class);
+
+    @Test
+    public void givenModeNotSet_thenPlatformThreadsAreUsed() {
+        contextRunner.run(context -> assertThat(context)
+                .hasNotFailed()
+                .doesNotHaveBean(ExecutionConfiguration.class)
+                .doesNotHaveBean(FilterRegistrationBean.class));
+    }
+
+    @Test
+    public void givenPlatformMode_thenPlatformThreadsAreUsed() {
+        contextRunner.withPropertyValues("logistics.execution.mode=PLATFORM")
+                .run(context -> assertThat(context)
+                        .hasNotFailed()
+                        .doesNotHaveBean(ExecutionConfiguration.class));
+    }
+
+    @Test
+    public void givenUnknownMode_thenStartupFails() {
+        contextRunner.withPropertyValues("logistics.execution.mode=green")
+                .run(context -> assertThat(context)
+                        .getFailure()
+                        .hasCauseInstanceOf(BindException.class));
+    }
+
+    @Test
+    public void givenVirtualMode_thenRequestsRunOnVirtualThreadsWhereSupported() {
+        contextRunner.withPropertyValues("logistics.execution.mode=virtual", "logistics.execution.requests-per-connection=3")
+                .run(context -> {
+                    if (VirtualThreads.isSupported()) {
+                        assertThat(context).hasNotFailed().hasBean("requestExecutor");
+                        ConcurrencyLimitFilter filter = (ConcurrencyLimitFilter) context.getBean(FilterRegistrationBean.class).getFilter();
+                        assertThat(filter.getMaxConcurrentRequests()).isEqualTo(30);
+                    } else {
+                        assertThat(context).getFailure().hasMessageContaining("Java 21");
+                    }
+                });
+    }
+
+}
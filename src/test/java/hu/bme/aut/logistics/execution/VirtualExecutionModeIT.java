@@ -0,0 +1,50 @@
+package hu.bme.aut.logistics.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Starts the application in virtual execution mode. Skipped unless the tests
+ * run on Java 21 or later, see the {@code java21} Maven profile.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "logistics.execution.mode=virtual")
+@AutoConfigureTestDatabase
+@AutoConfigureWebTestClient
+public class VirtualExecutionModeIT {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ExecutorService requestExecutor;
+
+    @BeforeAll
+    public static void requireVirtualThreads() {
+        Assumptions.assumeTrue(VirtualThreads.isSupported(), "virtual threads need a Java 21 or later runtime");
+    }
+
+    @Test
+    public void givenVirtualMode_thenRequestsAreServed() throws Exception {
+        webTestClient.get().uri("/addresses")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void givenVirtualMode_thenRequestExecutorStartsVirtualThreads() throws Exception {
+        Object virtual = requestExecutor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+        assertThat(virtual).isEqualTo(true);
+    }
+
+}
@@ -0,0 +1,121 @@
+package hu.bme.aut.logistics.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import hu.bme.aut.logistics.model.Address;
+
+public class AddressGeoIndexTest {
+
+    private static final int COUNT = 2000;
+
+    private AddressGeoIndex index;
+    private double[][] coordinates;
+
+    @BeforeEach
+    public void init() {
+        index = new AddressGeoIndex(0.1);
+        Random random = new Random(7);
+        coordinates = new double[COUNT][];
+        for (int i = 0; i < COUNT; i++) {
+            coordinates[i] = new double[] { 47 + random.nextDouble() * 2, 18 + random.nextDouble() * 3 };
+            index.put(address(i, coordinates[i][0], coordinates[i][1]));
+        }
+    }
+
+    @Test
+    public void whenFindNearest_thenReturnSameIdsAsLinearScan() {
+        List<Long> expected = idsByDistanceFrom(47.5, 19.04).limit(15).boxed().collect(Collectors.toList());
+
+        List<Long> found = index.findNearest(47.5, 19.04, 15).stream()
+                .map(AddressGeoIndex.Match::getId)
+                .collect(Collectors.toList());
+
+        assertThat(found).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void whenFindWithin_thenReturnAllAddressesInsideRadius() {
+        List<Long> expected = idsByDistanceFrom(47.5, 19.04)
+                .filter(id -> distance(id, 47.5, 19.04) <= 25)
+                .boxed()
+                .collect(Collectors.toList());
+
+        List<AddressGeoIndex.Match> found = index.findWithin(47.5, 19.04, 25);
+
+        assertThat(found).extracting(AddressGeoIndex.Match::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void whenAddressLosesCoordinates_thenItIsNotFound() {
+        long nearest = index.findNearest(47.5, 19.04, 1).get(0).getId();
+        index.put(address(nearest, null, null));
+
+        assertThat(index.findNearest(47.5, 19.04, 1).get(0).getId()).isNotEqualTo(nearest);
+        assertThat(index.size()).isEqualTo(COUNT - 1);
+    }
+
+    @Test
+    public void givenAddressesNearThePole_whenFindNearest_thenReturnSameDistancesAsLinearScan() {
+        AddressGeoIndex polarIndex = new AddressGeoIndex(1);
+        Random random = new Random(11);
+        double[][] polar = new double[5000][];
+        for (int i = 0; i < polar.length; i++) {
+            polar[i] = new double[] { 70 + random.nextDouble() * 19.9, random.nextDouble() * 360 - 180 };
+            polarIndex.put(address(i, polar[i][0], polar[i][1]));
+        }
+
+        for (int query = 0; query < 200; query++) {
+            double lat = 75 + random.nextDouble() * 14.9;
+            double lng = random.nextDouble() * 360 - 180;
+            List<Double> expected = Arrays.stream(polar)
+                    .map(point -> GeoDistance.haversineKm(lat, lng, point[0], point[1]))
+                    .sorted()
+                    .limit(5)
+                    .collect(Collectors.toList());
+
+            List<Double> found = polarIndex.findNearest(lat, lng, 5).stream()
+                    .map(AddressGeoIndex.Match::getDistanceKm)
+                    .collect(Collectors.toList());
+
+            assertThat(found).as("nearest to %s, %s", lat, lng).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void givenFewAddressesFarApart_whenFindNearest_thenReturnAllOfThem() {
+        AddressGeoIndex sparseIndex = new AddressGeoIndex(0.1);
+        sparseIndex.put(address(1, 47.5, 19.04));
+        sparseIndex.put(address(2, -33.87, 151.21));
+
+        assertThat(sparseIndex.findNearest(-30, 140, 2)).extracting(AddressGeoIndex.Match::getId)
+                .containsExactly(2L, 1L);
+    }
+
+    private LongStream idsByDistanceFrom(double lat, double lng) {
+        return LongStream.range(0, COUNT)
+                .boxed()
+                .sorted(Comparator.comparingDouble(id -> distance(id, lat, lng)))
+                .mapToLong(Long::longValue);
+    }
+
+    private double distance(long id, double lat, double lng) {
+        return GeoDistance.haversineKm(lat, lng, coordinates[(int) id][0], coordinates[(int) id][1]);
+    }
+
+    private static Address address(long id, Double lat, Double lng) {
+        Address address = new Address(lat, lng, "HU", "Budapest", "1111", "Fő utca", "1");
+        address.setId(id);
+        return address;
+    }
+
+}
@@ -0,0 +1,68 @@
+package hu.bme.aut.logistics.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import hu.bme.aut.logistics.model.Address;
+
+public class AddressNormalizerTest {
+
+    @Test
+    public void whenNormalize_thenFixWhitespaceCasingAndZipFormat() {
+        Address address = new Address(47.4979, 19.0402, " hu", "BUDAPEST ", "1111", "magyar  tudósok körútja", " 2 b");
+
+        Address normalized = AddressNormalizer.normalize(address);
+
+        assertThat(normalized.getCountry()).isEqualTo("HU");
+        assertThat(normalized.getCity()).isEqualTo("Budapest");
+        assertThat(normalized.getZipCode()).isEqualTo("1111");
+        assertThat(normalized.getStreet()).isEqualTo("Magyar tudósok körútja");
+        assertThat(normalized.getNumber()).isEqualTo("2B");
+        assertThat(normalized.getGeoLat()).isEqualTo(47.4979);
+    }
+
+    @Test
+    public void whenMixedCase_thenKeepCasing() {
+        Address address = new Address(null, null, "US", "McAllen", "785011234", "North Main St", "1");
+
+        Address normalized = AddressNormalizer.normalize(address);
+
+        assertThat(normalized.getCity()).isEqualTo("McAllen");
+        assertThat(normalized.getZipCode()).isEqualTo("78501-1234");
+    }
+
+    @Test
+    public void whenZipCodeOfKnownCountry_thenUseItsFormat() {
+        assertThat(AddressNormalizer.normalizeZipCode("PL", "00950")).isEqualTo("00-950");
+        assertThat(AddressNormalizer.normalizeZipCode("NL", "1012ab")).isEqualTo("1012 AB");
+        assertThat(AddressNormalizer.normalizeZipCode("GB", "sw1a1aa")).isEqualTo("SW1A 1AA");
+        assertThat(AddressNormalizer.normalizeZipCode("CZ", "110 00")).isEqualTo("110 00");
+    }
+
+    @Test
+    public void whenSpellingVariants_thenSameFingerprint() {
+        Address address = new Address(47.49791, 19.04024, "HU", "Budapest", "1111", "Magyar tudósok körútja", "2");
+        Address variant = new Address(47.497913, 19.040236, "hu", "budapest", "11 11", "MAGYAR TUDOSOK KORUTJA",
+                " 2");
+
+        assertThat(AddressNormalizer.fingerprint(variant)).isEqualTo(AddressNormalizer.fingerprint(address));
+    }
+
+    @Test
+    public void whenStreetAbbreviated_thenSameFingerprint() {
+        Address address = new Address(null, null, "DE", "Berlin", "10115", "Hauptstraße", "5");
+        Address abbreviated = new Address(null, null, "DE", "Berlin", "10115", "Hauptstr.", "5");
+
+        assertThat(AddressNormalizer.fingerprint(abbreviated)).isEqualTo(AddressNormalizer.fingerprint(address));
+    }
+
+    @Test
+    public void whenDifferentNumber_thenDifferentFingerprint() {
+        Address address = new Address(null, null, "HU", "Budapest", "1111", "Irinyi József u.", "2");
+        Address other = new Address(null, null, "HU", "Budapest", "1111", "Irinyi József utca", "4");
+
+        assertThat(AddressNormalizer.fingerprint(other)).isNotEqualTo(AddressNormalizer.fingerprint(address));
+    }
+
+}
@@ -0,0 +1,74 @@
+package hu.bme.aut.logistics.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import hu.bme.aut.logistics.index.AddressPrefixIndex.Field;
+import hu.bme.aut.logistics.model.Address;
+
+public class AddressPrefixIndexTest {
+
+    private AddressPrefixIndex index;
+
+    @BeforeEach
+    public void init() {
+        index = new AddressPrefixIndex();
+        index.put(address(1L, "HU", "Budapest", "Magyar tudósok körútja"));
+        index.put(address(2L, "HU", "Budaörs", "Szabadság út"));
+        index.put(address(3L, "AT", "Wien", "Ringstraße"));
+    }
+
+    @Test
+    public void whenSearchByPrefix_thenReturnIdsOfAllMatchingValuesIgnoringCase() {
+        assertThat(index.findCandidateIds(prefixes(Field.CITY, "BUDA"), 100)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    public void whenSearchByMultipleFields_thenReturnIntersection() {
+        Map<Field, String> prefixes = prefixes(Field.CITY, "buda");
+        prefixes.put(Field.STREET, "sz");
+        assertThat(index.findCandidateIds(prefixes, 100)).containsExactly(2L);
+    }
+
+    @Test
+    public void whenSearchByMiddleValue_thenReturnEmptySet() {
+        assertThat(index.findCandidateIds(prefixes(Field.CITY, "dap"), 100)).isEmpty();
+    }
+
+    @Test
+    public void whenFieldMatchesMoreThanMaxScan_thenFieldIsNotUsedForNarrowing() {
+        Map<Field, String> prefixes = prefixes(Field.COUNTRY, "hu");
+        assertThat(index.findCandidateIds(prefixes, 1)).isNull();
+
+        prefixes.put(Field.STREET, "m");
+        assertThat(index.findCandidateIds(prefixes, 1)).containsExactly(1L);
+    }
+
+    @Test
+    public void whenAddressIsUpdatedOrRemoved_thenOldValuesAreNotFound() {
+        index.put(address(1L, "HU", "Debrecen", "Piac utca"));
+        assertThat(index.findCandidateIds(prefixes(Field.CITY, "buda"), 100)).containsExactly(2L);
+
+        index.remove(2L);
+        assertThat(index.findCandidateIds(prefixes(Field.CITY, "buda"), 100)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    private static Map<Field, String> prefixes(Field field, String prefix) {
+        Map<Field, String> prefixes = new EnumMap<>(Field.class);
+        prefixes.put(field, AddressPrefixIndex.normalize(prefix));
+        return prefixes;
+    }
+
+    private static Address address(Long id, String country, String city, String street) {
+        Address address = new Address(null, null, country, city, "1111", street, "1");
+        address.setId(id);
+        return address;
+    }
+
+}
@@ -0,0 +1,39 @@
+package hu.bme.aut.logistics.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class GeoDistanceTest {
+
+    @Test
+    public void whenBudapestToVienna_thenReturnKnownDistance() {
+        assertThat(GeoDistance.haversineKm(47.4979, 19.0402, 48.2082, 16.3738)).isCloseTo(214.0, within(1.0));
+    }
+
+    @Test
+    public void whenComputeBatch_thenReturnSameDistancesAsSingleCalls() {
+        int count = 1000;
+        Random random = new Random(3);
+        double[] lat1 = new double[count];
+        double[] lng1 = new double[count];
+        double[] lat2 = new double[count];
+        double[] lng2 = new double[count];
+        for (int i = 0; i < count; i++) {
+            lat1[i] = random.nextDouble() * 180 - 90;
+            lng1[i] = random.nextDouble() * 360 - 180;
+            lat2[i] = random.nextDouble() * 180 - 90;
+            lng2[i] = random.nextDouble() * 360 - 180;
+        }
+
+        double[] distances = new double[count];
+        GeoDistance.haversineKm(lat1, lng1, lat2, lng2, distances, count);
+
+        for (int i = 0; i < count; i++)
+            assertThat(distances[i]).isCloseTo(GeoDistance.haversineKm(lat1[i], lng1[i], lat2[i], lng2[i]), within(1e-6));
+    }
+
+}
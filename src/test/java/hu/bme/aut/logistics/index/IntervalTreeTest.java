@@ -0,0 +1,67 @@
+package hu.bme.aut.logistics.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class IntervalTreeTest {
+
+    @Test
+    public void whenQueryingOverlaps_thenReturnIntervalsTouchingTheRange() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put(1, 0, 10, "a");
+        tree.put(2, 5, 15, "b");
+        tree.put(3, 20, 30, "c");
+
+        assertThat(tree.findOverlapping(10, 19)).containsExactlyInAnyOrder("a", "b");
+        assertThat(tree.findOverlapping(16, 19)).isEmpty();
+        assertThat(tree.findContaining(30)).containsExactly("c");
+    }
+
+    @Test
+    public void whenIntervalIsReplacedOrRemoved_thenOnlyCurrentIntervalIsFound() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put(1, 0, 10, "a");
+        tree.put(1, 40, 50, "a2");
+
+        assertThat(tree.findContaining(5)).isEmpty();
+        assertThat(tree.findContaining(45)).containsExactly("a2");
+
+        tree.remove(1);
+        assertThat(tree.findContaining(45)).isEmpty();
+        assertThat(tree.size()).isZero();
+    }
+
+    @Test
+    public void givenRandomIntervals_whenQuerying_thenResultMatchesLinearScan() {
+        Random random = new Random(42);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        List<long[]> intervals = new ArrayList<>();
+        for (long id = 0; id < 2000; id++) {
+            long start = random.nextInt(10_000);
+            long[] interval = { id, start, start + random.nextInt(500) };
+            intervals.add(interval);
+            tree.put(interval[0], interval[1], interval[2], id);
+        }
+        for (long id = 0; id < 2000; id += 3) {
+            tree.remove(id);
+            intervals.set((int) id, null);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            long from = random.nextInt(10_000);
+            long to = from + random.nextInt(100);
+            List<Long> expected = intervals.stream()
+                    .filter(interval -> interval != null && interval[1] <= to && interval[2] >= from)
+                    .map(interval -> interval[0])
+                    .collect(Collectors.toList());
+            assertThat(tree.findOverlapping(from, to)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package hu.bme.aut.logistics.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PlanGraphSnapshotTest {
+
+    private static final long HOUR = 3600;
+
+    @Test
+    public void givenPlans_whenFindPlanIdsActiveBetween_thenReturnOverlappingPlans() {
+        PlanGraphSnapshot snapshot = new PlanGraphSnapshot.Builder()
+                .addPlan(1).addSection(10, 0).from(100, 0, 1000, 47, 19).to(101, 2 * HOUR, 1001, 48, 16)
+                .addPlan(2).addSection(20, 0).from(200, 5 * HOUR, 1000, 47, 19).to(201, 6 * HOUR, 1001, 48, 16)
+                .addPlan(3)
+                .build();
+
+        assertThat(snapshot.findPlanIdsActiveBetween(HOUR, 3 * HOUR)).containsExactly(1L);
+        assertThat(snapshot.findPlanIdsActiveBetween(2 * HOUR, 5 * HOUR)).containsExactly(1L, 2L);
+        assertThat(snapshot.findPlanIdsActiveBetween(7 * HOUR, 8 * HOUR)).isEmpty();
+    }
+
+    @Test
+    public void givenSharedMilestones_whenForEachMilestoneAt_thenVisitEachMilestoneOnce() {
+        PlanGraphSnapshot snapshot = new PlanGraphSnapshot.Builder()
+                .addPlan(1)
+                .addSection(10, 0).from(100, 0, 1000, 47, 19).to(101, HOUR, 1001, 48, 16)
+                .addSection(11, 1).from(101, HOUR, 1001, 48, 16).to(102, 2 * HOUR, 1000, 47, 19)
+                .addPlan(2)
+                .addSection(20, 0).from(200, 0, 1001, 48, 16).to(201, HOUR, 1002, 46, 20)
+                .build();
+
+        assertThat(milestonesAt(snapshot, 1000)).containsExactly(100L, 102L);
+        assertThat(milestonesAt(snapshot, 1001)).containsExactly(101L, 200L);
+        assertThat(milestonesAt(snapshot, 1003)).isEmpty();
+    }
+
+    @Test
+    public void givenSnapshot_whenCopyPlansIntoNewSnapshot_thenPlansAreEqual() {
+        PlanGraphSnapshot original = new PlanGraphSnapshot.Builder()
+                .addPlan(1).addSection(10, 0).from(100, 0, 1000, 47, 19).to(101, HOUR, 1001, 48, 16)
+                .addPlan(2).addSection(20, 0).from(200, 0, 1001, 48, 16).to(201, HOUR, 1002, 46, 20)
+                .addSection(21, 1).from(201, HOUR, 1002, 46, 20).to(202, 3 * HOUR, 1003, 45, 21)
+                .build();
+
+        PlanGraphSnapshot copy = new PlanGraphSnapshot.Builder()
+                .addPlan(1).addSection(10, 0).from(100, 4 * HOUR, 1000, 47, 19).to(101, 5 * HOUR, 1001, 48, 16)
+                .copyPlan(original, original.indexOfPlan(2))
+                .build();
+
+        int plan = copy.indexOfPlan(2);
+        assertThat(copy.sectionEnd(plan) - copy.sectionStart(plan)).isEqualTo(2);
+        assertThat(copy.planLengthKm(plan)).isEqualTo(original.planLengthKm(original.indexOfPlan(2)));
+        assertThat(copy.planEnd(plan)).isEqualTo(3 * HOUR);
+        assertThat(copy.planStart(copy.indexOfPlan(1))).isEqualTo(4 * HOUR);
+        assertThat(copy.indexOfPlan(3)).isNegative();
+    }
+
+    private static List<Long> milestonesAt(PlanGraphSnapshot snapshot, long addressId) {
+        List<Long> milestoneIds = new ArrayList<>();
+        snapshot.forEachMilestoneAt(addressId, (planId, milestoneId, plannedTime) -> milestoneIds.add(milestoneId));
+        return milestoneIds;
+    }
+
+}
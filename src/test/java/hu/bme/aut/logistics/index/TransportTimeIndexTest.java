@@ -0,0 +1,92 @@
+package hu.bme.aut.logistics.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.model.Section;
+import hu.bme.aut.logistics.repository.SectionRepository;
+
+public class TransportTimeIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 3, 1, 8, 0);
+
+    @Test
+    public void givenChangesCommittedDuringLoad_whenLoadReadsOlderRows_thenChangesAreKept() {
+        TransportTimeIndex index = new TransportTimeIndex();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, 100L, START, 101L, START.plusHours(2) });
+        rows.add(new Object[] { 2L, 20L, 200L, START, 201L, START.plusHours(2) });
+        // Committed after the load read the rows above, before it indexed them
+        Runnable commitDuringLoad = () -> index.onEntitiesChanged(new EntitiesChangedEvent(List.of(
+                new EntityChange(ChangeType.UPDATED, milestone(101L, START.plusHours(4))),
+                new EntityChange(ChangeType.DELETED, section(2L)))));
+        index.sectionRepository = sectionRepository(rows, commitDuringLoad);
+
+        index.load();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.findSectionsActiveAt(START.plusHours(3))).extracting(SectionSpan::getSectionId)
+                .containsExactly(1L);
+        assertThat(index.findPlansActiveBetween(START, START.plusHours(1))).extracting(PlanSpan::getTransportPlanId)
+                .containsExactly(10L);
+        assertThat(index.findPlansActiveBetween(START, START).get(0).getEnd()).isEqualTo(START.plusHours(4));
+    }
+
+    @Test
+    public void givenLoaded_whenMilestoneChanges_thenSectionAndPlanSpansFollow() {
+        TransportTimeIndex index = new TransportTimeIndex();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, 100L, START, 101L, START.plusHours(2) });
+        index.sectionRepository = sectionRepository(rows, () -> {
+        });
+        index.load();
+
+        index.onEntitiesChanged(new EntitiesChangedEvent(List.of(
+                new EntityChange(ChangeType.UPDATED, milestone(101L, START.plusHours(4))))));
+
+        assertThat(index.findSectionsActiveAt(START.plusHours(3))).extracting(SectionSpan::getSectionId)
+                .containsExactly(1L);
+        assertThat(index.findPlansActiveBetween(START, START).get(0).getEnd()).isEqualTo(START.plusHours(4));
+    }
+
+    /**
+     * Returns the rows on the first call and runs {@code duringRead} before
+     * returning them, then returns no more rows.
+     */
+    private static SectionRepository sectionRepository(List<Object[]> rows, Runnable duringRead) {
+        boolean[] read = new boolean[1];
+        return (SectionRepository) Proxy.newProxyInstance(SectionRepository.class.getClassLoader(),
+                new Class<?>[] { SectionRepository.class }, (proxy, method, args) -> {
+                    if (!method.getName().equals("findSpanRowsAfter"))
+                        throw new UnsupportedOperationException(method.getName());
+                    if (read[0])
+                        return List.of();
+                    read[0] = true;
+                    duringRead.run();
+                    return rows;
+                });
+    }
+
+    private static Milestone milestone(Long id, LocalDateTime plannedTime) {
+        Milestone milestone = new Milestone(null, plannedTime);
+        milestone.setId(id);
+        return milestone;
+    }
+
+    private static Section section(Long id) {
+        Section section = new Section();
+        section.setId(id);
+        return section;
+    }
+
+}
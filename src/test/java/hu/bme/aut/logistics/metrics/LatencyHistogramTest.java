@@ -0,0 +1,39 @@
+package hu.bme.aut.logistics.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void whenRecordLatencies_thenCumulativeCountsPerBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(500_000);
+        histogram.recordNanos(1_000_000);
+        histogram.recordNanos(1_000_001_000);
+        histogram.recordNanos(20_000_000_000L);
+
+        long[] bounds = histogram.getBoundsMicros();
+        long[] cumulative = histogram.getCumulativeCounts();
+        assertThat(cumulative).hasSize(bounds.length + 1);
+        assertThat(bounds[0]).isEqualTo(1_000);
+        assertThat(cumulative[0]).isEqualTo(2);
+        assertThat(bounds[bounds.length - 4]).isEqualTo(1_000_000);
+        assertThat(cumulative[bounds.length - 4]).isEqualTo(2);
+        assertThat(cumulative[bounds.length - 3]).isEqualTo(3);
+        assertThat(cumulative[bounds.length - 1]).isEqualTo(3);
+        assertThat(cumulative[bounds.length]).isEqualTo(4);
+        assertThat(histogram.getCount()).isEqualTo(4);
+        assertThat(histogram.getMaxMicros()).isEqualTo(20_000_000);
+        assertThat(histogram.getSumMicros()).isEqualTo(500 + 1_000 + 1_000_001 + 20_000_000);
+    }
+
+    @Test
+    public void whenEmpty_thenCountsAreZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCumulativeCounts()).containsOnly(0L);
+        assertThat(histogram.getCount()).isZero();
+    }
+
+}
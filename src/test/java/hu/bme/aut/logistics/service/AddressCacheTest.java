@@ -0,0 +1,80 @@
+package hu.bme.aut.logistics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Address;
+
+public class AddressCacheTest {
+
+    @Test
+    public void whenLoadedTwice_thenSecondIsHit() {
+        AddressCache cache = new AddressCache(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> load(id, loads));
+        cache.get(1L, id -> load(id, loads));
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenEvictedDuringLoad_thenLoadedAddressIsNotStored() {
+        AddressCache cache = new AddressCache(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> {
+            cache.evict(2L);
+            return load(id, loads);
+        });
+        cache.get(1L, id -> load(id, loads));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void whenDeletionRecordedWithIdOnly_thenEvict() {
+        AddressCache cache = new AddressCache(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, id -> load(id, loads));
+        // As recorded by the bulk delete and deduplication statements
+        Address deleted = new Address();
+        deleted.setId(1L);
+
+        cache.onEntitiesChanged(new EntitiesChangedEvent(List.of(new EntityChange(ChangeType.DELETED, deleted))));
+        cache.get(1L, id -> load(id, loads));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void whenReturnedAddressIsModified_thenCachedAddressIsNot() {
+        AddressCache cache = new AddressCache(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> load(id, loads)).get().setCity("Szeged");
+        cache.get(1L, id -> load(id, loads)).get().setCity("Szeged");
+
+        assertThat(cache.get(1L, id -> load(id, loads)).get().getCity()).isEqualTo("Budapest");
+        assertThat(loads).hasValue(1);
+    }
+
+    private static Optional<Address> load(Long id, AtomicInteger loads) {
+        loads.incrementAndGet();
+        Address address = new Address();
+        address.setId(id);
+        address.setCity("Budapest");
+        return Optional.of(address);
+    }
+
+}
@@ -0,0 +1,70 @@
+package hu.bme.aut.logistics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.TransportPlan;
+
+public class ChangeFeedTest {
+
+    @Test
+    public void whenReadAfterSequence_thenReturnLaterEntriesInOrder() {
+        ChangeFeed feed = new ChangeFeed(null, 4);
+        changePlans(feed, 10L, 11L, 12L);
+
+        List<ChangeFeedEntry> entries = feed.readAfter(1, 10);
+
+        assertThat(entries).extracting(ChangeFeedEntry::getSequence).containsExactly(2L, 3L);
+        assertThat(entries).extracting(ChangeFeedEntry::getEntityId).containsExactly(11L, 12L);
+        assertThat(feed.readAfter(3, 10)).isEmpty();
+    }
+
+    @Test
+    public void whenEntriesOverwritten_thenReadAfterReturnsNull() {
+        ChangeFeed feed = new ChangeFeed(null, 4);
+        changePlans(feed, 1L, 2L, 3L, 4L, 5L, 6L);
+
+        assertThat(feed.readAfter(1, 10)).isNull();
+        assertThat(feed.readAfter(2, 10)).extracting(ChangeFeedEntry::getSequence).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(feed.readAfter(7, 10)).isNull();
+    }
+
+    @Test
+    public void whenEventIdFromAnotherEpoch_thenReadAfterItReturnsNull() {
+        ChangeFeed feed = new ChangeFeed(null, 4);
+        ChangeFeed restarted = new ChangeFeed(null, 4);
+        changePlans(feed, 1L, 2L);
+        changePlans(restarted, 1L, 2L);
+
+        assertThat(feed.sequenceOf(feed.eventId(1))).isEqualTo(1);
+        assertThat(restarted.sequenceOf(feed.eventId(1))).isEqualTo(-1);
+        assertThat(restarted.readAfter(restarted.sequenceOf(feed.eventId(1)), 10)).isNull();
+        assertThatThrownBy(() -> feed.sequenceOf("1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> feed.sequenceOf(feed.getEpoch() + "-x")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void whenFilterByPlan_thenMatchOnlyThatPlan() {
+        ChangeFeed feed = new ChangeFeed(null, 4);
+        changePlans(feed, 1L, 2L);
+
+        assertThat(feed.readAfter(0, 10)).filteredOn(entry -> entry.matches(2L, null))
+                .extracting(ChangeFeedEntry::getEntityId).containsExactly(2L);
+    }
+
+    private static void changePlans(ChangeFeed feed, Long... planIds) {
+        for (Long planId : planIds) {
+            TransportPlan plan = new TransportPlan();
+            plan.setId(planId);
+            feed.onEntitiesChanged(new EntitiesChangedEvent(List.of(new EntityChange(ChangeType.UPDATED, plan))));
+        }
+    }
+
+}
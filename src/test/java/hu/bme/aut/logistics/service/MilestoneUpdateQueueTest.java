@@ -0,0 +1,145 @@
+package hu.bme.aut.logistics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityNotFoundException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import hu.bme.aut.logistics.model.Milestone;
+import hu.bme.aut.logistics.repository.MilestoneRepository;
+
+public class MilestoneUpdateQueueTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2020, 3, 1, 8, 0);
+
+    private final Map<Long, Milestone> milestones = Map.of(1L, milestone(1L), 2L, milestone(2L));
+    private int unavailableReads;
+    private final List<MilestoneDelay> registeredDelays = new ArrayList<>();
+
+    @Test
+    public void givenDatabaseUnavailable_whenFlushed_thenUpdatesAreKeptAndWrittenLater() {
+        MilestoneUpdateQueue queue = queue(Duration.ZERO);
+        queue.offer(List.of(retime(1L, TIME), retime(2L, TIME)));
+        unavailableReads = 1;
+
+        queue.flush();
+
+        assertThat(queue.getStats().getDepth()).isEqualTo(2);
+        assertThat(queue.getStats().getRetried()).isEqualTo(2);
+        assertThat(queue.getStats().getFailed()).isZero();
+
+        queue.offer(List.of(delay(1L, 30L)));
+        queue.flush();
+
+        assertThat(queue.getStats().getDepth()).isZero();
+        assertThat(queue.getStats().getWritten()).isEqualTo(2);
+        assertThat(milestones.get(1L).getPlannedTime()).isEqualTo(TIME);
+        assertThat(registeredDelays).extracting(MilestoneDelay::getMinutes).containsExactly(30L);
+    }
+
+    @Test
+    public void givenDatabaseUnavailable_whenFlushedAgainBeforeBackoff_thenNothingIsWritten() {
+        MilestoneUpdateQueue queue = queue(Duration.ofHours(1));
+        queue.offer(List.of(retime(1L, TIME)));
+        unavailableReads = 1;
+        queue.flush();
+
+        queue.flush();
+
+        assertThat(queue.getStats().getDepth()).isEqualTo(1);
+        assertThat(milestones.get(1L).getPlannedTime()).isNull();
+    }
+
+    @Test
+    public void givenMissingMilestone_whenFlushed_thenItsUpdateIsFailedAndOthersWritten() {
+        MilestoneUpdateQueue queue = queue(Duration.ZERO);
+        queue.offer(List.of(retime(1L, TIME), retime(3L, TIME)));
+
+        queue.flush();
+
+        assertThat(queue.getStats().getDepth()).isZero();
+        assertThat(queue.getStats().getWritten()).isEqualTo(1);
+        assertThat(queue.getStats().getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    public void givenDelayOfMissingMilestone_whenFlushed_thenOnlyItIsDropped() {
+        MilestoneUpdateQueue queue = queue(Duration.ZERO);
+        queue.offer(List.of(delay(1L, 30L), delay(3L, 30L)));
+
+        queue.flush();
+
+        assertThat(queue.getStats().getDepth()).isZero();
+        assertThat(queue.getStats().getWritten()).isEqualTo(1);
+        assertThat(queue.getStats().getFailed()).isEqualTo(1);
+        assertThat(queue.getStats().getRetried()).isZero();
+    }
+
+    private MilestoneUpdateQueue queue(Duration retryBackoff) {
+        PlatformTransactionManager transactionManager = (PlatformTransactionManager) Proxy.newProxyInstance(
+                PlatformTransactionManager.class.getClassLoader(), new Class<?>[] { PlatformTransactionManager.class },
+                (proxy, method, args) -> method.getName().equals("getTransaction") ? new SimpleTransactionStatus() : null);
+        MilestoneUpdateQueue queue = new MilestoneUpdateQueue(transactionManager, 10, 10, retryBackoff, Duration.ofHours(1));
+        queue.milestoneRepository = (MilestoneRepository) Proxy.newProxyInstance(
+                MilestoneRepository.class.getClassLoader(), new Class<?>[] { MilestoneRepository.class },
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findAllById"))
+                        throw new UnsupportedOperationException(method.getName());
+                    if (unavailableReads > 0) {
+                        unavailableReads--;
+                        throw new TransientDataAccessResourceException("connection refused");
+                    }
+                    List<Milestone> found = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        if (milestones.containsKey(id))
+                            found.add(milestones.get(id));
+                    }
+                    return found;
+                });
+        queue.delayPropagationService = new DelayPropagationService() {
+            @Override
+            public List<Milestone> registerDelays(Collection<MilestoneDelay> delays) {
+                for (MilestoneDelay delay : delays) {
+                    if (!milestones.containsKey(delay.getMilestoneId()))
+                        throw new EntityNotFoundException("milestone not found: " + delay.getMilestoneId());
+                }
+                registeredDelays.addAll(delays);
+                return List.of();
+            }
+        };
+        return queue;
+    }
+
+    private static MilestoneUpdate retime(Long milestoneId, LocalDateTime plannedTime) {
+        MilestoneUpdate update = new MilestoneUpdate();
+        update.setMilestoneId(milestoneId);
+        update.setPlannedTime(plannedTime);
+        return update;
+    }
+
+    private static MilestoneUpdate delay(Long milestoneId, Long minutes) {
+        MilestoneUpdate update = new MilestoneUpdate();
+        update.setMilestoneId(milestoneId);
+        update.setDelayMinutes(minutes);
+        return update;
+    }
+
+    private static Milestone milestone(Long id) {
+        Milestone milestone = new Milestone(null, null);
+        milestone.setId(id);
+        return milestone;
+    }
+
+}
@@ -0,0 +1,80 @@
+package hu.bme.aut.logistics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import hu.bme.aut.logistics.event.ChangeType;
+import hu.bme.aut.logistics.event.EntitiesChangedEvent;
+import hu.bme.aut.logistics.event.EntityChange;
+import hu.bme.aut.logistics.model.Address;
+
+public class SectionDistanceCacheTest {
+
+    private static final double[] LAT1 = { 47.0, 47.0, 46.0 };
+    private static final double[] LNG1 = { 19.0, 19.0, 20.0 };
+    private static final double[] LAT2 = { 47.5, 46.0, 47.5 };
+    private static final double[] LNG2 = { 21.6, 20.0, 21.6 };
+
+    @Test
+    public void givenStored_whenSameCoordinates_thenHit() {
+        SectionDistanceCache cache = new SectionDistanceCache(10);
+        cache.put(new long[] { 1, 1 }, new long[] { 2, 3 }, LAT1, LNG1, LAT2, LNG2, new double[] { 100, 200 }, 2);
+
+        assertThat(get(cache, new long[] { 1, 1 }, new long[] { 2, 3 }, 2)).containsExactly(100, 200);
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenStored_whenCoordinatesDiffer_thenMiss() {
+        SectionDistanceCache cache = new SectionDistanceCache(10);
+        cache.put(new long[] { 1 }, new long[] { 2 }, LAT1, LNG1, LAT2, LNG2, new double[] { 100 }, 1);
+
+        double[] distances = new double[1];
+        cache.get(new long[] { 1 }, new long[] { 2 }, LAT1, LNG1, new double[] { 40 }, LNG2, distances, 1);
+
+        assertThat(distances[0]).isNaN();
+    }
+
+    @Test
+    public void whenAddressChanges_thenOnlySectionsTouchingItAreEvicted() {
+        SectionDistanceCache cache = new SectionDistanceCache(10);
+        long[] fromIds = { 1, 1, 3 };
+        long[] toIds = { 2, 3, 4 };
+        cache.put(fromIds, toIds, LAT1, LNG1, LAT2, LNG2, new double[] { 100, 200, 300 }, 3);
+        Address changed = new Address();
+        changed.setId(2L);
+
+        cache.onEntitiesChanged(new EntitiesChangedEvent(List.of(new EntityChange(ChangeType.UPDATED, changed))));
+
+        double[] distances = get(cache, fromIds, toIds, 3);
+        assertThat(distances[0]).isNaN();
+        assertThat(distances[1]).isEqualTo(200);
+        assertThat(distances[2]).isEqualTo(300);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenFull_thenLeastRecentlyUsedIsEvicted() {
+        SectionDistanceCache cache = new SectionDistanceCache(2);
+        cache.put(new long[] { 1, 1 }, new long[] { 2, 3 }, LAT1, LNG1, LAT2, LNG2, new double[] { 100, 200 }, 2);
+        get(cache, new long[] { 1 }, new long[] { 2 }, 1);
+
+        cache.put(new long[] { 3 }, new long[] { 4 }, new double[] { LAT1[2] }, new double[] { LNG1[2] },
+                new double[] { LAT2[2] }, new double[] { LNG2[2] }, new double[] { 300 }, 1);
+        // Only the evicted entry referenced address 3 as its target, the new one as its source
+        cache.evictAddress(3);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(get(cache, new long[] { 1 }, new long[] { 2 }, 1)).containsExactly(100);
+    }
+
+    private static double[] get(SectionDistanceCache cache, long[] fromIds, long[] toIds, int count) {
+        double[] distances = new double[count];
+        cache.get(fromIds, toIds, LAT1, LNG1, LAT2, LNG2, distances, count);
+        return distances;
+    }
+
+}
@@ -0,0 +1,69 @@
+package hu.bme.aut.logistics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TransportPlanBulkServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 3, 1, 8, 0);
+
+    @Test
+    public void whenTimesIncrease_thenPlanIsValid() {
+        TransportPlanDraft draft = plan(section(null, 0, 2), section(1, 3, 5));
+
+        assertThat(TransportPlanBulkService.validationError(draft)).isNull();
+    }
+
+    @Test
+    public void whenNoSections_thenReject() {
+        assertThat(TransportPlanBulkService.validationError(plan())).isEqualTo("sections are required");
+    }
+
+    @Test
+    public void whenSectionNumberOutOfOrder_thenReject() {
+        TransportPlanDraft draft = plan(section(1, 0, 2), section(0, 3, 5));
+
+        assertThat(TransportPlanBulkService.validationError(draft)).startsWith("section 0 has number 1");
+    }
+
+    @Test
+    public void whenSectionArrivesBeforeDeparture_thenReject() {
+        TransportPlanDraft draft = plan(section(null, 2, 1));
+
+        assertThat(TransportPlanBulkService.validationError(draft)).isEqualTo("section 0 arrives before it departs");
+    }
+
+    @Test
+    public void whenSectionDepartsBeforePreviousArrives_thenReject() {
+        TransportPlanDraft draft = plan(section(null, 0, 4), section(null, 3, 5));
+
+        assertThat(TransportPlanBulkService.validationError(draft))
+                .isEqualTo("section 1 departs before section 0 arrives");
+    }
+
+    private static TransportPlanDraft plan(TransportPlanDraft.SectionDraft... sections) {
+        TransportPlanDraft draft = new TransportPlanDraft();
+        draft.setSections(new ArrayList<>(List.of(sections)));
+        return draft;
+    }
+
+    private static TransportPlanDraft.SectionDraft section(Integer number, int fromHour, int toHour) {
+        TransportPlanDraft.SectionDraft section = new TransportPlanDraft.SectionDraft();
+        section.setNumber(number);
+        section.setFrom(milestone(fromHour));
+        section.setTo(milestone(toHour));
+        return section;
+    }
+
+    private static TransportPlanDraft.MilestoneDraft milestone(int hour) {
+        TransportPlanDraft.MilestoneDraft milestone = new TransportPlanDraft.MilestoneDraft();
+        milestone.setPlannedTime(START.plusHours(hour));
+        return milestone;
+    }
+
+}
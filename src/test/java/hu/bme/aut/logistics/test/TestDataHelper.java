@@ -41,6 +41,7 @@ public class TestDataHelper {
         jdbcTemplate.update("DELETE FROM milestone");
         jdbcTemplate.update("DELETE FROM address");
         jdbcTemplate.update("DELETE FROM transport_plan");
+        jdbcTemplate.update("DELETE FROM transport_plan_summary");
     }
     
     public Address insertTestAddress() {